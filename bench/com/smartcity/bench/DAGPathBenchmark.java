@@ -0,0 +1,57 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.NoOpMetrics;
+import org.openjdk.jmh.annotations.*;
+import path.testing.DAGShortestPath;
+
+import java.util.concurrent.TimeUnit;
+
+/** Shortest and longest paths; the topological order is cached by the instance after the first call. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DAGPathBenchmark {
+
+    @Param({"SPARSE", "DENSE", "CHAIN", "TINY_SCCS", "GIANT_SCC"})
+    public SyntheticGraphs.Shape shape;
+
+    @Param({"10000", "100000"})
+    public int n;
+
+    private DAGShortestPath paths;
+    private int[] sources;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Graph dag = SyntheticGraphs.generate(shape, n, true, 42);
+        paths = new DAGShortestPath(dag, NoOpMetrics.INSTANCE);
+        sources = new int[64];
+        for (int s = 0; s < sources.length; s++) {
+            sources[s] = (int) ((long) s * n / sources.length);
+        }
+    }
+
+    @Benchmark
+    public DAGShortestPath.PathResult shortestPaths() {
+        return paths.shortestPaths(0);
+    }
+
+    @Benchmark
+    public DAGShortestPath.PathResult longestPaths() {
+        return paths.longestPaths(0);
+    }
+
+    @Benchmark
+    public DAGShortestPath.DistanceMatrix batchShortestPaths() {
+        return paths.shortestPaths(sources);
+    }
+
+    @Benchmark
+    public DAGShortestPath.DistanceMatrix batchShortestPathsParallel() {
+        return paths.shortestPaths(sources, Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,63 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphLoader;
+import com.smartcity.common.NoOpMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/** JSON loading throughput; divide ops/s by m for edges per second. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LoaderBenchmark {
+
+    @Param({"SPARSE", "DENSE"})
+    public SyntheticGraphs.Shape shape;
+
+    @Param({"10000", "100000"})
+    public int n;
+
+    private Path json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Graph graph = SyntheticGraphs.generate(shape, n, false, 42);
+        json = Files.createTempFile("bench-graph", ".json");
+        try (BufferedWriter out = Files.newBufferedWriter(json)) {
+            out.write("{\"directed\": true, \"n\": " + n + ", \"edges\": [\n");
+            boolean first = true;
+            for (int u = 0; u < n; u++) {
+                for (int i = 0; i < graph.outDegree(u); i++) {
+                    out.write(first ? "" : ",\n");
+                    out.write("{\"u\": " + u + ", \"v\": " + graph.target(u, i) + ", \"w\": " + graph.weight(u, i) + "}");
+                    first = false;
+                }
+            }
+            out.write("\n], \"source\": 0, \"weight_model\": \"edge\"}\n");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(json);
+    }
+
+    @Benchmark
+    public GraphLoader.GraphData loadFromFile() throws IOException {
+        return GraphLoader.loadFromFile(json.toString(), NoOpMetrics.INSTANCE);
+    }
+
+    @Benchmark
+    public GraphLoader.CSRGraphData loadCSRFromFile() throws IOException {
+        return GraphLoader.loadCSRFromFile(json.toString(), NoOpMetrics.INSTANCE);
+    }
+}
@@ -0,0 +1,62 @@
+package com.smartcity.bench;
+
+import com.smartcity.analysis.AnalysisPipeline;
+import com.smartcity.analysis.AnalysisReport;
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.GraphView;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.NoOpMetrics;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.ComponentTopologicalSort;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import path.testing.DAGShortestPath;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The staged Main flow against the fused {@link AnalysisPipeline}. Run with {@code -prof gc}
+ * to compare {@code gc.alloc.rate.norm}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PipelineBenchmark {
+
+    @Param({"SPARSE", "TINY_SCCS", "GIANT_SCC"})
+    public SyntheticGraphs.Shape shape;
+
+    @Param({"10000", "100000"})
+    public int n;
+
+    private GraphView graph;
+    private AnalysisPipeline pipeline;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = SyntheticGraphs.generate(shape, n, false, 42);
+        pipeline = AnalysisPipeline.builder().metrics(NoOpMetrics.INSTANCE).build();
+    }
+
+    @Benchmark
+    public void staged(Blackhole blackhole) {
+        List<List<Integer>> sccs = new TarjanSCC(graph, new MetricsImpl()).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, sccs);
+        CSRGraph dag = condensation.getCondensationCSR();
+        blackhole.consume(ComponentTopologicalSort.sortWithTasks(dag, sccs));
+        DAGShortestPath paths = new DAGShortestPath(dag, new MetricsImpl());
+        int source = condensation.getComponent(0);
+        blackhole.consume(paths.shortestPaths(source));
+        blackhole.consume(paths.longestPaths(source));
+    }
+
+    @Benchmark
+    public AnalysisReport fused() {
+        return pipeline.run(graph, 0);
+    }
+}
@@ -0,0 +1,67 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.GraphView;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.NoOpMetrics;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.ParallelSCC;
+import com.smartcity.graph.scc.TarjanSCC;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** SCC detection (Tarjan and fork/join) and condensation construction over synthetic graphs. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SCCBenchmark {
+
+    @Param({"SPARSE", "DENSE", "CHAIN", "TINY_SCCS", "GIANT_SCC"})
+    public SyntheticGraphs.Shape shape;
+
+    @Param({"10000", "100000"})
+    public int n;
+
+    /** {@code graph} = boxed adjacency lists, {@code csr} = primitive CSR arrays. */
+    @Param({"graph", "csr"})
+    public String representation;
+
+    /** {@code noop} measures the bare algorithm, {@code default} includes MetricsImpl counting. */
+    @Param({"noop", "default"})
+    public String metrics;
+
+    private GraphView graph;
+    private List<List<Integer>> sccs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = representation.equals("csr")
+                ? SyntheticGraphs.generateCSR(shape, n, false, 42)
+                : SyntheticGraphs.generate(shape, n, false, 42);
+        sccs = new TarjanSCC(graph).findSCCs();
+    }
+
+    private Metrics newMetrics() {
+        return metrics.equals("noop") ? NoOpMetrics.INSTANCE : new MetricsImpl();
+    }
+
+    @Benchmark
+    public List<List<Integer>> tarjanFindSCCs() {
+        return new TarjanSCC(graph, newMetrics()).findSCCs();
+    }
+
+    @Benchmark
+    public List<List<Integer>> parallelFindSCCs() {
+        return new ParallelSCC(graph, newMetrics()).findSCCs();
+    }
+
+    @Benchmark
+    public CondensationGraph condensation() {
+        return new CondensationGraph(graph, sccs);
+    }
+}
@@ -0,0 +1,77 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.NoOpMetrics;
+import org.openjdk.jmh.annotations.*;
+import path.testing.DAGShortestPath;
+import path.testing.ScenarioBatch;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Many weight scenarios over one DAG: one blocked walk versus one longest-path run per scenario. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ScenarioBenchmark {
+
+    @Param({"SPARSE", "DENSE", "CHAIN"})
+    public SyntheticGraphs.Shape shape;
+
+    @Param({"10000"})
+    public int n;
+
+    @Param({"64"})
+    public int scenarioCount;
+
+    @Param({"8", "16", "32"})
+    public int blockSize;
+
+    private DAGShortestPath[] singles;
+    private ScenarioBatch batch;
+    private ScenarioBatch.Scenarios scenarios;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Graph dag = SyntheticGraphs.generate(shape, n, true, 42);
+        Random random = new Random(42);
+        int[][] weights = new int[scenarioCount][(int) dag.getEdgeCount()];
+        singles = new DAGShortestPath[scenarioCount];
+        for (int s = 0; s < scenarioCount; s++) {
+            Graph copy = new Graph(n, true, "edge");
+            int index = 0;
+            for (int u = 0; u < n; u++) {
+                for (int k = 0; k < dag.outDegree(u); k++) {
+                    weights[s][index] = 1 + random.nextInt(20);
+                    copy.addEdge(u, dag.target(u, k), weights[s][index++]);
+                }
+            }
+            singles[s] = new DAGShortestPath(copy, NoOpMetrics.INSTANCE);
+            singles[s].longestPaths(0);
+        }
+        batch = new ScenarioBatch(new DAGShortestPath(dag, NoOpMetrics.INSTANCE), blockSize);
+        scenarios = batch.scenarios(weights);
+    }
+
+    @Benchmark
+    public int separateRuns() {
+        int sum = 0;
+        for (DAGShortestPath single : singles) {
+            sum += single.longestPaths(0).distances()[n - 1];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public ScenarioBatch.Result batchedRuns() {
+        return batch.longestPaths(0, scenarios);
+    }
+
+    @Benchmark
+    public int[] batchedCriticalLengths() {
+        return batch.criticalPathLengths(scenarios);
+    }
+}
@@ -0,0 +1,84 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.Graph;
+
+import java.util.SplittableRandom;
+
+/** Deterministic synthetic task graphs for the benchmarks. */
+public final class SyntheticGraphs {
+
+    public enum Shape {
+        /** About 4 random out-edges per vertex. */
+        SPARSE,
+        /** About 64 random out-edges per vertex. */
+        DENSE,
+        /** One long dependency chain 0 -> 1 -> ... -> n-1. */
+        CHAIN,
+        /** Disjoint 3-vertex cycles linked forward, so almost every SCC is tiny. */
+        TINY_SCCS,
+        /** A ring through every vertex plus random chords: one SCC containing everything. */
+        GIANT_SCC
+    }
+
+    private SyntheticGraphs() {
+    }
+
+    /**
+     * Builds a graph of the given shape. With {@code acyclic} every edge is oriented from the
+     * lower to the higher vertex id, which keeps the shape's density but makes it a DAG, so the
+     * same shapes can drive the topological sort and DAG path benchmarks.
+     */
+    public static Graph generate(Shape shape, int n, boolean acyclic, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Graph graph = new Graph(n, true, "edge");
+        switch (shape) {
+            case SPARSE -> randomEdges(graph, random, n, 4L * n, acyclic);
+            case DENSE -> randomEdges(graph, random, n, 64L * n, acyclic);
+            case CHAIN -> {
+                for (int v = 0; v + 1 < n; v++) {
+                    graph.addEdge(v, v + 1, weight(random));
+                }
+            }
+            case TINY_SCCS -> {
+                for (int v = 0; v + 2 < n; v += 3) {
+                    add(graph, v, v + 1, weight(random), acyclic);
+                    add(graph, v + 1, v + 2, weight(random), acyclic);
+                    add(graph, v + 2, v, weight(random), acyclic);
+                    if (v + 3 < n) {
+                        graph.addEdge(v + 2, v + 3, weight(random));
+                    }
+                }
+            }
+            case GIANT_SCC -> {
+                for (int v = 0; v < n; v++) {
+                    add(graph, v, (v + 1) % n, weight(random), acyclic);
+                }
+                randomEdges(graph, random, n, 2L * n, acyclic);
+            }
+        }
+        return graph;
+    }
+
+    public static CSRGraph generateCSR(Shape shape, int n, boolean acyclic, long seed) {
+        return generate(shape, n, acyclic, seed).toCSR();
+    }
+
+    private static void randomEdges(Graph graph, SplittableRandom random, int n, long m, boolean acyclic) {
+        for (long i = 0; i < m; i++) {
+            add(graph, random.nextInt(n), random.nextInt(n), weight(random), acyclic);
+        }
+    }
+
+    private static void add(Graph graph, int u, int v, int w, boolean acyclic) {
+        if (!acyclic) {
+            graph.addEdge(u, v, w);
+        } else if (u != v) {
+            graph.addEdge(Math.min(u, v), Math.max(u, v), w);
+        }
+    }
+
+    private static int weight(SplittableRandom random) {
+        return 1 + random.nextInt(10);
+    }
+}
@@ -0,0 +1,43 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.NoOpMetrics;
+import com.smartcity.graph.topo.DFSTopologicalSort;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Kahn versus DFS topological sort on acyclic versions of the synthetic shapes. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TopoSortBenchmark {
+
+    @Param({"SPARSE", "DENSE", "CHAIN", "TINY_SCCS", "GIANT_SCC"})
+    public SyntheticGraphs.Shape shape;
+
+    @Param({"10000", "100000"})
+    public int n;
+
+    private Graph dag;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dag = SyntheticGraphs.generate(shape, n, true, 42);
+    }
+
+    @Benchmark
+    public List<Integer> kahnSort() {
+        return new KahnTopologicalSort(dag, NoOpMetrics.INSTANCE).sort();
+    }
+
+    @Benchmark
+    public List<Integer> dfsSort() {
+        return new DFSTopologicalSort(dag, NoOpMetrics.INSTANCE).sort();
+    }
+}
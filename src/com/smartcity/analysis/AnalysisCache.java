@@ -0,0 +1,269 @@
+package com.smartcity.analysis;
+
+import com.smartcity.common.ConcurrentMetrics;
+import com.smartcity.common.GraphView;
+import com.smartcity.common.Metrics;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.topo.ComponentTopologicalSort;
+import path.testing.DAGShortestPath;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Memoizes SCCs, condensation, topological order and per-source paths per graph content.
+ *
+ * Entries are keyed by {@link GraphFingerprint}. The fingerprint of a graph instance is itself
+ * remembered against {@link GraphView#getVersion()}, so asking again for an unchanged graph
+ * costs a map lookup instead of a hash over all edges. Entries are evicted least recently used
+ * first once either the entry count or the estimated heap footprint exceeds its bound. With a
+ * disk directory configured, SCCs are also written there and read back on a later miss, which
+ * survives eviction and restarts.
+ *
+ * Thread-safe. Results are shared between callers and must not be modified.
+ */
+public final class AnalysisCache {
+    private static final int DISK_MAGIC = 0x53434343; // "SCCC"
+    private static final int DISK_VERSION = 1;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Path diskDirectory;
+    private final Metrics metrics;
+
+    private final LinkedHashMap<GraphFingerprint, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<GraphView, Stamp> stamps = new WeakHashMap<>();
+    private long totalBytes;
+
+    private final Metrics.Counter hits;
+    private final Metrics.Counter misses;
+    private final Metrics.Counter evictions;
+    private final Metrics.Counter fingerprints;
+    private final Metrics.Counter diskHits;
+    private final Metrics.Counter diskWrites;
+    private final Metrics.Counter diskErrors;
+
+    private AnalysisCache(Builder builder) {
+        this.maxEntries = builder.maxEntries;
+        this.maxBytes = builder.maxBytes;
+        this.diskDirectory = builder.diskDirectory;
+        this.metrics = builder.metrics;
+        hits = metrics.counter("cache_hits");
+        misses = metrics.counter("cache_misses");
+        evictions = metrics.counter("cache_evictions");
+        fingerprints = metrics.counter("fingerprints_computed");
+        diskHits = metrics.counter("disk_hits");
+        diskWrites = metrics.counter("disk_writes");
+        diskErrors = metrics.counter("disk_errors");
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Cached analysis of {@code graph}; parts are computed on first request and then shared. */
+    public CachedAnalysis analyze(GraphView graph) {
+        // Read before fingerprinting, so a change made while hashing is caught too
+        long version = graph.getVersion();
+        GraphFingerprint fingerprint = fingerprint(graph);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(fingerprint);
+            if (entry == null) {
+                misses.increment();
+                entry = new Entry(fingerprint);
+                entries.put(fingerprint, entry);
+                evict();
+            } else {
+                hits.increment();
+            }
+        }
+        return new CachedAnalysis(this, entry, graph, version);
+    }
+
+    /** Content fingerprint, recomputed only when the graph's version has moved. */
+    public GraphFingerprint fingerprint(GraphView graph) {
+        long version = graph.getVersion();
+        synchronized (stamps) {
+            Stamp stamp = stamps.get(graph);
+            if (stamp != null && stamp.version == version) {
+                return stamp.fingerprint;
+            }
+        }
+        GraphFingerprint fingerprint = GraphFingerprint.of(graph);
+        fingerprints.increment();
+        synchronized (stamps) {
+            stamps.put(graph, new Stamp(version, fingerprint));
+        }
+        return fingerprint;
+    }
+
+    public synchronized void invalidate(GraphView graph) {
+        Entry entry = entries.remove(fingerprint(graph));
+        if (entry != null) {
+            totalBytes -= entry.bytes;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Estimated heap held by cached results, in bytes. */
+    public synchronized long estimatedBytes() {
+        return totalBytes;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /** Called by an entry after it memoized another result. */
+    synchronized void resized(Entry entry, long delta) {
+        entry.bytes += delta;
+        if (entries.get(entry.fingerprint) == entry) {
+            totalBytes += delta;
+            evict();
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries || (totalBytes > maxBytes && entries.size() > 1)) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.bytes;
+            evictions.increment();
+        }
+    }
+
+    List<List<Integer>> readSCCs(GraphFingerprint fingerprint) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        Path file = diskDirectory.resolve(fingerprint.toHex() + ".sccs");
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != DISK_MAGIC || in.readInt() != DISK_VERSION
+                    || in.readLong() != fingerprint.high() || in.readLong() != fingerprint.low()
+                    || in.readInt() != fingerprint.n()) {
+                diskErrors.increment();
+                return null;
+            }
+            int count = in.readInt();
+            List<List<Integer>> sccs = new ArrayList<>(count);
+            for (int c = 0; c < count; c++) {
+                int size = in.readInt();
+                List<Integer> scc = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    scc.add(in.readInt());
+                }
+                sccs.add(scc);
+            }
+            diskHits.increment();
+            return sccs;
+        } catch (IOException e) {
+            diskErrors.increment();
+            return null;
+        }
+    }
+
+    void writeSCCs(GraphFingerprint fingerprint, List<List<Integer>> sccs) {
+        if (diskDirectory == null) {
+            return;
+        }
+        Path file = diskDirectory.resolve(fingerprint.toHex() + ".sccs");
+        try {
+            Files.createDirectories(diskDirectory);
+            Path temp = Files.createTempFile(diskDirectory, fingerprint.toHex(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(DISK_MAGIC);
+                out.writeInt(DISK_VERSION);
+                out.writeLong(fingerprint.high());
+                out.writeLong(fingerprint.low());
+                out.writeInt(fingerprint.n());
+                out.writeInt(sccs.size());
+                for (List<Integer> scc : sccs) {
+                    out.writeInt(scc.size());
+                    for (int v : scc) {
+                        out.writeInt(v);
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            diskWrites.increment();
+        } catch (IOException e) {
+            diskErrors.increment();
+        }
+    }
+
+    private record Stamp(long version, GraphFingerprint fingerprint) {
+    }
+
+    /** Memoized results for one fingerprint; fields are guarded by the entry's own lock. */
+    static final class Entry {
+        final GraphFingerprint fingerprint;
+        long bytes;  // guarded by the cache
+        List<List<Integer>> sccs;
+        CondensationGraph condensation;
+        ComponentTopologicalSort.TopoResult topoOrder;
+        DAGShortestPath paths;
+        final Map<Long, DAGShortestPath.PathResult> pathResults = new HashMap<>();
+
+        Entry(GraphFingerprint fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    public static final class Builder {
+        private int maxEntries = 16;
+        private long maxBytes = Runtime.getRuntime().maxMemory() / 4;
+        private Path diskDirectory;
+        private Metrics metrics = new ConcurrentMetrics();
+
+        private Builder() {
+        }
+
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("maxEntries must be >= 1");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /** Upper bound on the estimated heap held by cached results. */
+        public Builder maxBytes(long maxBytes) {
+            if (maxBytes < 0) {
+                throw new IllegalArgumentException("maxBytes must be >= 0");
+            }
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /** Enables the on-disk tier for SCCs in {@code directory}. */
+        public Builder diskDirectory(Path directory) {
+            this.diskDirectory = directory;
+            return this;
+        }
+
+        public Builder metrics(Metrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public AnalysisCache build() {
+            return new AnalysisCache(this);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.smartcity.analysis;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.graph.scc.TarjanSCC;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisCacheTest {
+
+    private static Graph sample() {
+        Graph graph = new Graph(5, true, "edge");
+        graph.addEdge(0, 1, 2);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(2, 1, 1);
+        graph.addEdge(2, 3, 4);
+        graph.addEdge(3, 4, 5);
+        return graph;
+    }
+
+    @Test
+    public void testRepeatedAnalysisIsServedFromCache() {
+        Metrics metrics = new MetricsImpl();
+        AnalysisCache cache = AnalysisCache.builder().metrics(metrics).build();
+        Graph graph = sample();
+
+        CachedAnalysis first = cache.analyze(graph);
+        List<List<Integer>> sccs = first.sccs();
+        CachedAnalysis second = cache.analyze(graph);
+
+        assertSame(sccs, second.sccs());
+        assertSame(first.condensation(), second.condensation());
+        assertSame(first.shortestPaths(0), second.shortestPaths(0));
+        assertEquals(new TarjanSCC(graph).findSCCs(), sccs);
+        assertEquals(1, metrics.getCounter("cache_hits"));
+        assertEquals(1, metrics.getCounter("cache_misses"));
+        assertEquals(1, metrics.getCounter("fingerprints_computed"));
+    }
+
+    @Test
+    public void testEqualContentSharesEntryAndMutationMisses() {
+        Metrics metrics = new MetricsImpl();
+        AnalysisCache cache = AnalysisCache.builder().metrics(metrics).build();
+        Graph graph = sample();
+        List<List<Integer>> sccs = cache.analyze(graph).sccs();
+
+        assertSame(sccs, cache.analyze(sample()).sccs());
+
+        graph.addEdge(4, 0, 1);
+        CachedAnalysis changed = cache.analyze(graph);
+        assertNotEquals(sccs.size(), changed.sccs().size());
+        assertEquals(2, metrics.getCounter("cache_misses"));
+        assertEquals(3, metrics.getCounter("fingerprints_computed"));
+    }
+
+    @Test
+    public void testMutationBeforeFirstComputeIsRejected(@TempDir Path directory) {
+        AnalysisCache cache = AnalysisCache.builder().diskDirectory(directory).build();
+        Graph graph = sample();
+        CachedAnalysis stale = cache.analyze(graph);
+
+        graph.addEdge(4, 0, 1);
+
+        assertThrows(IllegalStateException.class, stale::sccs);
+        assertThrows(IllegalStateException.class, stale::condensation);
+        // Nothing was stored under the old fingerprint, in memory or on disk
+        assertEquals(0, directory.toFile().list().length);
+        List<List<Integer>> sccs = cache.analyze(sample()).sccs();
+        assertEquals(new TarjanSCC(sample()).findSCCs(), sccs);
+        assertEquals(1, cache.analyze(graph).sccs().size());
+    }
+
+    @Test
+    public void testPathsMatchDirectComputation() {
+        AnalysisCache cache = AnalysisCache.builder().build();
+        CachedAnalysis analysis = cache.analyze(sample());
+
+        assertEquals(11, analysis.shortestPaths(0).getDistance(analysis.condensation().getComponent(4)));
+        assertEquals(List.of(0, 1, 2, 3, 4), analysis.topoOrder().taskOrder().stream().sorted().toList());
+    }
+
+    @Test
+    public void testEntryAndMemoryBoundsEvictLeastRecentlyUsed() {
+        Metrics metrics = new MetricsImpl();
+        AnalysisCache cache = AnalysisCache.builder().maxEntries(2).metrics(metrics).build();
+        Graph a = sample();
+        Graph b = new Graph(3, true, "edge");
+        Graph c = new Graph(4, true, "edge");
+
+        cache.analyze(a).sccs();
+        cache.analyze(b).sccs();
+        cache.analyze(a);
+        cache.analyze(c).sccs();
+
+        assertEquals(2, cache.size());
+        assertEquals(1, metrics.getCounter("cache_evictions"));
+        cache.analyze(a);
+        assertEquals(2, metrics.getCounter("cache_hits"));
+
+        AnalysisCache tiny = AnalysisCache.builder().maxBytes(1).build();
+        tiny.analyze(a).condensation();
+        tiny.analyze(b).condensation();
+        assertEquals(1, tiny.size());
+    }
+
+    /** Fills an entry from a graph that is unreachable once this returns. */
+    private static WeakReference<Graph> analyzeAndDrop(AnalysisCache cache) {
+        Graph graph = sample();
+        CachedAnalysis analysis = cache.analyze(graph);
+        analysis.topoOrder();
+        analysis.longestPaths(0);
+        return new WeakReference<>(graph);
+    }
+
+    @Test
+    public void testEntriesDoNotPinInputGraph() throws InterruptedException {
+        AnalysisCache cache = AnalysisCache.builder().build();
+        WeakReference<Graph> graph = analyzeAndDrop(cache);
+        for (int i = 0; i < 50 && graph.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(graph.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testPathEntriesChargeTheirPlan() {
+        AnalysisCache cache = AnalysisCache.builder().build();
+        CachedAnalysis analysis = cache.analyze(sample());
+        analysis.condensation();
+        long before = cache.estimatedBytes();
+        int k = analysis.condensation().getCondensationCSR().getN();
+        long edges = analysis.condensation().getCondensationCSR().getEdgeCount();
+
+        analysis.shortestPaths(0);
+        long first = cache.estimatedBytes() - before;
+        analysis.longestPaths(0);
+        long second = cache.estimatedBytes() - before - first;
+
+        assertTrue(first >= 12L * k + 8L * edges + 8L * k, "first query charged " + first);
+        assertTrue(second >= 8L * k && second < first, "second query charged " + second);
+    }
+
+    @Test
+    public void testDiskTierSurvivesEviction(@TempDir Path directory) {
+        Metrics metrics = new MetricsImpl();
+        Graph graph = sample();
+        List<List<Integer>> expected = AnalysisCache.builder().diskDirectory(directory).build()
+                .analyze(graph).sccs();
+
+        AnalysisCache fresh = AnalysisCache.builder().diskDirectory(directory).metrics(metrics).build();
+        assertEquals(expected, fresh.analyze(graph).sccs());
+        assertEquals(1, metrics.getCounter("disk_hits"));
+    }
+}
@@ -0,0 +1,215 @@
+package com.smartcity.analysis;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.GraphView;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.Tracer;
+import com.smartcity.common.Workspace;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.CondensationGraph.WeightMerge;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.ComponentTopologicalSort;
+import path.testing.DAGShortestPath;
+
+import java.util.*;
+
+/**
+ * SCC, condensation, topological order and DAG paths as one fused pass.
+ *
+ * Each stage delegates to the standalone algorithm: {@link TarjanSCC#findComponents(int[])},
+ * {@link CondensationGraph#fromComponentMap} and {@link DAGShortestPath}. The fusion is in how
+ * their results are threaded through. Tarjan's components are renumbered from the end so that
+ * component {@code 0} comes first in topological order and every condensation edge goes from a
+ * lower id to a higher one. The path stages then relax the condensation by ascending id, with no
+ * separate topological sort. Stages that were not requested are skipped.
+ *
+ * Scratch space comes from the calling thread's {@link Workspace} inside those algorithms; only
+ * the arrays that end up in the {@link AnalysisReport} are allocated per run. A pipeline keeps no
+ * state between runs, so threads may share one if its metrics are thread-safe.
+ */
+public final class AnalysisPipeline {
+
+    public enum Stage { SCC, CONDENSATION, TOPOLOGICAL_ORDER, SHORTEST_PATHS, LONGEST_PATHS }
+
+    private final EnumSet<Stage> stages;
+    private final WeightMerge merge;
+    private final Metrics metrics;
+    private final Tracer tracer;
+
+    private AnalysisPipeline(Builder builder) {
+        EnumSet<Stage> stages = EnumSet.copyOf(builder.stages);
+        stages.add(Stage.SCC);
+        if (stages.contains(Stage.SHORTEST_PATHS) || stages.contains(Stage.LONGEST_PATHS)) {
+            stages.add(Stage.CONDENSATION);
+        }
+        this.stages = stages;
+        this.merge = builder.merge;
+        this.metrics = builder.metrics;
+        this.tracer = builder.tracer;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** The requested stages plus the ones they depend on. */
+    public Set<Stage> getStages() {
+        return Collections.unmodifiableSet(stages);
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /** @throws IllegalArgumentException if a path stage was requested; those need a source */
+    public AnalysisReport run(GraphView graph) {
+        return run(graph, -1);
+    }
+
+    /** @throws IllegalArgumentException if {@code source} is neither -1 nor a vertex of {@code graph} */
+    public AnalysisReport run(GraphView graph, int source) {
+        int n = graph.getN();
+        if (source < -1 || source >= n) {
+            throw new IllegalArgumentException("Source vertex " + source + " out of range [0, " + n + ")");
+        }
+        boolean paths = stages.contains(Stage.SHORTEST_PATHS) || stages.contains(Stage.LONGEST_PATHS);
+        if (paths && source < 0) {
+            throw new IllegalArgumentException("Path stages need a source vertex, got " + source);
+        }
+
+        Tracer tracer = this.tracer != null ? this.tracer : Tracer.global();
+        try (Tracer.Span pipeline = tracer.span("pipeline").graph(graph).counters(metrics)) {
+            metrics.startTimer();
+            long start = System.nanoTime();
+            int[] componentOf = new int[n];
+            int k;
+            try (Tracer.Span span = tracer.span("scc").graph(graph)) {
+                Metrics tarjan = new MetricsImpl();
+                k = new TarjanSCC(graph, tarjan).findComponents(componentOf);
+                metrics.addCounter("edges_explored", tarjan.getCounter("edges_explored"));
+            }
+            int[] memberOffsets = new int[k + 1];
+            int[] members = new int[n];
+            group(componentOf, k, memberOffsets, members);
+            long sccDone = System.nanoTime();
+            metrics.addCounter("scc_micros", (sccDone - start) / 1000);
+            metrics.addCounter("components", k);
+
+            CSRGraph condensation = null;
+            if (stages.contains(Stage.CONDENSATION)) {
+                try (Tracer.Span span = tracer.span("condensation").graph(graph)) {
+                    condensation = CondensationGraph.fromComponentMap(graph, componentOf, k, merge,
+                            Runtime.getRuntime().availableProcessors()).getCondensationCSR();
+                }
+                long condensed = System.nanoTime();
+                metrics.addCounter("condensation_micros", (condensed - sccDone) / 1000);
+                metrics.addCounter("condensation_edges", condensation.getEdgeCount());
+            }
+
+            ComponentTopologicalSort.TopoResult topoOrder = null;
+            if (stages.contains(Stage.TOPOLOGICAL_ORDER)) {
+                try (Tracer.Span span = tracer.span("topological_order").size(k, 0)) {
+                    List<Integer> componentOrder = new ArrayList<>(k);
+                    for (int c = 0; c < k; c++) {
+                        componentOrder.add(c);
+                    }
+                    List<Integer> taskOrder = new ArrayList<>(n);
+                    for (int v : members) {
+                        taskOrder.add(v);
+                    }
+                    topoOrder = new ComponentTopologicalSort.TopoResult(componentOrder, taskOrder);
+                }
+            }
+
+            int sourceComponent = source >= 0 ? componentOf[source] : -1;
+            DAGShortestPath.PathResult shortest = null;
+            DAGShortestPath.PathResult longest = null;
+            if (paths) {
+                long pathsStart = System.nanoTime();
+                // Components are numbered topologically, so ascending ids are the relaxation order
+                int[] order = new int[k];
+                for (int c = 0; c < k; c++) {
+                    order[c] = c;
+                }
+                Metrics relax = new MetricsImpl();
+                DAGShortestPath dag = DAGShortestPath.inOrder(condensation, order, relax);
+                if (stages.contains(Stage.SHORTEST_PATHS)) {
+                    try (Tracer.Span span = tracer.span("shortest_paths").graph(condensation)) {
+                        shortest = dag.shortestPaths(sourceComponent, new int[k], new int[k]);
+                    }
+                }
+                if (stages.contains(Stage.LONGEST_PATHS)) {
+                    try (Tracer.Span span = tracer.span("longest_paths").graph(condensation)) {
+                        longest = dag.longestPaths(sourceComponent, new int[k], new int[k]);
+                    }
+                }
+                metrics.addCounter("relaxations", relax.getCounter("Relaxations"));
+                metrics.addCounter("paths_micros", (System.nanoTime() - pathsStart) / 1000);
+            }
+            metrics.stopTimer();
+
+            return new AnalysisReport(n, graph.getEdgeCount(), componentOf, memberOffsets, members,
+                    condensation, topoOrder, sourceComponent, shortest, longest);
+        }
+    }
+
+    /**
+     * Renumbers Tarjan's components from the end, since it emits sink components first, so that
+     * component {@code 0} comes first in topological order; then buckets the vertices by component.
+     */
+    private static void group(int[] componentOf, int k, int[] memberOffsets, int[] members) {
+        for (int v = 0; v < componentOf.length; v++) {
+            componentOf[v] = k - 1 - componentOf[v];
+            memberOffsets[componentOf[v] + 1]++;
+        }
+        for (int c = 0; c < k; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        for (int v = 0; v < componentOf.length; v++) {
+            members[memberOffsets[componentOf[v]]++] = v;
+        }
+        // Each offset now holds the next block's start; shift them back by one block
+        for (int c = k; c > 0; c--) {
+            memberOffsets[c] = memberOffsets[c - 1];
+        }
+        memberOffsets[0] = 0;
+    }
+
+    public static final class Builder {
+        private EnumSet<Stage> stages = EnumSet.allOf(Stage.class);
+        private WeightMerge merge = WeightMerge.FIRST;
+        private Metrics metrics = new MetricsImpl();
+        private Tracer tracer;
+
+        private Builder() {
+        }
+
+        /** Stages to run; the stages they depend on are added automatically. Defaults to all. */
+        public Builder stages(Stage first, Stage... rest) {
+            this.stages = EnumSet.of(first, rest);
+            return this;
+        }
+
+        /** How parallel edges between two components are combined, as in {@code CondensationGraph}. */
+        public Builder weightMerge(WeightMerge merge) {
+            this.merge = merge;
+            return this;
+        }
+
+        public Builder metrics(Metrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /** Tracer for the pipeline and per-stage spans; defaults to {@link Tracer#global()} at run time. */
+        public Builder tracer(Tracer tracer) {
+            this.tracer = tracer;
+            return this;
+        }
+
+        public AnalysisPipeline build() {
+            return new AnalysisPipeline(this);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.smartcity.analysis;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.fixture.RandomGraphs;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.TarjanSCC;
+import org.junit.jupiter.api.Test;
+import path.testing.DAGShortestPath;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisPipelineTest {
+
+    @Test
+    public void testComponentsAreNumberedTopologically() {
+        // 0 -> {1, 2} cycle -> 3, plus independent 4
+        Graph graph = new Graph(5, true, "edge");
+        graph.addEdge(0, 1, 2);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(2, 1, 1);
+        graph.addEdge(2, 3, 4);
+
+        AnalysisReport report = AnalysisPipeline.builder().build().run(graph, 0);
+
+        assertEquals(4, report.componentCount());
+        assertEquals(report.getComponent(1), report.getComponent(2));
+        assertTrue(report.getComponent(0) < report.getComponent(1));
+        assertTrue(report.getComponent(1) < report.getComponent(3));
+        assertEquals(List.of(0, 1, 2, 3), report.topoOrder().componentOrder());
+        assertEquals(5, report.topoOrder().taskOrder().size());
+        assertEquals(6, report.shortestPaths().getDistance(report.getComponent(3)));
+        assertEquals(Integer.MAX_VALUE, report.shortestPaths().getDistance(report.getComponent(4)));
+    }
+
+    @Test
+    public void testMatchesStagedAnalysis() {
+        AnalysisPipeline pipeline = AnalysisPipeline.builder()
+                .weightMerge(CondensationGraph.WeightMerge.MIN).build();
+        for (long seed = 0; seed < 20; seed++) {
+            Graph graph = RandomGraphs.builder(300, 450).weights(1, 10).build(seed);
+            AnalysisReport report = pipeline.run(graph, 0);
+
+            List<List<Integer>> sccs = new TarjanSCC(graph).findSCCs();
+            CondensationGraph condensation = new CondensationGraph(graph, sccs, CondensationGraph.WeightMerge.MIN);
+            CSRGraph dag = condensation.getCondensationCSR();
+            assertEquals(sccs.size(), report.componentCount());
+
+            int[] toStaged = new int[report.componentCount()];
+            for (int c = 0; c < report.componentCount(); c++) {
+                toStaged[c] = condensation.getComponent(report.getMembers(c).get(0));
+                assertEquals(new HashSet<>(sccs.get(toStaged[c])), new HashSet<>(report.getMembers(c)));
+            }
+
+            CSRGraph fused = report.condensation();
+            assertEquals(dag.getEdgeCount(), fused.getEdgeCount());
+            Map<Long, Integer> expectedEdges = new HashMap<>();
+            for (int u = 0; u < dag.getN(); u++) {
+                for (int e = dag.edgeStart(u); e < dag.edgeEnd(u); e++) {
+                    expectedEdges.put((long) u << 32 | dag.edgeTarget(e), dag.edgeWeight(e));
+                }
+            }
+            for (int u = 0; u < fused.getN(); u++) {
+                for (int e = fused.edgeStart(u); e < fused.edgeEnd(u); e++) {
+                    assertTrue(u < fused.edgeTarget(e));
+                    long key = (long) toStaged[u] << 32 | toStaged[fused.edgeTarget(e)];
+                    assertEquals(expectedEdges.get(key), fused.edgeWeight(e));
+                }
+            }
+
+            DAGShortestPath paths = new DAGShortestPath(dag);
+            DAGShortestPath.PathResult shortest = paths.shortestPaths(condensation.getComponent(0));
+            DAGShortestPath.PathResult longest = paths.longestPaths(condensation.getComponent(0));
+            for (int c = 0; c < report.componentCount(); c++) {
+                assertEquals(shortest.getDistance(toStaged[c]), report.shortestPaths().getDistance(c));
+                assertEquals(longest.getDistance(toStaged[c]), report.longestPaths().getDistance(c));
+            }
+        }
+    }
+
+    @Test
+    public void testSkipsStagesNotRequested() {
+        Metrics metrics = new MetricsImpl();
+        AnalysisPipeline pipeline = AnalysisPipeline.builder()
+                .stages(AnalysisPipeline.Stage.SCC).metrics(metrics).build();
+
+        AnalysisReport report = pipeline.run(RandomGraphs.builder(100, 200).weights(1, 10).build(3));
+
+        assertNull(report.condensation());
+        assertNull(report.topoOrder());
+        assertNull(report.shortestPaths());
+        assertEquals(0, metrics.getCounter("relaxations"));
+        assertEquals(200, metrics.getCounter("edges_explored"));
+    }
+
+    @Test
+    public void testPathStagesPullInCondensation() {
+        AnalysisPipeline pipeline = AnalysisPipeline.builder()
+                .stages(AnalysisPipeline.Stage.LONGEST_PATHS).build();
+
+        assertTrue(pipeline.getStages().contains(AnalysisPipeline.Stage.CONDENSATION));
+        Graph graph = RandomGraphs.builder(10, 20).weights(1, 10).build(1);
+        assertThrows(IllegalArgumentException.class, () -> pipeline.run(graph));
+        AnalysisReport report = pipeline.run(graph, 0);
+        assertNotNull(report.longestPaths());
+        assertNull(report.shortestPaths());
+    }
+
+    @Test
+    public void testRejectsSourceOutOfRange() {
+        AnalysisPipeline pipeline = AnalysisPipeline.builder().stages(AnalysisPipeline.Stage.SCC).build();
+        Graph graph = RandomGraphs.builder(10, 20).weights(1, 10).build(2);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> pipeline.run(graph, 10));
+        assertTrue(error.getMessage().contains("10"));
+        assertThrows(IllegalArgumentException.class, () -> pipeline.run(graph, -2));
+        assertEquals(-1, pipeline.run(graph).sourceComponent());
+    }
+
+    @Test
+    public void testScratchIsReusedAcrossSizes() {
+        AnalysisPipeline pipeline = AnalysisPipeline.builder().build();
+        Graph large = RandomGraphs.builder(500, 1000).weights(1, 10).build(7);
+        Graph small = RandomGraphs.builder(50, 60).weights(1, 10).build(8);
+
+        AnalysisReport first = pipeline.run(large, 0);
+        pipeline.run(small, 0);
+        AnalysisReport again = pipeline.run(large, 0);
+
+        assertArrayEquals(first.componentOf(), again.componentOf());
+        assertArrayEquals(first.members(), again.members());
+        assertEquals(new TarjanSCC(small).findSCCs().size(), pipeline.run(small, 0).componentCount());
+    }
+}
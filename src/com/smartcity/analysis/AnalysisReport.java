@@ -0,0 +1,62 @@
+package com.smartcity.analysis;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.graph.topo.ComponentTopologicalSort;
+import path.testing.DAGShortestPath;
+
+import java.util.*;
+
+/**
+ * Result of one {@link AnalysisPipeline} run. Components are numbered in topological order, and
+ * the members of component {@code c} are {@code members[memberOffsets[c] .. memberOffsets[c + 1])},
+ * so {@code members} on its own is a valid task order. Parts whose stage did not run are null;
+ * path results are over the condensation, from {@code sourceComponent}.
+ */
+public record AnalysisReport(int vertexCount, long edgeCount, int[] componentOf, int[] memberOffsets, int[] members,
+                             CSRGraph condensation, ComponentTopologicalSort.TopoResult topoOrder,
+                             int sourceComponent, DAGShortestPath.PathResult shortestPaths,
+                             DAGShortestPath.PathResult longestPaths) {
+
+    public int componentCount() {
+        return memberOffsets.length - 1;
+    }
+
+    public int getComponent(int vertex) {
+        return componentOf[vertex];
+    }
+
+    public List<Integer> getMembers(int component) {
+        List<Integer> result = new ArrayList<>(memberOffsets[component + 1] - memberOffsets[component]);
+        for (int i = memberOffsets[component]; i < memberOffsets[component + 1]; i++) {
+            result.add(members[i]);
+        }
+        return result;
+    }
+
+    /** Components as lists, built on each call; index {@code c} holds component {@code c}. */
+    public List<List<Integer>> sccs() {
+        List<List<Integer>> sccs = new ArrayList<>(componentCount());
+        for (int c = 0; c < componentCount(); c++) {
+            sccs.add(getMembers(c));
+        }
+        return sccs;
+    }
+
+    public void printCondensation() {
+        System.out.println("\n=== Condensation Graph ===");
+        System.out.println("Original vertices: " + vertexCount);
+        System.out.println("Components: " + componentCount());
+        System.out.println("Original edges: " + edgeCount);
+        if (condensation == null) {
+            return;
+        }
+        System.out.println("Condensation edges: " + condensation.getEdgeCount());
+        System.out.println("\nCondensation edges:");
+        for (int u = 0; u < condensation.getN(); u++) {
+            for (int e = condensation.edgeStart(u); e < condensation.edgeEnd(u); e++) {
+                System.out.println("  " + u + " -> " + condensation.edgeTarget(e)
+                        + " (weight: " + condensation.edgeWeight(e) + ")");
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.smartcity.analysis;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.GraphView;
+import com.smartcity.common.NoOpMetrics;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.ComponentTopologicalSort;
+import path.testing.DAGShortestPath;
+
+import java.util.List;
+
+/**
+ * One graph's view of an {@link AnalysisCache} entry. Each part is computed at most once per
+ * fingerprint, from whichever graph instance asks first, and shared afterwards.
+ *
+ * The entry is keyed by the graph's content at {@code analyze()} time, so a part is only computed
+ * while the graph is still at that version; if it has moved, the accessor throws
+ * {@link IllegalStateException} instead of storing results for other content under the old
+ * fingerprint. Parts computed earlier stay available.
+ */
+public final class CachedAnalysis {
+    private final AnalysisCache cache;
+    private final AnalysisCache.Entry entry;
+    private final GraphView graph;
+    private final long version;
+
+    CachedAnalysis(AnalysisCache cache, AnalysisCache.Entry entry, GraphView graph, long version) {
+        this.cache = cache;
+        this.entry = entry;
+        this.graph = graph;
+        this.version = version;
+    }
+
+    public GraphFingerprint fingerprint() {
+        return entry.fingerprint;
+    }
+
+    /** Tarjan SCCs, in Tarjan's emission order. */
+    public List<List<Integer>> sccs() {
+        synchronized (entry) {
+            if (entry.sccs == null) {
+                checkUnchanged();
+                List<List<Integer>> sccs = cache.readSCCs(entry.fingerprint);
+                if (sccs == null) {
+                    sccs = new TarjanSCC(graph, NoOpMetrics.INSTANCE).findSCCs();
+                    checkUnchanged();
+                    cache.writeSCCs(entry.fingerprint, sccs);
+                }
+                entry.sccs = sccs;
+                cache.resized(entry, 20L * graph.getN() + 56L * sccs.size());
+            }
+            return entry.sccs;
+        }
+    }
+
+    public CondensationGraph condensation() {
+        List<List<Integer>> sccs = sccs();
+        synchronized (entry) {
+            if (entry.condensation == null) {
+                checkUnchanged();
+                // The condensation drops the input graph once built; it keeps the component map and CSR
+                CondensationGraph condensation = new CondensationGraph(graph, sccs);
+                checkUnchanged();
+                entry.condensation = condensation;
+                long k = sccs.size();
+                long edges = condensation.getCondensationCSR().getEdgeCount();
+                cache.resized(entry, 4L * condensation.getComponentMap().length + 4L * k + 8L * edges + 96);
+            }
+            return entry.condensation;
+        }
+    }
+
+    /** Component order of the condensation and the task order derived from it. */
+    public ComponentTopologicalSort.TopoResult topoOrder() {
+        CondensationGraph condensation = condensation();
+        synchronized (entry) {
+            if (entry.topoOrder == null) {
+                entry.topoOrder = ComponentTopologicalSort.sortWithTasks(
+                        condensation.getCondensationCSR(), entry.sccs);
+                cache.resized(entry, 20L * (condensation.getComponentMap().length + entry.sccs.size()));
+            }
+            return entry.topoOrder;
+        }
+    }
+
+    /** Shortest paths over the condensation from the component of {@code source}. */
+    public DAGShortestPath.PathResult shortestPaths(int source) {
+        return paths(source, false);
+    }
+
+    /** Longest paths over the condensation from the component of {@code source}. */
+    public DAGShortestPath.PathResult longestPaths(int source) {
+        return paths(source, true);
+    }
+
+    private DAGShortestPath.PathResult paths(int source, boolean longest) {
+        CondensationGraph condensation = condensation();
+        long key = (long) source << 1 | (longest ? 1 : 0);
+        synchronized (entry) {
+            DAGShortestPath.PathResult result = entry.pathResults.get(key);
+            if (result == null) {
+                if (entry.paths == null) {
+                    CSRGraph dag = condensation.getCondensationCSR();
+                    entry.paths = new DAGShortestPath(dag, NoOpMetrics.INSTANCE);
+                    // Its plan: order, position and offsets per component, targets and weights per edge
+                    cache.resized(entry, 12L * dag.getN() + 8L * dag.getEdgeCount() + 96);
+                }
+                int component = condensation.getComponent(source);
+                result = longest ? entry.paths.longestPaths(component) : entry.paths.shortestPaths(component);
+                entry.pathResults.put(key, result);
+                cache.resized(entry, 8L * result.distances().length + 96);
+            }
+            return result;
+        }
+    }
+
+    /** The graph must still hold the content this entry's fingerprint was taken from. */
+    private void checkUnchanged() {
+        if (graph.getVersion() != version) {
+            throw new IllegalStateException("Graph changed since analyze(); analyze it again");
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.smartcity.analysis;
+
+import com.smartcity.common.GraphView;
+
+/**
+ * 128-bit content hash of a graph: size, direction, weight model and every adjacency entry
+ * in adjacency order. Order matters on purpose, since it decides the order in which SCCs and
+ * tie-broken paths come out, so two graphs with the same fingerprint give identical analyses.
+ */
+public record GraphFingerprint(long high, long low, int n, long edgeCount) {
+
+    private static final long SEED_HIGH = 0x9E3779B97F4A7C15L;
+    private static final long SEED_LOW = 0xC2B2AE3D27D4EB4FL;
+
+    public static GraphFingerprint of(GraphView graph) {
+        int n = graph.getN();
+        long high = mix(SEED_HIGH ^ n);
+        long low = mix(SEED_LOW ^ n);
+        long header = (graph.isDirected() ? 1L : 0L) << 32
+                | (graph.getWeightModel() == null ? 0 : graph.getWeightModel().hashCode()) & 0xFFFFFFFFL;
+        high = mix(high ^ header);
+        low = mix(low + header);
+
+        GraphView.EdgeCursor cursor = graph.cursor();
+        for (int u = 0; u < n; u++) {
+            int degree = graph.outDegree(u);
+            long vertex = (long) u << 32 | degree & 0xFFFFFFFFL;
+            high = mix(high ^ vertex);
+            low = mix(low + vertex);
+            for (cursor.reset(u); cursor.hasNext(); ) {
+                long edge = (long) cursor.next() << 32 | cursor.weight() & 0xFFFFFFFFL;
+                high = mix(high ^ edge);
+                low = mix(low + edge);
+            }
+        }
+        return new GraphFingerprint(high, low, n, graph.getEdgeCount());
+    }
+
+    // splitmix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** File-name safe form, used by the on-disk tier. */
+    public String toHex() {
+        return String.format("%016x%016x", high, low);
+    }
+}
@@ -0,0 +1,179 @@
+package com.smartcity.common;
+
+import java.util.Arrays;
+
+/**
+ * Frozen compressed sparse row form of a graph. The outgoing edges of {@code u}
+ * occupy {@code [offsets[u], offsets[u + 1])} in {@code targets} and {@code weights},
+ * in the same order they were added.
+ */
+public final class CSRGraph implements GraphView {
+    private final int n;
+    private final boolean directed;
+    private final String weightModel;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+
+    public CSRGraph(int n, boolean directed, String weightModel,
+                    int[] offsets, int[] targets, int[] weights) {
+        if (offsets.length != n + 1) {
+            throw new IllegalArgumentException("offsets must have n + 1 entries");
+        }
+        if (targets.length != weights.length || targets.length != offsets[n]) {
+            throw new IllegalArgumentException("targets/weights do not match offsets[n]");
+        }
+        this.n = n;
+        this.directed = directed;
+        this.weightModel = weightModel;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    public static CSRGraph fromGraph(GraphView graph) {
+        if (graph instanceof CSRGraph csr) {
+            return csr;
+        }
+        int n = graph.getN();
+        int[] offsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] = offsets[u] + graph.outDegree(u);
+        }
+        int m = offsets[n];
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        for (int u = 0; u < n; u++) {
+            graph.copyEdges(u, targets, weights, offsets[u]);
+        }
+        return new CSRGraph(n, graph.isDirected(), graph.getWeightModel(), offsets, targets, weights);
+    }
+
+    public static Builder builder(int n, boolean directed, String weightModel) {
+        return new Builder(n, directed, weightModel);
+    }
+
+    /** First edge index of {@code u}. */
+    public int edgeStart(int u) {
+        return offsets[u];
+    }
+
+    /** One past the last edge index of {@code u}. */
+    public int edgeEnd(int u) {
+        return offsets[u + 1];
+    }
+
+    public int edgeTarget(int e) {
+        return targets[e];
+    }
+
+    public int edgeWeight(int e) {
+        return weights[e];
+    }
+
+    @Override
+    public int outDegree(int u) {
+        return offsets[u + 1] - offsets[u];
+    }
+
+    @Override
+    public int target(int u, int i) {
+        return targets[offsets[u] + i];
+    }
+
+    @Override
+    public int weight(int u, int i) {
+        return weights[offsets[u] + i];
+    }
+
+    @Override
+    public int getN() {
+        return n;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return directed;
+    }
+
+    @Override
+    public String getWeightModel() {
+        return weightModel;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return targets.length;
+    }
+
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    public int[] getTargets() {
+        return targets;
+    }
+
+    public int[] getWeights() {
+        return weights;
+    }
+
+    public CSRGraph reverse() {
+        int m = targets.length;
+        int[] revOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            revOffsets[targets[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            revOffsets[v + 1] += revOffsets[v];
+        }
+        int[] cursor = Arrays.copyOf(revOffsets, n);
+        int[] revTargets = new int[m];
+        int[] revWeights = new int[m];
+        for (int u = 0; u < n; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int slot = cursor[targets[e]]++;
+                revTargets[slot] = u;
+                revWeights[slot] = weights[e];
+            }
+        }
+        return new CSRGraph(n, directed, weightModel, revOffsets, revTargets, revWeights);
+    }
+
+    @Override
+    public String toString() {
+        return "CSRGraph{n=" + n + ", m=" + targets.length
+                + ", directed=" + directed + ", weightModel=" + weightModel + "}";
+    }
+
+    /** Collects edges into primitive buffers and sorts them into CSR order on {@link #build()}. */
+    public static final class Builder {
+        private final int n;
+        private final boolean directed;
+        private final String weightModel;
+        private final EdgeBuffer edges = new EdgeBuffer();
+
+        private Builder(int n, boolean directed, String weightModel) {
+            this.n = n;
+            this.directed = directed;
+            this.weightModel = weightModel;
+        }
+
+        public Builder addEdge(int u, int v, int weight) {
+            if (u < 0 || u >= n || v < 0 || v >= n) {
+                throw new IndexOutOfBoundsException("Edge " + u + "->" + v + " outside [0, " + n + ")");
+            }
+            edges.add(u, v, weight);
+            return this;
+        }
+
+        /** Number of edges added so far (before mirroring undirected edges). */
+        public int size() {
+            return edges.size();
+        }
+
+        public CSRGraph build() {
+            return edges.toCSR(n, directed, weightModel);
+        }
+    }
+}
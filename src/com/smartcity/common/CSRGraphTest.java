@@ -0,0 +1,99 @@
+package com.smartcity.common;
+
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.DFSTopologicalSort;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+import org.junit.jupiter.api.Test;
+import path.testing.DAGShortestPath;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CSRGraphTest {
+
+    @Test
+    public void testFromGraphPreservesAdjacencyOrder() {
+        Graph graph = new Graph(4, true, "edge");
+        graph.addEdge(0, 2, 7);
+        graph.addEdge(0, 1, 3);
+        graph.addEdge(2, 3, 1);
+
+        CSRGraph csr = CSRGraph.fromGraph(graph);
+
+        assertEquals(4, csr.getN());
+        assertEquals(3, csr.getEdgeCount());
+        assertArrayEquals(new int[]{0, 2, 2, 3, 3}, csr.getOffsets());
+        assertArrayEquals(new int[]{2, 1, 3}, csr.getTargets());
+        assertArrayEquals(new int[]{7, 3, 1}, csr.getWeights());
+    }
+
+    @Test
+    public void testBuilderMatchesGraph() {
+        Graph graph = new Graph(5, true, "edge");
+        CSRGraph.Builder builder = CSRGraph.builder(5, true, "edge");
+        int[][] edges = {{3, 4, 2}, {0, 1, 1}, {3, 1, 5}, {1, 2, 4}, {0, 3, 6}};
+        for (int[] e : edges) {
+            graph.addEdge(e[0], e[1], e[2]);
+            builder.addEdge(e[0], e[1], e[2]);
+        }
+
+        CSRGraph built = builder.build();
+        CSRGraph converted = graph.toCSR();
+
+        assertArrayEquals(converted.getOffsets(), built.getOffsets());
+        assertArrayEquals(converted.getTargets(), built.getTargets());
+        assertArrayEquals(converted.getWeights(), built.getWeights());
+    }
+
+    @Test
+    public void testUndirectedBuilderStoresBothDirections() {
+        CSRGraph csr = CSRGraph.builder(2, false, "edge").addEdge(0, 1, 9).build();
+
+        assertEquals(2, csr.getEdgeCount());
+        assertEquals(1, csr.target(0, 0));
+        assertEquals(0, csr.target(1, 0));
+    }
+
+    @Test
+    public void testReverse() {
+        CSRGraph csr = CSRGraph.builder(3, true, "edge")
+                .addEdge(0, 1, 1)
+                .addEdge(0, 2, 2)
+                .addEdge(1, 2, 3)
+                .build();
+
+        CSRGraph rev = csr.reverse();
+
+        assertEquals(0, rev.outDegree(0));
+        assertEquals(0, rev.target(1, 0));
+        assertEquals(2, rev.outDegree(2));
+        assertEquals(2, rev.weight(2, 0));
+        assertEquals(3, rev.weight(2, 1));
+    }
+
+    @Test
+    public void testAlgorithmsRunOnCSR() {
+        Graph graph = new Graph(6, true, "edge");
+        graph.addEdge(0, 1, 3);
+        graph.addEdge(1, 2, 2);
+        graph.addEdge(2, 0, 4);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 4, 5);
+        graph.addEdge(4, 5, 1);
+        CSRGraph csr = graph.toCSR();
+
+        assertEquals(new TarjanSCC(graph).findSCCs(), new TarjanSCC(csr).findSCCs());
+
+        CSRGraph dag = CSRGraph.builder(4, true, "edge")
+                .addEdge(0, 1, 5)
+                .addEdge(0, 2, 2)
+                .addEdge(1, 3, 1)
+                .addEdge(2, 3, 4)
+                .build();
+        assertEquals(4, new KahnTopologicalSort(dag).sort().size());
+        assertEquals(4, new DFSTopologicalSort(dag).sort().size());
+        assertEquals(6, new DAGShortestPath(dag).shortestPaths(0).getDistance(3));
+        assertEquals(6, new DAGShortestPath(dag).longestPaths(0).getDistance(3));
+    }
+}
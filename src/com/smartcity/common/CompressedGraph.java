@@ -0,0 +1,331 @@
+package com.smartcity.common;
+
+import java.util.Arrays;
+
+/**
+ * Immutable graph with delta-encoded, varint-packed adjacency.
+ *
+ * Each adjacency list is sorted by target, weights travelling with their edges. The first target
+ * of {@code u} is stored as the zigzag-encoded difference from {@code u}, every later one as the
+ * gap from its predecessor, each in LEB128 varint form, so the IDs of neighbouring tasks cost
+ * one byte. Weights are stored apart, as offsets from the smallest weight in the narrowest of
+ * 0, 1, 2 or 4 bytes that holds them all. Per vertex only the first edge index and first byte
+ * are kept, which gives O(1) degrees.
+ *
+ * Edges are best read in order through {@link #cursor()} or {@link #cursors(Workspace.Scope)},
+ * which every algorithm uses; {@link #target(int, int)} has to decode the list from its start.
+ */
+public final class CompressedGraph implements GraphView {
+    private final int n;
+    private final boolean directed;
+    private final String weightModel;
+    private final int[] edgeOffsets;
+    private final int[] byteOffsets;
+    private final byte[] data;
+    private final int weightBase;
+    private final int weightBytes;
+    private final byte[] weights8;
+    private final short[] weights16;
+    private final int[] weights32;
+
+    private CompressedGraph(int n, boolean directed, String weightModel, int[] edgeOffsets, int[] byteOffsets,
+                            byte[] data, int weightBase, int weightBytes, byte[] weights8, short[] weights16,
+                            int[] weights32) {
+        this.n = n;
+        this.directed = directed;
+        this.weightModel = weightModel;
+        this.edgeOffsets = edgeOffsets;
+        this.byteOffsets = byteOffsets;
+        this.data = data;
+        this.weightBase = weightBase;
+        this.weightBytes = weightBytes;
+        this.weights8 = weights8;
+        this.weights16 = weights16;
+        this.weights32 = weights32;
+    }
+
+    public static CompressedGraph fromGraph(GraphView graph) {
+        int n = graph.getN();
+        int[] edgeOffsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            edgeOffsets[u + 1] = Math.addExact(edgeOffsets[u], graph.outDegree(u));
+        }
+        int m = edgeOffsets[n];
+        int[] sortedWeights = new int[m];
+        int[] byteOffsets = new int[n + 1];
+        byte[] data = new byte[Math.max(16, m + m / 2)];
+        int size = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long[] keys = new long[0];
+        int[] listTargets = new int[0];
+        int[] listWeights = new int[0];
+
+        for (int u = 0; u < n; u++) {
+            byteOffsets[u] = size;
+            int degree = graph.outDegree(u);
+            if (keys.length < degree) {
+                keys = new long[Math.max(degree, 2 * keys.length)];
+                listTargets = new int[keys.length];
+                listWeights = new int[keys.length];
+            }
+            graph.copyEdges(u, listTargets, listWeights, 0);
+            // Target in the high half, position in the low half: sorting keeps parallel edges stable
+            for (int i = 0; i < degree; i++) {
+                keys[i] = (long) listTargets[i] << 32 | i;
+            }
+            Arrays.sort(keys, 0, degree);
+            int previous = u;
+            for (int i = 0; i < degree; i++) {
+                int target = (int) (keys[i] >>> 32);
+                int weight = listWeights[(int) keys[i]];
+                sortedWeights[edgeOffsets[u] + i] = weight;
+                min = Math.min(min, weight);
+                max = Math.max(max, weight);
+                int delta = target - previous;
+                int code = i == 0 ? (delta << 1) ^ (delta >> 31) : delta;
+                if (size + 5 > data.length) {
+                    data = Arrays.copyOf(data, (int) Math.min(Integer.MAX_VALUE - 8, 2L * data.length));
+                    if (size + 5 > data.length) {
+                        throw new IllegalArgumentException("Compressed adjacency exceeds 2 GiB");
+                    }
+                }
+                while ((code & ~0x7F) != 0) {
+                    data[size++] = (byte) ((code & 0x7F) | 0x80);
+                    code >>>= 7;
+                }
+                data[size++] = (byte) code;
+                previous = target;
+            }
+        }
+        byteOffsets[n] = size;
+
+        int base = m == 0 ? 0 : (int) min;
+        long range = m == 0 ? 0 : max - min;
+        int width = range == 0 ? 0 : range < 1 << 8 ? 1 : range < 1 << 16 ? 2 : 4;
+        byte[] weights8 = width == 1 ? new byte[m] : null;
+        short[] weights16 = width == 2 ? new short[m] : null;
+        int[] weights32 = width == 4 ? sortedWeights : null;
+        for (int e = 0; e < m && width < 4; e++) {
+            int offset = sortedWeights[e] - base;
+            if (width == 1) {
+                weights8[e] = (byte) offset;
+            } else if (width == 2) {
+                weights16[e] = (short) offset;
+            }
+        }
+        return new CompressedGraph(n, graph.isDirected(), graph.getWeightModel(), edgeOffsets, byteOffsets,
+                Arrays.copyOf(data, size), base, width, weights8, weights16, weights32);
+    }
+
+    /** Weight of the edge with global index {@code e}, in sorted adjacency order. */
+    public int edgeWeight(int e) {
+        return switch (weightBytes) {
+            case 0 -> weightBase;
+            case 1 -> weightBase + (weights8[e] & 0xFF);
+            case 2 -> weightBase + (weights16[e] & 0xFFFF);
+            default -> weights32[e];
+        };
+    }
+
+    /** First edge index of {@code u}. */
+    public int edgeStart(int u) {
+        return edgeOffsets[u];
+    }
+
+    public int edgeEnd(int u) {
+        return edgeOffsets[u + 1];
+    }
+
+    @Override
+    public int outDegree(int u) {
+        return edgeOffsets[u + 1] - edgeOffsets[u];
+    }
+
+    /** Decodes {@code u}'s list up to entry {@code i}; use a cursor to walk a whole list. */
+    @Override
+    public int target(int u, int i) {
+        if (i < 0 || i >= outDegree(u)) {
+            throw new IndexOutOfBoundsException("Vertex " + u + " has no out-edge " + i);
+        }
+        Cursor cursor = cursor().reset(u);
+        int target = cursor.next();
+        for (int k = 0; k < i; k++) {
+            target = cursor.next();
+        }
+        return target;
+    }
+
+    @Override
+    public int weight(int u, int i) {
+        return edgeWeight(edgeOffsets[u] + i);
+    }
+
+    @Override
+    public int copyEdges(int u, int[] targets, int[] weights, int offset) {
+        Cursor cursor = cursor().reset(u);
+        int i = offset;
+        while (cursor.hasNext()) {
+            targets[i] = cursor.next();
+            weights[i++] = cursor.weight();
+        }
+        return i - offset;
+    }
+
+    @Override
+    public int getN() {
+        return n;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return directed;
+    }
+
+    @Override
+    public String getWeightModel() {
+        return weightModel;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return edgeOffsets[n];
+    }
+
+    /** Bytes per weight: 0 when all weights are equal, else 1, 2 or 4. */
+    public int getWeightBytes() {
+        return weightBytes;
+    }
+
+    public long sizeBytes() {
+        long m = edgeOffsets[n];
+        return data.length + 8L * (n + 1) + m * weightBytes;
+    }
+
+    public CompressionReport report() {
+        return new CompressionReport(n, edgeOffsets[n], sizeBytes(), 4L * (n + 1) + 8L * edgeOffsets[n],
+                CompressionReport.objectGraphBytes(n, edgeOffsets[n]));
+    }
+
+    @Override
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    @Override
+    public Cursors cursors(Workspace.Scope scope) {
+        return new Cursors(scope.ints(n), scope.ints(n), scope.ints(n));
+    }
+
+    /** One resumable cursor per vertex, for traversals such as DFS that interleave lists. */
+    public Cursors cursors() {
+        return new Cursors(new int[n], new int[n], new int[n]);
+    }
+
+    /** Decodes the varint at {@code position}; the value goes in the low half, the next position in the high half. */
+    private long readVarint(int position) {
+        int b = data[position++];
+        if (b >= 0) {
+            return (long) position << 32 | b;
+        }
+        int value = b & 0x7F;
+        for (int shift = 7; ; shift += 7) {
+            b = data[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return (long) position << 32 | (value & 0xFFFFFFFFL);
+            }
+        }
+    }
+
+    /** Sequential reader over one adjacency list at a time; not thread-safe. */
+    public final class Cursor implements EdgeCursor {
+        private int vertex;
+        private int first;
+        private int edge;
+        private int end;
+        private int position;
+        private int previous;
+
+        private Cursor() {
+        }
+
+        @Override
+        public Cursor reset(int u) {
+            vertex = u;
+            first = edge = edgeOffsets[u];
+            end = edgeOffsets[u + 1];
+            position = byteOffsets[u];
+            previous = u;
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return edge < end;
+        }
+
+        @Override
+        public int next() {
+            long read = readVarint(position);
+            position = (int) (read >>> 32);
+            int code = (int) read;
+            previous = edge++ == first ? vertex + ((code >>> 1) ^ -(code & 1)) : previous + code;
+            return previous;
+        }
+
+        @Override
+        public int weight() {
+            return edgeWeight(edge - 1);
+        }
+    }
+
+    /**
+     * Cursors for every vertex at once, 12 bytes each: a DFS can leave a list half-read, visit
+     * other vertices and resume it later without decoding from the start.
+     */
+    public final class Cursors implements EdgeCursors {
+        private final int[] edge;
+        private final int[] position;
+        private final int[] previous;
+
+        private Cursors(int[] edge, int[] position, int[] previous) {
+            this.edge = edge;
+            this.position = position;
+            this.previous = previous;
+        }
+
+        @Override
+        public void reset(int u) {
+            edge[u] = edgeOffsets[u];
+            position[u] = byteOffsets[u];
+            previous[u] = u;
+        }
+
+        @Override
+        public boolean hasNext(int u) {
+            return edge[u] < edgeOffsets[u + 1];
+        }
+
+        @Override
+        public int next(int u) {
+            long read = readVarint(position[u]);
+            position[u] = (int) (read >>> 32);
+            int code = (int) read;
+            int target = edge[u]++ == edgeOffsets[u] ? u + ((code >>> 1) ^ -(code & 1)) : previous[u] + code;
+            previous[u] = target;
+            return target;
+        }
+
+        @Override
+        public int weight(int u) {
+            return edgeWeight(edge[u] - 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedGraph{n=" + n + ", m=" + edgeOffsets[n] + ", bytes=" + sizeBytes()
+                + ", directed=" + directed + ", weightModel=" + weightModel + "}";
+    }
+}
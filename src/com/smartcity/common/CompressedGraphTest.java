@@ -0,0 +1,210 @@
+package com.smartcity.common;
+
+import com.smartcity.analysis.AnalysisPipeline;
+import com.smartcity.analysis.GraphFingerprint;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.DFSTopologicalSort;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import path.testing.DAGShortestPath;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressedGraphTest {
+
+    /** Edges mostly between nearby IDs, as in task graphs, with some long jumps. */
+    private static Graph localGraph(int n, int m, boolean acyclic, int maxWeight, long seed) {
+        Random random = new Random(seed);
+        Graph graph = new Graph(n, true, "edge");
+        for (int i = 0; i < m; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(10) == 0 ? random.nextInt(n) : Math.floorMod(u + random.nextInt(41) - 20, n);
+            if (u != v) {
+                int weight = random.nextInt(maxWeight) - maxWeight / 4;
+                graph.addEdge(acyclic ? Math.min(u, v) : u, acyclic ? Math.max(u, v) : v, weight);
+            }
+        }
+        return graph;
+    }
+
+    private static List<Long> sortedEdges(GraphView graph, int u) {
+        List<Long> edges = new ArrayList<>();
+        for (int i = 0; i < graph.outDegree(u); i++) {
+            edges.add((long) graph.target(u, i) << 32 | (graph.weight(u, i) & 0xFFFFFFFFL));
+        }
+        Collections.sort(edges);
+        return edges;
+    }
+
+    @Test
+    public void testRoundTripForEveryWeightWidth() {
+        int[] maxWeights = {1, 100, 50_000, 1 << 30};
+        int[] widths = {0, 1, 2, 4};
+        for (int k = 0; k < maxWeights.length; k++) {
+            Graph graph = localGraph(500, 3000, false, maxWeights[k], k);
+            graph.addEdge(7, 7, maxWeights[k] / 2);
+            graph.addEdge(7, 7, maxWeights[k] / 2);
+            CompressedGraph compressed = CompressedGraph.fromGraph(graph);
+            assertEquals(widths[k], compressed.getWeightBytes());
+            assertEquals(graph.getEdgeCount(), compressed.getEdgeCount());
+
+            CompressedGraph.Cursor cursor = compressed.cursor();
+            int[] targets = new int[graph.getN()];
+            int[] weights = new int[graph.getN()];
+            for (int u = 0; u < graph.getN(); u++) {
+                assertEquals(sortedEdges(graph, u), sortedEdges(compressed, u));
+                int degree = compressed.copyEdges(u, targets, weights, 0);
+                cursor.reset(u);
+                for (int i = 0; i < degree; i++) {
+                    assertTrue(cursor.hasNext());
+                    assertEquals(targets[i], cursor.next());
+                    assertEquals(weights[i], cursor.weight());
+                    assertTrue(i == 0 || targets[i - 1] <= targets[i]);
+                }
+                assertFalse(cursor.hasNext());
+            }
+        }
+    }
+
+    @Test
+    public void testAlgorithmsMatchUncompressed() {
+        Graph graph = localGraph(2000, 6000, false, 10, 1);
+        CompressedGraph compressed = CompressedGraph.fromGraph(graph);
+        int[] expected = new int[graph.getN()];
+        int[] actual = new int[graph.getN()];
+        int count = new TarjanSCC(graph).findComponents(expected);
+        assertEquals(count, new TarjanSCC(compressed).findComponents(actual));
+        // Same partition, although sorted lists may number components differently
+        Map<Integer, Integer> mapping = new HashMap<>();
+        for (int v = 0; v < graph.getN(); v++) {
+            mapping.putIfAbsent(expected[v], actual[v]);
+            assertEquals(mapping.get(expected[v]), actual[v]);
+        }
+
+        Graph dag = localGraph(2000, 6000, true, 10, 2);
+        DAGShortestPath plain = new DAGShortestPath(dag);
+        DAGShortestPath packed = new DAGShortestPath(CompressedGraph.fromGraph(dag));
+        for (int source : new int[]{0, 500, 1999}) {
+            assertArrayEquals(plain.shortestPaths(source).distances(), packed.shortestPaths(source).distances());
+            assertArrayEquals(plain.longestPaths(source).distances(), packed.longestPaths(source).distances());
+        }
+    }
+
+    /** Delegates to a compressed graph and counts edge reads, split into indexed and sequential ones. */
+    private static final class CountingView implements GraphView {
+        final CompressedGraph graph;
+        long indexedReads;
+        long sequentialReads;
+
+        CountingView(CompressedGraph graph) {
+            this.graph = graph;
+        }
+
+        @Override public int getN() { return graph.getN(); }
+        @Override public boolean isDirected() { return graph.isDirected(); }
+        @Override public String getWeightModel() { return graph.getWeightModel(); }
+        @Override public long getEdgeCount() { return graph.getEdgeCount(); }
+        @Override public int outDegree(int u) { return graph.outDegree(u); }
+
+        @Override
+        public int target(int u, int i) {
+            indexedReads++;
+            return graph.target(u, i);
+        }
+
+        @Override
+        public int weight(int u, int i) {
+            return graph.weight(u, i);
+        }
+
+        @Override
+        public int copyEdges(int u, int[] targets, int[] weights, int offset) {
+            int degree = graph.copyEdges(u, targets, weights, offset);
+            sequentialReads += degree;
+            return degree;
+        }
+
+        @Override
+        public EdgeCursor cursor() {
+            EdgeCursor cursor = graph.cursor();
+            return new EdgeCursor() {
+                @Override public EdgeCursor reset(int u) { cursor.reset(u); return this; }
+                @Override public boolean hasNext() { return cursor.hasNext(); }
+                @Override public int weight() { return cursor.weight(); }
+
+                @Override
+                public int next() {
+                    sequentialReads++;
+                    return cursor.next();
+                }
+            };
+        }
+
+        @Override
+        public EdgeCursors cursors(Workspace.Scope scope) {
+            EdgeCursors cursors = graph.cursors(scope);
+            return new EdgeCursors() {
+                @Override public void reset(int u) { cursors.reset(u); }
+                @Override public boolean hasNext(int u) { return cursors.hasNext(u); }
+                @Override public int weight(int u) { return cursors.weight(u); }
+
+                @Override
+                public int next(int u) {
+                    sequentialReads++;
+                    return cursors.next(u);
+                }
+            };
+        }
+    }
+
+    @Test
+    public void testHighDegreeHubIsReadSequentially(@TempDir Path dir) throws IOException {
+        // One hub feeding every other vertex; decoding its list per edge would be quadratic
+        int n = 20_001;
+        Graph dag = new Graph(n, true, "edge");
+        for (int v = 1; v < n; v++) {
+            dag.addEdge(0, v, v % 7);
+        }
+        for (int v = 1; v + 1 < n; v += 2) {
+            dag.addEdge(v, v + 1, 1);
+        }
+        CountingView view = new CountingView(CompressedGraph.fromGraph(dag));
+        long m = dag.getEdgeCount();
+        int[] plainOrder = new int[n];
+        int[] packedOrder = new int[n];
+        List<List<Integer>> sccs = new TarjanSCC(view).findSCCs();
+
+        assertTrue(new DFSTopologicalSort(view).sortInto(packedOrder));
+        assertTrue(new KahnTopologicalSort(view).sortInto(packedOrder));
+        assertArrayEquals(new DAGShortestPath(dag).longestPaths(0).distances(),
+                new DAGShortestPath(view).longestPaths(0).distances());
+        new CondensationGraph(view, sccs, CondensationGraph.WeightMerge.FIRST, 1);
+        assertEquals(GraphFingerprint.of(CompressedGraph.fromGraph(dag)), GraphFingerprint.of(view));
+        AnalysisPipeline.builder().build().run(view, 0);
+        GraphSnapshot.write(view, 0, dir.resolve("hub.bin"));
+        OffHeapGraph.copyOf(view).close();
+        CompressedGraph.fromGraph(view);
+        new DynamicGraph(view);
+
+        // Each consumer makes a constant number of passes over every list; per-edge decoding would be ~m^2 / 2
+        assertEquals(0, view.indexedReads);
+        assertTrue(view.sequentialReads <= 20 * m, view.sequentialReads + " reads for " + m + " edges");
+        assertTrue(new KahnTopologicalSort(dag).sortInto(plainOrder));
+        assertArrayEquals(plainOrder, packedOrder);
+    }
+
+    @Test
+    public void testReportShowsSavings() {
+        Graph graph = localGraph(10_000, 40_000, true, 100, 3);
+        CompressionReport report = CompressedGraph.fromGraph(graph).report();
+        assertEquals(graph.getEdgeCount(), report.edgeCount());
+        assertTrue(report.bytesPerEdge() < report.csrBytesPerEdge() / 2, report.toString());
+        assertTrue(report.csrBytesPerEdge() < report.objectGraphBytesPerEdge(), report.toString());
+    }
+}
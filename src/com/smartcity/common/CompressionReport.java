@@ -0,0 +1,37 @@
+package com.smartcity.common;
+
+/**
+ * Memory footprint of a {@link CompressedGraph} next to the same graph as a {@link CSRGraph} and
+ * as a {@link Graph}. The {@code Graph} figure is an estimate for a 64-bit JVM with compressed
+ * references: a 24-byte {@code Edge} record plus a 4-byte list slot per edge, and an
+ * {@code ArrayList} with its backing array (40 bytes) plus a 4-byte slot per vertex.
+ */
+public record CompressionReport(int vertexCount, long edgeCount, long compressedBytes, long csrBytes,
+                                long objectGraphBytes) {
+
+    static long objectGraphBytes(int n, long m) {
+        return 28L * m + 44L * n;
+    }
+
+    public double bytesPerEdge() {
+        return perEdge(compressedBytes);
+    }
+
+    public double csrBytesPerEdge() {
+        return perEdge(csrBytes);
+    }
+
+    public double objectGraphBytesPerEdge() {
+        return perEdge(objectGraphBytes);
+    }
+
+    private double perEdge(long bytes) {
+        return edgeCount == 0 ? 0 : (double) bytes / edgeCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d vertices, %d edges: compressed %.2f B/edge, CSR %.2f B/edge, Graph ~%.2f B/edge",
+                vertexCount, edgeCount, bytesPerEdge(), csrBytesPerEdge(), objectGraphBytesPerEdge());
+    }
+}
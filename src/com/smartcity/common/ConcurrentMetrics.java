@@ -0,0 +1,100 @@
+package com.smartcity.common;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe metrics for parallel algorithms. Each counter is a {@link LongAdder}, so
+ * concurrent increments from many workers do not contend on one cache line.
+ */
+public class ConcurrentMetrics implements Metrics {
+    private final ConcurrentHashMap<String, Adder> counters = new ConcurrentHashMap<>();
+    private volatile long startTime;
+    private volatile long endTime;
+
+    private static final class Adder extends LongAdder implements Counter {
+        @Override
+        public long get() {
+            return sum();
+        }
+    }
+
+    @Override
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, k -> new Adder());
+    }
+
+    @Override
+    public void incrementCounter(String name) {
+        counter(name).increment();
+    }
+
+    @Override
+    public void addCounter(String name, long value) {
+        counter(name).add(value);
+    }
+
+    /** Concurrent sets are serialized; an {@code add} racing with a set may be lost. */
+    @Override
+    public void setCounter(String name, long value) {
+        Adder adder = counters.computeIfAbsent(name, k -> new Adder());
+        synchronized (adder) {
+            adder.reset();
+            adder.add(value);
+        }
+    }
+
+    @Override
+    public long getCounter(String name) {
+        Adder adder = counters.get(name);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    @Override
+    public void startTimer() {
+        startTime = System.nanoTime();
+    }
+
+    @Override
+    public void stopTimer() {
+        endTime = System.nanoTime();
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        return endTime - startTime;
+    }
+
+    @Override
+    public double getElapsedMillis() {
+        return getElapsedNanos() / 1_000_000.0;
+    }
+
+    @Override
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        startTime = 0;
+        endTime = 0;
+    }
+
+    @Override
+    public Map<String, Long> getAllCounters() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((name, adder) -> snapshot.put(name, adder.sum()));
+        return snapshot;
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== Metrics Summary ===\n");
+        sb.append(String.format("Time: %.3f ms\n", getElapsedMillis()));
+        sb.append("Counters:\n");
+        for (Map.Entry<String, Long> entry : getAllCounters().entrySet()) {
+            sb.append(String.format("  %s: %d\n", entry.getKey(), entry.getValue()));
+        }
+        return sb.toString();
+    }
+}
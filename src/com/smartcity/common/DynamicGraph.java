@@ -0,0 +1,171 @@
+package com.smartcity.common;
+
+import java.util.Arrays;
+
+/**
+ * Directed graph with cheap edge insertion and deletion, backed by growable primitive
+ * adjacency arrays in both directions. Used by the structures that are maintained under
+ * streaming edits instead of being rebuilt.
+ */
+public final class DynamicGraph implements GraphView {
+    private final int n;
+    private final String weightModel;
+    private long edgeCount;
+    private long version;
+
+    private final int[][] out;
+    private final int[][] outW;
+    private final int[] outLen;
+    private final int[][] in;   // sources only
+    private final int[] inLen;
+
+    public DynamicGraph(int n, String weightModel) {
+        this.n = n;
+        this.weightModel = weightModel;
+        out = new int[n][];
+        outW = new int[n][];
+        outLen = new int[n];
+        in = new int[n][];
+        inLen = new int[n];
+        for (int v = 0; v < n; v++) {
+            out[v] = new int[2];
+            outW[v] = new int[2];
+            in[v] = new int[2];
+        }
+    }
+
+    /** Copies the edges of {@code graph}; every adjacency entry becomes one directed edge. */
+    public DynamicGraph(GraphView graph) {
+        this.n = graph.getN();
+        this.weightModel = graph.getWeightModel();
+        out = new int[n][];
+        outW = new int[n][];
+        outLen = new int[n];
+        in = new int[n][];
+        inLen = new int[n];
+        for (int u = 0; u < n; u++) {
+            int degree = graph.outDegree(u);
+            out[u] = new int[Math.max(2, degree)];
+            outW[u] = new int[out[u].length];
+            graph.copyEdges(u, out[u], outW[u], 0);
+            for (int i = 0; i < degree; i++) {
+                inLen[out[u][i]]++;
+            }
+            outLen[u] = degree;
+            edgeCount += degree;
+        }
+        for (int v = 0; v < n; v++) {
+            in[v] = new int[Math.max(2, inLen[v])];
+            inLen[v] = 0;
+        }
+        for (int u = 0; u < n; u++) {
+            for (int i = 0; i < outLen[u]; i++) {
+                int v = out[u][i];
+                in[v][inLen[v]++] = u;
+            }
+        }
+    }
+
+    public void addEdge(int u, int v, int weight) {
+        checkVertex(u);
+        checkVertex(v);
+        if (outLen[u] == out[u].length) {
+            out[u] = Arrays.copyOf(out[u], out[u].length * 2);
+            outW[u] = Arrays.copyOf(outW[u], out[u].length);
+        }
+        out[u][outLen[u]] = v;
+        outW[u][outLen[u]++] = weight;
+        if (inLen[v] == in[v].length) {
+            in[v] = Arrays.copyOf(in[v], in[v].length * 2);
+        }
+        in[v][inLen[v]++] = u;
+        edgeCount++;
+        version++;
+    }
+
+    /**
+     * Removes one occurrence of {@code u -> v}; adjacency order is not preserved.
+     *
+     * @return false if the graph had no such edge
+     */
+    public boolean removeEdge(int u, int v) {
+        checkVertex(u);
+        checkVertex(v);
+        int i = indexOf(out[u], outLen[u], v);
+        if (i < 0) {
+            return false;
+        }
+        int last = --outLen[u];
+        out[u][i] = out[u][last];
+        outW[u][i] = outW[u][last];
+        int j = indexOf(in[v], inLen[v], u);
+        in[v][j] = in[v][--inLen[v]];
+        edgeCount--;
+        version++;
+        return true;
+    }
+
+    private static int indexOf(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void checkVertex(int v) {
+        if (v < 0 || v >= n) {
+            throw new IndexOutOfBoundsException("vertex " + v + " out of range [0, " + n + ")");
+        }
+    }
+
+    public int inDegree(int v) {
+        return inLen[v];
+    }
+
+    /** The {@code i}-th predecessor of {@code v}. */
+    public int source(int v, int i) {
+        return in[v][i];
+    }
+
+    @Override
+    public int outDegree(int u) {
+        return outLen[u];
+    }
+
+    @Override
+    public int target(int u, int i) {
+        return out[u][i];
+    }
+
+    @Override
+    public int weight(int u, int i) {
+        return outW[u][i];
+    }
+
+    @Override
+    public int getN() {
+        return n;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return true;
+    }
+
+    @Override
+    public String getWeightModel() {
+        return weightModel;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+}
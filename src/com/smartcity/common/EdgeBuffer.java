@@ -0,0 +1,86 @@
+package com.smartcity.common;
+
+import java.util.Arrays;
+
+/** Growable primitive (u, v, w) edge list; 12 bytes per edge, no per-edge objects. */
+final class EdgeBuffer {
+    private int[] src;
+    private int[] dst;
+    private int[] wts;
+    private int size;
+
+    EdgeBuffer() {
+        this(16);
+    }
+
+    EdgeBuffer(int capacity) {
+        capacity = Math.max(capacity, 16);
+        src = new int[capacity];
+        dst = new int[capacity];
+        wts = new int[capacity];
+    }
+
+    void add(int u, int v, int weight) {
+        if (size == src.length) {
+            int cap = src.length + (src.length >> 1);
+            src = Arrays.copyOf(src, cap);
+            dst = Arrays.copyOf(dst, cap);
+            wts = Arrays.copyOf(wts, cap);
+        }
+        src[size] = u;
+        dst[size] = v;
+        wts[size] = weight;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int maxVertex() {
+        int max = -1;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, Math.max(src[i], dst[i]));
+        }
+        return max;
+    }
+
+    /** Replays the buffered edges, in insertion order, into {@code graph}. */
+    void drainInto(Graph graph) {
+        for (int i = 0; i < size; i++) {
+            graph.addEdge(src[i], dst[i], wts[i]);
+        }
+    }
+
+    /**
+     * Counting-sorts the buffer into CSR order. Undirected edges are mirrored, and per-vertex
+     * adjacency order matches what {@link Graph#addEdge} would have produced.
+     */
+    CSRGraph toCSR(int n, boolean directed, String weightModel) {
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[src[i] + 1]++;
+            if (!directed) {
+                offsets[dst[i] + 1]++;
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        int m = offsets[n];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        for (int i = 0; i < size; i++) {
+            int slot = cursor[src[i]]++;
+            targets[slot] = dst[i];
+            weights[slot] = wts[i];
+            if (!directed) {
+                slot = cursor[dst[i]]++;
+                targets[slot] = src[i];
+                weights[slot] = wts[i];
+            }
+        }
+        return new CSRGraph(n, directed, weightModel, offsets, targets, weights);
+    }
+}
@@ -0,0 +1,338 @@
+package com.smartcity.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Writes a {@link GraphSnapshot} from a stream of edges that may not fit in memory.
+ *
+ * Edges are buffered up to the memory budget, radix-sorted by source vertex and spilled to disk
+ * as sorted runs. {@link #build} merges the runs, in several passes if there are more runs than
+ * the budget allows open at once, and writes the offsets, targets and weights of the snapshot
+ * straight to their final file positions. The sort is stable, so each vertex keeps its edges in
+ * insertion order, exactly as {@link GraphSnapshot#write} would lay out the same graph.
+ *
+ * Counters: {@code sort_runs}, {@code merge_passes}, {@code io_bytes_read} and
+ * {@code io_bytes_written}.
+ */
+public final class ExternalGraphBuilder implements AutoCloseable {
+    static final int RECORD_BYTES = 12;        // u, v, w
+    static final int IO_BUFFER_BYTES = 1 << 16;
+    private static final int BYTES_PER_BUFFERED_EDGE = 2 * RECORD_BYTES;  // arrays plus radix scratch
+
+    private final int n;
+    private final boolean directed;
+    private final String weightModel;
+    private final Path tempDirectory;
+    private final Metrics metrics;
+    private final int runCapacity;
+    private final int fanIn;
+
+    private int[] us;
+    private int[] vs;
+    private int[] ws;
+    private int size;
+    private long edgeCount;
+    private final List<Path> runs = new ArrayList<>();
+
+    /**
+     * @param memoryBudget  heap bytes for buffered edges and merge buffers
+     * @param tempDirectory where sorted runs are spilled; they are deleted by {@link #close()}
+     */
+    public ExternalGraphBuilder(int n, boolean directed, String weightModel, long memoryBudget,
+                                Path tempDirectory, Metrics metrics) {
+        if (memoryBudget < 2L * IO_BUFFER_BYTES) {
+            throw new IllegalArgumentException("memoryBudget must be at least " + 2 * IO_BUFFER_BYTES + " bytes");
+        }
+        this.n = n;
+        this.directed = directed;
+        this.weightModel = weightModel;
+        this.tempDirectory = tempDirectory;
+        this.metrics = metrics;
+        this.runCapacity = (int) Math.min(Integer.MAX_VALUE - 8, memoryBudget / BYTES_PER_BUFFERED_EDGE);
+        this.fanIn = (int) Math.min(1024, memoryBudget / IO_BUFFER_BYTES);
+        int initial = Math.min(runCapacity, 1 << 16);
+        us = new int[initial];
+        vs = new int[initial];
+        ws = new int[initial];
+    }
+
+    /** Adds {@code u -> v}; an undirected builder also adds {@code v -> u}, as {@link Graph#addEdge} does. */
+    public void addEdge(int u, int v, int w) throws IOException {
+        if (u < 0 || u >= n || v < 0 || v >= n) {
+            throw new IllegalArgumentException("Edge " + u + " -> " + v + " out of range for n = " + n);
+        }
+        buffer(u, v, w);
+        if (!directed) {
+            buffer(v, u, w);
+        }
+    }
+
+    private void buffer(int u, int v, int w) throws IOException {
+        if (size == us.length) {
+            if (size == runCapacity) {
+                spill();
+            } else {
+                int grown = (int) Math.min(runCapacity, 2L * size);
+                us = Arrays.copyOf(us, grown);
+                vs = Arrays.copyOf(vs, grown);
+                ws = Arrays.copyOf(ws, grown);
+            }
+        }
+        us[size] = u;
+        vs[size] = v;
+        ws[size] = w;
+        size++;
+        edgeCount++;
+    }
+
+    /** Adjacency entries added so far, counting both directions of an undirected edge. */
+    public long getEdgeCount() {
+        return edgeCount;
+    }
+
+    /** Merges everything added so far into a snapshot at {@code snapshot}. */
+    public void build(int source, Path snapshot) throws IOException {
+        if (size > 0) {
+            spill();
+        }
+        us = vs = ws = null;
+        while (runs.size() > fanIn) {
+            List<Path> merged = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += fanIn) {
+                List<Path> group = runs.subList(i, Math.min(runs.size(), i + fanIn));
+                Path run = Files.createTempFile(tempDirectory, "run", ".edges");
+                try (FileChannel out = FileChannel.open(run, StandardOpenOption.WRITE)) {
+                    ByteBuffer buf = newBuffer();
+                    merge(group, (u, v, w) -> {
+                        buf.putInt(u).putInt(v).putInt(w);
+                        if (!buf.hasRemaining()) {
+                            flush(out, buf);
+                        }
+                    });
+                    flush(out, buf);
+                }
+                for (Path old : group) {
+                    Files.deleteIfExists(old);
+                }
+                merged.add(run);
+            }
+            runs.clear();
+            runs.addAll(merged);
+            metrics.incrementCounter("merge_passes");
+        }
+        writeSnapshot(source, snapshot);
+        metrics.incrementCounter("merge_passes");
+    }
+
+    private void writeSnapshot(int source, Path snapshot) throws IOException {
+        byte[] model = weightModel.getBytes(StandardCharsets.UTF_8);
+        long m = edgeCount;
+        try (FileChannel out = FileChannel.open(snapshot, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(GraphSnapshot.FIXED_HEADER_BYTES + model.length + 8)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            GraphSnapshot.putHeader(header, n, directed, m, source, model);
+            long offsetsStart = header.position();
+            header.flip();
+            write(out, header, 0);
+
+            PositionedWriter offsets = new PositionedWriter(out, offsetsStart);
+            PositionedWriter targets = new PositionedWriter(out, offsetsStart + (n + 1L) * Long.BYTES);
+            PositionedWriter weights = new PositionedWriter(out, offsetsStart + (n + 1L) * Long.BYTES
+                    + m * Integer.BYTES);
+            long[] written = new long[1];
+            int[] nextVertex = new int[1];
+            merge(runs, (u, v, w) -> {
+                while (nextVertex[0] <= u) {
+                    offsets.putLong(written[0]);
+                    nextVertex[0]++;
+                }
+                targets.putInt(v);
+                weights.putInt(w);
+                written[0]++;
+            });
+            while (nextVertex[0] <= n) {
+                offsets.putLong(written[0]);
+                nextVertex[0]++;
+            }
+            offsets.flush();
+            targets.flush();
+            weights.flush();
+        }
+    }
+
+    /** Sorts the buffered edges by source vertex (two stable 16-bit counting passes) and writes them out. */
+    private void spill() throws IOException {
+        int[] tu = new int[size];
+        int[] tv = new int[size];
+        int[] tw = new int[size];
+        radixPass(us, vs, ws, tu, tv, tw, 0);
+        radixPass(tu, tv, tw, us, vs, ws, 16);
+
+        Path run = Files.createTempFile(tempDirectory, "run", ".edges");
+        try (FileChannel out = FileChannel.open(run, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = newBuffer();
+            for (int i = 0; i < size; i++) {
+                buf.putInt(us[i]).putInt(vs[i]).putInt(ws[i]);
+                if (!buf.hasRemaining()) {
+                    flush(out, buf);
+                }
+            }
+            flush(out, buf);
+        }
+        runs.add(run);
+        size = 0;
+        metrics.incrementCounter("sort_runs");
+    }
+
+    private void radixPass(int[] su, int[] sv, int[] sw, int[] du, int[] dv, int[] dw, int shift) {
+        int[] start = new int[(1 << 16) + 1];
+        for (int i = 0; i < size; i++) {
+            start[((su[i] >>> shift) & 0xFFFF) + 1]++;
+        }
+        for (int b = 0; b < 1 << 16; b++) {
+            start[b + 1] += start[b];
+        }
+        for (int i = 0; i < size; i++) {
+            int slot = start[(su[i] >>> shift) & 0xFFFF]++;
+            du[slot] = su[i];
+            dv[slot] = sv[i];
+            dw[slot] = sw[i];
+        }
+    }
+
+    private interface EdgeSink {
+        void accept(int u, int v, int w) throws IOException;
+    }
+
+    /** K-way merge by source vertex; ties go to the earlier run, which keeps the sort stable. */
+    private void merge(List<Path> group, EdgeSink sink) throws IOException {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>((a, b) ->
+                a.u != b.u ? Integer.compare(a.u, b.u) : Integer.compare(a.index, b.index));
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (int i = 0; i < group.size(); i++) {
+                RunReader reader = new RunReader(group.get(i), i);
+                readers.add(reader);
+                if (reader.advance()) {
+                    heap.add(reader);
+                }
+            }
+            while (!heap.isEmpty()) {
+                RunReader reader = heap.poll();
+                sink.accept(reader.u, reader.v, reader.w);
+                if (reader.advance()) {
+                    heap.add(reader);
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.channel.close();
+            }
+        }
+    }
+
+    private final class RunReader {
+        final FileChannel channel;
+        final int index;
+        final ByteBuffer buf = newBuffer();
+        int u;
+        int v;
+        int w;
+
+        RunReader(Path path, int index) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.index = index;
+            buf.flip();
+        }
+
+        boolean advance() throws IOException {
+            if (buf.remaining() < RECORD_BYTES) {
+                buf.compact();
+                int read;
+                while (buf.position() < RECORD_BYTES && (read = channel.read(buf)) > 0) {
+                    metrics.addCounter("io_bytes_read", read);
+                }
+                buf.flip();
+                if (buf.remaining() < RECORD_BYTES) {
+                    return false;
+                }
+            }
+            u = buf.getInt();
+            v = buf.getInt();
+            w = buf.getInt();
+            return true;
+        }
+    }
+
+    /** Buffered sequential writer starting at a fixed file position. */
+    private final class PositionedWriter {
+        final FileChannel channel;
+        final ByteBuffer buf = newBuffer();
+        long position;
+
+        PositionedWriter(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        void putInt(int value) throws IOException {
+            if (buf.remaining() < Integer.BYTES) {
+                flush();
+            }
+            buf.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            if (buf.remaining() < Long.BYTES) {
+                flush();
+            }
+            buf.putLong(value);
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            position += write(channel, buf, position);
+            buf.clear();
+        }
+    }
+
+    private static ByteBuffer newBuffer() {
+        // A whole number of records, so a full buffer never splits one
+        return ByteBuffer.allocateDirect(IO_BUFFER_BYTES / RECORD_BYTES * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void flush(FileChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            metrics.addCounter("io_bytes_written", out.write(buf));
+        }
+        buf.clear();
+    }
+
+    private int write(FileChannel out, ByteBuffer buf, long position) throws IOException {
+        int total = 0;
+        while (buf.hasRemaining()) {
+            total += out.write(buf, position + total);
+        }
+        metrics.addCounter("io_bytes_written", total);
+        return total;
+    }
+
+    /** Deletes any runs still on disk. */
+    @Override
+    public void close() throws IOException {
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+    }
+}
@@ -1,11 +1,13 @@
 package com.smartcity.common;
 
 import java.util.*;
-public class Graph {
+public class Graph implements GraphView {
     private final int n;
     private final boolean directed;
     private final List<List<Edge>> adj;
     private final String weightModel; // "edge" or "node"
+    private long edgeCount;
+    private long version;
 
     public record Edge(int to, int weight) {
 
@@ -27,8 +29,11 @@ public class Graph {
 
     public void addEdge(int u, int v, int weight) {
         adj.get(u).add(new Edge(v, weight));
+        edgeCount++;
+        version++;
         if (!directed) {
             adj.get(v).add(new Edge(u, weight));
+            edgeCount++;
         }
     }
 
@@ -36,18 +41,52 @@ public class Graph {
         return adj.get(u);
     }
 
+    @Override
+    public int outDegree(int u) {
+        return adj.get(u).size();
+    }
+
+    @Override
+    public int target(int u, int i) {
+        return adj.get(u).get(i).to;
+    }
+
+    @Override
+    public int weight(int u, int i) {
+        return adj.get(u).get(i).weight;
+    }
+
+    @Override
     public int getN() {
         return n;
     }
 
+    @Override
     public boolean isDirected() {
         return directed;
     }
 
+    @Override
     public String getWeightModel() {
         return weightModel;
     }
 
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /** Number of adjacency entries (undirected edges are counted in both directions). */
+    @Override
+    public long getEdgeCount() {
+        return edgeCount;
+    }
+
+    /** Freezes this graph into a compressed sparse row form. */
+    public CSRGraph toCSR() {
+        return CSRGraph.fromGraph(this);
+    }
+
     public Graph reverse() {
         Graph rev = new Graph(n, directed, weightModel);
         for (int u = 0; u < n; u++) {
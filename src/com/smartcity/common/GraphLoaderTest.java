@@ -0,0 +1,115 @@
+package com.smartcity.common;
+
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphLoaderTest {
+
+    private static final String TASKS = """
+            {
+              "directed": true,
+              "n": 4,
+              "edges": [
+                {"u": 0, "v": 1, "w": 3},
+                {"u": 1, "v": 2},
+                {"u": 2, "v": 3, "w": -4}
+              ],
+              "source": 2,
+              "weight_model": "edge"
+            }
+            """;
+
+    private static Path write(String json) throws IOException {
+        Path file = Files.createTempFile("graph", ".json");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, json);
+        return file;
+    }
+
+    @Test
+    public void testLoadFromFile() throws IOException {
+        Metrics metrics = new MetricsImpl();
+        GraphLoader.GraphData data = GraphLoader.loadFromFile(write(TASKS).toString(), metrics);
+        Graph graph = data.graph();
+
+        assertEquals(4, graph.getN());
+        assertTrue(graph.isDirected());
+        assertEquals(2, data.source());
+        assertEquals(3, graph.getEdgeCount());
+        assertEquals(1, graph.weight(1, 0));
+        assertEquals(-4, graph.weight(2, 0));
+        assertEquals(3, metrics.getCounter("edges_loaded"));
+    }
+
+    @Test
+    public void testHeaderAfterEdgesAndUnknownKeys() throws IOException {
+        String json = "{\"meta\": {\"tags\": [\"a\", \"}\"], \"x\": null}, "
+                + "\"edges\": [{\"w\": 2, \"label\": \"x\\\"y\", \"v\": 1, \"u\": 0}], "
+                + "\"weight_model\": \"node\", \"n\": 2, \"directed\": false}";
+        GraphLoader.GraphData data = GraphLoader.loadFromStream(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), new MetricsImpl());
+        Graph graph = data.graph();
+
+        assertEquals(2, graph.getN());
+        assertFalse(graph.isDirected());
+        assertEquals("node", graph.getWeightModel());
+        assertEquals(0, data.source());
+        assertEquals(2, graph.getEdgeCount());
+        assertEquals(0, graph.target(1, 0));
+    }
+
+    @Test
+    public void testLoadCSRMatchesGraph() throws IOException {
+        String file = write(TASKS).toString();
+        CSRGraph expected = GraphLoader.loadFromFile(file).graph().toCSR();
+        GraphLoader.CSRGraphData data = GraphLoader.loadCSRFromFile(file, new MetricsImpl());
+
+        assertEquals(2, data.source());
+        assertArrayEquals(expected.getOffsets(), data.graph().getOffsets());
+        assertArrayEquals(expected.getTargets(), data.graph().getTargets());
+        assertArrayEquals(expected.getWeights(), data.graph().getWeights());
+    }
+
+    @Test
+    public void testMalformedInput() throws IOException {
+        String missingV = write("{\"n\": 2, \"edges\": [{\"u\": 0}]}").toString();
+        assertThrows(JSONException.class, () -> GraphLoader.loadFromFile(missingV));
+
+        String outOfRange = write("{\"n\": 2, \"edges\": [{\"u\": 0, \"v\": 5}]}").toString();
+        assertThrows(JSONException.class, () -> GraphLoader.loadFromFile(outOfRange));
+    }
+
+    @Test
+    public void testMissingEdgesRejected() throws IOException {
+        String noEdges = write("{\"n\": 2, \"directed\": true}").toString();
+
+        JSONException error = assertThrows(JSONException.class, () -> GraphLoader.loadFromFile(noEdges));
+        assertTrue(error.getMessage().startsWith("JSONObject[\"edges\"] not found."), error.getMessage());
+        assertNotNull(GraphLoader.loadFromFile(write("{\"n\": 2, \"edges\": []}").toString()));
+    }
+
+    @Test
+    public void testNegativeEndpointRejectedAtItsPosition() throws IOException {
+        String negative = write("{\"n\": 2, \"edges\": [{\"u\": 0, \"v\": -1}]}").toString();
+
+        JSONException error = assertThrows(JSONException.class, () -> GraphLoader.loadFromFile(negative));
+        assertEquals("Edge endpoint -1 out of range at byte 35", error.getMessage());
+    }
+
+    @Test
+    public void testNullWeightDefaultsToOne() throws IOException {
+        String json = "{\"n\": 2, \"edges\": [{\"u\": 0, \"v\": 1, \"w\": null}]}";
+        Graph graph = GraphLoader.loadFromStream(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), new MetricsImpl()).graph();
+
+        assertEquals(1, graph.weight(0, 0));
+    }
+}
@@ -0,0 +1,141 @@
+package com.smartcity.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Versioned binary snapshot of a graph in CSR layout, designed to be opened with
+ * {@link FileChannel#map}. All values are little-endian.
+ *
+ * <pre>
+ *  0  int   magic ("SCGS")
+ *  4  int   version
+ *  8  int   n
+ * 12  int   flags (bit 0: directed)
+ * 16  long  m
+ * 24  int   source
+ * 28  int   weight model length in bytes
+ * 32  byte[] weight model (UTF-8), zero padded to a multiple of 8
+ *     long[n + 1] offsets
+ *     int[m]      targets
+ *     int[m]      weights
+ * </pre>
+ */
+public final class GraphSnapshot {
+    public static final int MAGIC = 0x53474353; // "SCGS" read little-endian
+    public static final int VERSION = 1;
+
+    static final int FIXED_HEADER_BYTES = 32;
+    private static final int FLAG_DIRECTED = 1;
+    private static final int WRITE_CHUNK = 1 << 20;
+
+    private GraphSnapshot() {
+    }
+
+    public static void write(GraphView graph, int source, Path path) throws IOException {
+        int n = graph.getN();
+        long m = graph.getEdgeCount();
+        byte[] model = graph.getWeightModel().getBytes(StandardCharsets.UTF_8);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(WRITE_CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+            putHeader(buf, n, graph.isDirected(), m, source, model);
+
+            long offset = 0;
+            for (int u = 0; u <= n; u++) {
+                buf = ensure(channel, buf, Long.BYTES);
+                buf.putLong(offset);
+                if (u < n) {
+                    offset += graph.outDegree(u);
+                }
+            }
+            GraphView.EdgeCursor cursor = graph.cursor();
+            for (int u = 0; u < n; u++) {
+                for (cursor.reset(u); cursor.hasNext(); ) {
+                    buf = ensure(channel, buf, Integer.BYTES);
+                    buf.putInt(cursor.next());
+                }
+            }
+            for (int u = 0; u < n; u++) {
+                for (cursor.reset(u); cursor.hasNext(); ) {
+                    cursor.next();
+                    buf = ensure(channel, buf, Integer.BYTES);
+                    buf.putInt(cursor.weight());
+                }
+            }
+            flush(channel, buf);
+        }
+    }
+
+    /** True if the file starts with the snapshot magic number. */
+    public static boolean isSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < FIXED_HEADER_BYTES) {
+                return false;
+            }
+            ByteBuffer head = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(head, 0);
+            return head.getInt(0) == MAGIC;
+        }
+    }
+
+    /** Copies a snapshot into an on-heap {@link CSRGraph} using bulk buffer transfers. */
+    public static GraphLoader.CSRGraphData readCSR(Path path) throws IOException {
+        try (MappedGraph mapped = MappedGraph.open(path)) {
+            long m = mapped.getEdgeCount();
+            if (m > Integer.MAX_VALUE - 8) {
+                throw new IOException("Snapshot has " + m + " edges; use GraphLoader.openMapped for graphs this large");
+            }
+            int n = mapped.getN();
+            int[] offsets = new int[n + 1];
+            for (int u = 0; u <= n; u++) {
+                offsets[u] = (int) mapped.edgeStart(u);
+            }
+            int[] targets = new int[(int) m];
+            int[] weights = new int[(int) m];
+            mapped.copyTargets(targets);
+            mapped.copyWeights(weights);
+            CSRGraph graph = new CSRGraph(n, mapped.isDirected(), mapped.getWeightModel(), offsets, targets, weights);
+            return new GraphLoader.CSRGraphData(graph, mapped.getSource());
+        }
+    }
+
+    /** Writes the header and its padding, leaving {@code buf} positioned at the offsets array. */
+    static void putHeader(ByteBuffer buf, int n, boolean directed, long m, int source, byte[] model) {
+        buf.putInt(MAGIC).putInt(VERSION).putInt(n)
+                .putInt(directed ? FLAG_DIRECTED : 0)
+                .putLong(m).putInt(source).putInt(model.length)
+                .put(model);
+        while (buf.position() % 8 != 0) {
+            buf.put((byte) 0);
+        }
+    }
+
+    static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static ByteBuffer ensure(FileChannel channel, ByteBuffer buf, int bytes) throws IOException {
+        if (buf.remaining() < bytes) {
+            flush(channel, buf);
+            buf.clear();
+        }
+        return buf;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+}
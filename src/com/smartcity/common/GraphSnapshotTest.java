@@ -0,0 +1,111 @@
+package com.smartcity.common;
+
+import com.smartcity.graph.scc.TarjanSCC;
+import org.junit.jupiter.api.Test;
+import path.testing.DAGShortestPath;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphSnapshotTest {
+
+    private static Graph sampleGraph() {
+        Graph graph = new Graph(6, true, "node");
+        graph.addEdge(0, 1, 3);
+        graph.addEdge(1, 2, 2);
+        graph.addEdge(2, 0, 4);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 4, 5);
+        graph.addEdge(4, 5, 1);
+        graph.addEdge(3, 5, 9);
+        return graph;
+    }
+
+    private static Path tempFile() throws IOException {
+        Path file = Files.createTempFile("graph", ".bin");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    @Test
+    public void testRoundTripToHeap() throws IOException {
+        Graph graph = sampleGraph();
+        Path file = tempFile();
+        GraphLoader.writeSnapshot(graph, 3, file.toString());
+
+        assertTrue(GraphSnapshot.isSnapshot(file));
+        GraphLoader.CSRGraphData data = GraphLoader.open(file.toString());
+        CSRGraph expected = graph.toCSR();
+
+        assertEquals(3, data.source());
+        assertEquals("node", data.graph().getWeightModel());
+        assertTrue(data.graph().isDirected());
+        assertArrayEquals(expected.getOffsets(), data.graph().getOffsets());
+        assertArrayEquals(expected.getTargets(), data.graph().getTargets());
+        assertArrayEquals(expected.getWeights(), data.graph().getWeights());
+    }
+
+    @Test
+    public void testMappedViewRunsAlgorithms() throws IOException {
+        Graph graph = sampleGraph();
+        Path file = tempFile();
+        GraphLoader.writeSnapshot(graph, 3, file.toString());
+
+        try (MappedGraph mapped = GraphLoader.openMapped(file.toString())) {
+            assertEquals(6, mapped.getN());
+            assertEquals(7, mapped.getEdgeCount());
+            assertEquals(3, mapped.getSource());
+            assertEquals(2, mapped.outDegree(3));
+            assertEquals(9, mapped.weight(3, 1));
+            assertEquals(new TarjanSCC(graph).findSCCs(), new TarjanSCC(mapped).findSCCs());
+        }
+
+        CSRGraph dag = CSRGraph.builder(4, true, "edge")
+                .addEdge(0, 1, 5).addEdge(0, 2, 2).addEdge(1, 3, 1).addEdge(2, 3, 4)
+                .build();
+        Path dagFile = tempFile();
+        GraphSnapshot.write(dag, 0, dagFile);
+        try (MappedGraph mapped = MappedGraph.open(dagFile)) {
+            assertEquals(6, new DAGShortestPath(mapped).shortestPaths(0).getDistance(3));
+        }
+    }
+
+    @Test
+    public void testOpenDetectsJson() throws IOException {
+        Path file = Files.createTempFile("graph", ".json");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, "{\"directed\": true, \"n\": 2, \"edges\": [{\"u\": 0, \"v\": 1, \"w\": 4}]}");
+
+        assertFalse(GraphSnapshot.isSnapshot(file));
+        GraphLoader.CSRGraphData data = GraphLoader.open(file.toString());
+        assertEquals(1, data.graph().getEdgeCount());
+        assertThrows(IOException.class, () -> GraphLoader.openMapped(file.toString()));
+    }
+
+    @Test
+    public void testRejectsCorruptSnapshot() throws IOException {
+        Path file = tempFile();
+        GraphSnapshot.write(sampleGraph(), 0, file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 4));
+
+        assertThrows(IOException.class, () -> MappedGraph.open(file));
+    }
+
+    @Test
+    public void testRejectsOversizedModelLength() throws IOException {
+        Path file = tempFile();
+        GraphSnapshot.write(sampleGraph(), 0, file);
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.putInt(28, Integer.MAX_VALUE);  // weight model length, the last fixed header field
+        Files.write(file, bytes.array());
+
+        IOException error = assertThrows(IOException.class, () -> MappedGraph.open(file));
+        assertEquals("Corrupt snapshot header", error.getMessage());
+    }
+}
@@ -0,0 +1,128 @@
+package com.smartcity.common;
+
+/** Read-only adjacency access shared by {@link Graph} and its compact forms. */
+public interface GraphView {
+    int getN();
+    boolean isDirected();
+    String getWeightModel();
+    long getEdgeCount();
+
+    /** Number of outgoing adjacency entries of {@code u}. */
+    int outDegree(int u);
+
+    /** Target of the {@code i}-th outgoing edge of {@code u}. */
+    int target(int u, int i);
+
+    /** Weight of the {@code i}-th outgoing edge of {@code u}. */
+    int weight(int u, int i);
+
+    /**
+     * Copies the targets and weights of {@code u}'s out-edges into the arrays from {@code offset}
+     * and returns the out-degree. Views with sequential encodings override this to decode once.
+     */
+    default int copyEdges(int u, int[] targets, int[] weights, int offset) {
+        int degree = outDegree(u);
+        for (int i = 0; i < degree; i++) {
+            targets[offset + i] = target(u, i);
+            weights[offset + i] = weight(u, i);
+        }
+        return degree;
+    }
+
+    /**
+     * Sequential reader over one adjacency list at a time. Views with sequential encodings
+     * override this so that reading a whole list costs O(degree) rather than one decode per edge.
+     */
+    default EdgeCursor cursor() {
+        GraphView graph = this;
+        return new EdgeCursor() {
+            private int vertex;
+            private int next;
+            private int degree;
+
+            @Override
+            public EdgeCursor reset(int u) {
+                vertex = u;
+                next = 0;
+                degree = graph.outDegree(u);
+                return this;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < degree;
+            }
+
+            @Override
+            public int next() {
+                return graph.target(vertex, next++);
+            }
+
+            @Override
+            public int weight() {
+                return graph.weight(vertex, next - 1);
+            }
+        };
+    }
+
+    /**
+     * One resumable cursor per vertex, kept in arrays borrowed from {@code scope}, for traversals
+     * such as DFS that leave a list half-read and come back to it later.
+     */
+    default EdgeCursors cursors(Workspace.Scope scope) {
+        GraphView graph = this;
+        int[] position = scope.ints(getN());
+        return new EdgeCursors() {
+            @Override
+            public void reset(int u) {
+                position[u] = 0;
+            }
+
+            @Override
+            public boolean hasNext(int u) {
+                return position[u] < graph.outDegree(u);
+            }
+
+            @Override
+            public int next(int u) {
+                return graph.target(u, position[u]++);
+            }
+
+            @Override
+            public int weight(int u) {
+                return graph.weight(u, position[u] - 1);
+            }
+        };
+    }
+
+    /** Modification counter, bumped by every edge insert or delete; immutable views stay at 0. */
+    default long getVersion() {
+        return 0;
+    }
+
+    /** See {@link #cursor()}; not thread-safe, but independent cursors may read one view concurrently. */
+    interface EdgeCursor {
+        /** Positions the cursor at the start of {@code u}'s list. */
+        EdgeCursor reset(int u);
+
+        boolean hasNext();
+
+        /** Target of the next edge. */
+        int next();
+
+        /** Weight of the edge last returned by {@link #next()}. */
+        int weight();
+    }
+
+    /** See {@link #cursors(Workspace.Scope)}. */
+    interface EdgeCursors {
+        void reset(int u);
+
+        boolean hasNext(int u);
+
+        int next(int u);
+
+        /** Weight of the edge last returned by {@link #next(int)} for {@code u}. */
+        int weight(int u);
+    }
+}
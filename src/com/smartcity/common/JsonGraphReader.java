@@ -0,0 +1,403 @@
+package com.smartcity.common;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Single-pass tokenizer for the task graph JSON format. It reads the channel through a fixed
+ * buffer and appends each edge to a primitive {@link EdgeBuffer}, so no JSON tree and no
+ * per-edge objects are created. Unknown keys are skipped without being materialized.
+ */
+final class JsonGraphReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private int pos;
+    private int limit;
+    private final StringBuilder text = new StringBuilder();
+    private long position;
+
+    // Header fields, with the same defaults as the org.json based loader
+    private boolean directed = false;
+    private int n = -1;
+    private String weightModel = "edge";
+    private int source = 0;
+    private final EdgeBuffer edges;
+    private boolean sawEdges;
+
+    JsonGraphReader(ReadableByteChannel channel, int expectedEdges) {
+        this.channel = channel;
+        this.edges = new EdgeBuffer(expectedEdges);
+    }
+
+    void read() throws IOException {
+        expect('{');
+        if (peekToken() == '}') {
+            next();
+        } else {
+            do {
+                String key = readString();
+                expect(':');
+                readField(key);
+            } while (nextSeparator('}'));
+        }
+        if (n < 0) {
+            throw error("JSONObject[\"n\"] not found.");
+        }
+        if (!sawEdges) {
+            throw error("JSONObject[\"edges\"] not found.");
+        }
+        if (edges.maxVertex() >= n) {
+            throw error("Edge endpoint " + edges.maxVertex() + " out of range for n=" + n);
+        }
+    }
+
+    boolean isDirected() {
+        return directed;
+    }
+
+    int getN() {
+        return n;
+    }
+
+    String getWeightModel() {
+        return weightModel;
+    }
+
+    int getSource() {
+        return source;
+    }
+
+    EdgeBuffer getEdges() {
+        return edges;
+    }
+
+    long getBytesRead() {
+        return position;
+    }
+
+    private void readField(String key) throws IOException {
+        switch (key) {
+            case "directed" -> directed = readBoolean();
+            case "n" -> n = readInt();
+            case "weight_model" -> weightModel = readString();
+            case "source" -> source = readInt();
+            case "edges" -> {
+                readEdges();
+                sawEdges = true;
+            }
+            default -> skipValue();
+        }
+    }
+
+    private void readEdges() throws IOException {
+        expect('[');
+        if (peekToken() == ']') {
+            next();
+            return;
+        }
+        do {
+            readEdge();
+        } while (nextSeparator(']'));
+    }
+
+    private void readEdge() throws IOException {
+        int u = Integer.MIN_VALUE;
+        int v = Integer.MIN_VALUE;
+        int w = 1;
+        expect('{');
+        if (peekToken() != '}') {
+            do {
+                int key = readSingleCharKey();
+                expect(':');
+                switch (key) {
+                    case 'u' -> u = readVertex();
+                    case 'v' -> v = readVertex();
+                    case 'w' -> w = readIntOrNull(1);
+                    default -> skipValue();
+                }
+            } while (nextSeparator('}'));
+        } else {
+            next();
+        }
+        if (u == Integer.MIN_VALUE) {
+            throw error("JSONObject[\"u\"] not found.");
+        }
+        if (v == Integer.MIN_VALUE) {
+            throw error("JSONObject[\"v\"] not found.");
+        }
+        edges.add(u, v, w);
+    }
+
+    /** Consumes ',' (returns true) or the closing bracket (returns false). */
+    private boolean nextSeparator(char close) throws IOException {
+        int c = nextToken();
+        if (c == ',') {
+            return true;
+        }
+        if (c == close) {
+            return false;
+        }
+        throw error("Expected ',' or '" + close + "'");
+    }
+
+    private boolean readBoolean() throws IOException {
+        int c = nextToken();
+        if (c == 't') {
+            expectLiteral("rue");
+            return true;
+        }
+        if (c == 'f') {
+            expectLiteral("alse");
+            return false;
+        }
+        throw error("Expected boolean");
+    }
+
+    /** Reads an edge endpoint; negative ids are rejected where they appear. */
+    private int readVertex() throws IOException {
+        int vertex = readInt();
+        if (vertex < 0) {
+            throw error("Edge endpoint " + vertex + " out of range");
+        }
+        return vertex;
+    }
+
+    /** Reads an int, or returns {@code fallback} for {@code null} like {@code JSONObject.optInt}. */
+    private int readIntOrNull(int fallback) throws IOException {
+        if (peekToken() == 'n') {
+            nextToken();
+            expectLiteral("ull");
+            return fallback;
+        }
+        return readInt();
+    }
+
+    private int readInt() throws IOException {
+        int c = nextToken();
+        boolean negative = c == '-';
+        if (negative) {
+            c = next();
+        }
+        if (c < '0' || c > '9') {
+            throw error("Expected number");
+        }
+        long value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw error("Number out of int range");
+            }
+            c = next();
+        }
+        if (c == '.' || c == 'e' || c == 'E') {
+            // Fractional or exponent form: fall back to double parsing like JSONObject.getInt
+            text.setLength(0);
+            text.append(negative ? "-" : "").append(value);
+            while (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-' || (c >= '0' && c <= '9')) {
+                text.append((char) c);
+                c = next();
+            }
+            unread();
+            return (int) Double.parseDouble(text.toString());
+        }
+        unread();
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw error("Number out of int range");
+        }
+        return (int) value;
+    }
+
+    /** Reads a key without allocating; returns its character if it is one ASCII char long, else -1. */
+    private int readSingleCharKey() throws IOException {
+        if (nextToken() != '"') {
+            throw error("Expected string");
+        }
+        int first = next();
+        if (first == '"') {
+            return -1;
+        }
+        int c = next();
+        if (c == '"' && first != '\\') {
+            return first;
+        }
+        if (first == '\\') {
+            c = next();
+        }
+        // Longer key: skip the remainder of the string
+        while (c != '"') {
+            if (c == -1) {
+                throw error("Unterminated string");
+            }
+            if (c == '\\') {
+                next();
+            }
+            c = next();
+        }
+        return -1;
+    }
+
+    private String readString() throws IOException {
+        if (nextToken() != '"') {
+            throw error("Expected string");
+        }
+        text.setLength(0);
+        int c;
+        while ((c = next()) != '"') {
+            if (c == -1) {
+                throw error("Unterminated string");
+            }
+            if (c == '\\') {
+                c = next();
+                switch (c) {
+                    case 'n' -> text.append('\n');
+                    case 't' -> text.append('\t');
+                    case 'r' -> text.append('\r');
+                    case 'b' -> text.append('\b');
+                    case 'f' -> text.append('\f');
+                    case 'u' -> {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            code = (code << 4) | Character.digit(next(), 16);
+                        }
+                        text.append((char) code);
+                    }
+                    default -> text.append((char) c);
+                }
+            } else if (c < 0x80) {
+                text.append((char) c);
+            } else {
+                appendUtf8(c);
+            }
+        }
+        return text.toString();
+    }
+
+    private void appendUtf8(int lead) throws IOException {
+        int extra = lead >= 0xF0 ? 3 : lead >= 0xE0 ? 2 : 1;
+        int code = lead & (0x3F >> extra);
+        for (int i = 0; i < extra; i++) {
+            code = (code << 6) | (next() & 0x3F);
+        }
+        text.appendCodePoint(code);
+    }
+
+    /** Skips any JSON value without building it. */
+    private void skipValue() throws IOException {
+        int c = peekToken();
+        if (c == '"') {
+            skipString();
+            return;
+        }
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = next();
+                if (c == -1) {
+                    throw error("Unterminated value");
+                }
+                if (c == '"') {
+                    unread();
+                    skipString();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+            return;
+        }
+        // number, true, false, null
+        nextToken();
+        do {
+            c = next();
+        } while (c != -1 && c != ',' && c != '}' && c != ']' && !isWhitespace(c));
+        unread();
+    }
+
+    private void skipString() throws IOException {
+        nextToken();
+        int c;
+        while ((c = next()) != '"') {
+            if (c == -1) {
+                throw error("Unterminated string");
+            }
+            if (c == '\\') {
+                next();
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (nextToken() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+    }
+
+    private void expectLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (next() != rest.charAt(i)) {
+                throw error("Invalid literal");
+            }
+        }
+    }
+
+    private int peekToken() throws IOException {
+        int c = nextToken();
+        unread();
+        return c;
+    }
+
+    private int nextToken() throws IOException {
+        int c;
+        do {
+            c = next();
+        } while (isWhitespace(c));
+        return c;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private int next() throws IOException {
+        position++;
+        if (pos < limit) {
+            return bytes[pos++] & 0xFF;
+        }
+        return refill();
+    }
+
+    private int refill() throws IOException {
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        if (read < 0) {
+            pos = limit = 0;
+            return -1;
+        }
+        pos = 0;
+        limit = read;
+        return bytes[pos++] & 0xFF;
+    }
+
+    /** Steps back over the last byte returned by {@link #next()}. */
+    private void unread() {
+        position--;
+        if (pos > 0) {
+            pos--;
+        }
+    }
+
+    private JSONException error(String message) {
+        return new JSONException(message + " at byte " + position);
+    }
+}
@@ -0,0 +1,197 @@
+package com.smartcity.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, zero-copy {@link GraphView} over a {@link GraphSnapshot} file. Adjacency is read
+ * straight from memory-mapped buffers, so graphs larger than the heap can be analyzed. Each
+ * array is mapped in 1 GiB segments, which allows more than 2^31 edges in total.
+ */
+public final class MappedGraph implements GraphView, AutoCloseable {
+    private static final int INT_SEGMENT_SHIFT = 28;  // 2^28 ints = 1 GiB per segment
+    private static final int LONG_SEGMENT_SHIFT = 27; // 2^27 longs = 1 GiB per segment
+
+    private final int n;
+    private final boolean directed;
+    private final String weightModel;
+    private final long m;
+    private final int source;
+    private MappedByteBuffer[] offsets;
+    private MappedByteBuffer[] targets;
+    private MappedByteBuffer[] weights;
+
+    private MappedGraph(int n, boolean directed, String weightModel, long m, int source,
+                        MappedByteBuffer[] offsets, MappedByteBuffer[] targets, MappedByteBuffer[] weights) {
+        this.n = n;
+        this.directed = directed;
+        this.weightModel = weightModel;
+        this.m = m;
+        this.source = source;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    public static MappedGraph open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < GraphSnapshot.FIXED_HEADER_BYTES) {
+                throw new IOException("Not a graph snapshot: " + path);
+            }
+            ByteBuffer header = ByteBuffer.allocate(GraphSnapshot.FIXED_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != GraphSnapshot.MAGIC) {
+                throw new IOException("Not a graph snapshot: " + path);
+            }
+            int version = header.getInt();
+            if (version != GraphSnapshot.VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " (expected "
+                        + GraphSnapshot.VERSION + ")");
+            }
+            int n = header.getInt();
+            boolean directed = (header.getInt() & 1) != 0;
+            long m = header.getLong();
+            int source = header.getInt();
+            int modelLength = header.getInt();
+            // Checked before anything is sized from the header, so a bad length cannot trigger a huge allocation
+            if (n < 0 || m < 0 || modelLength < 0 || modelLength > fileSize - GraphSnapshot.FIXED_HEADER_BYTES) {
+                throw new IOException("Corrupt snapshot header");
+            }
+
+            ByteBuffer model = ByteBuffer.allocate(modelLength);
+            channel.read(model, GraphSnapshot.FIXED_HEADER_BYTES);
+            String weightModel = new String(model.array(), StandardCharsets.UTF_8);
+
+            long offsetsStart = align8(GraphSnapshot.FIXED_HEADER_BYTES + modelLength);
+            long targetsStart = offsetsStart + (n + 1L) * Long.BYTES;
+            long weightsStart = targetsStart + m * Integer.BYTES;
+            long expectedSize = weightsStart + m * Integer.BYTES;
+            if (fileSize != expectedSize) {
+                throw new IOException("Truncated or corrupt snapshot: " + fileSize + " bytes, expected " + expectedSize);
+            }
+
+            return new MappedGraph(n, directed, weightModel, m, source,
+                    mapSegments(channel, offsetsStart, n + 1L, Long.BYTES, LONG_SEGMENT_SHIFT),
+                    mapSegments(channel, targetsStart, m, Integer.BYTES, INT_SEGMENT_SHIFT),
+                    mapSegments(channel, weightsStart, m, Integer.BYTES, INT_SEGMENT_SHIFT));
+        }
+    }
+
+    private static MappedByteBuffer[] mapSegments(FileChannel channel, long start, long count,
+                                                  int elementBytes, int shift) throws IOException {
+        long perSegment = 1L << shift;
+        int segments = (int) Math.max(1, (count + perSegment - 1) >>> shift);
+        MappedByteBuffer[] result = new MappedByteBuffer[segments];
+        for (int s = 0; s < segments; s++) {
+            long first = (long) s << shift;
+            long elements = Math.min(perSegment, count - first);
+            result[s] = GraphSnapshot.map(channel, start + first * elementBytes, Math.max(0, elements) * elementBytes);
+        }
+        return result;
+    }
+
+    private static long align8(long value) {
+        return (value + 7) & ~7L;
+    }
+
+    /** First edge index of {@code u}; indices are 64-bit. */
+    public long edgeStart(int u) {
+        long slot = u;
+        return offsets[(int) (slot >>> LONG_SEGMENT_SHIFT)]
+                .getLong((int) (slot & ((1L << LONG_SEGMENT_SHIFT) - 1)) << 3);
+    }
+
+    public long edgeEnd(int u) {
+        return edgeStart(u + 1);
+    }
+
+    public int edgeTarget(long e) {
+        return targets[(int) (e >>> INT_SEGMENT_SHIFT)]
+                .getInt((int) (e & ((1L << INT_SEGMENT_SHIFT) - 1)) << 2);
+    }
+
+    public int edgeWeight(long e) {
+        return weights[(int) (e >>> INT_SEGMENT_SHIFT)]
+                .getInt((int) (e & ((1L << INT_SEGMENT_SHIFT) - 1)) << 2);
+    }
+
+    @Override
+    public int outDegree(int u) {
+        return (int) (edgeEnd(u) - edgeStart(u));
+    }
+
+    @Override
+    public int target(int u, int i) {
+        return edgeTarget(edgeStart(u) + i);
+    }
+
+    @Override
+    public int weight(int u, int i) {
+        return edgeWeight(edgeStart(u) + i);
+    }
+
+    @Override
+    public int getN() {
+        return n;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return directed;
+    }
+
+    @Override
+    public String getWeightModel() {
+        return weightModel;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return m;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    void copyTargets(int[] dest) {
+        copy(targets, dest);
+    }
+
+    void copyWeights(int[] dest) {
+        copy(weights, dest);
+    }
+
+    private static void copy(MappedByteBuffer[] segments, int[] dest) {
+        int pos = 0;
+        for (MappedByteBuffer segment : segments) {
+            IntBuffer ints = segment.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            int len = ints.remaining();
+            ints.get(dest, pos, len);
+            pos += len;
+        }
+    }
+
+    /** Drops the mappings; the OS releases them once the buffers are garbage collected. */
+    @Override
+    public void close() {
+        offsets = null;
+        targets = null;
+        weights = null;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedGraph{n=" + n + ", m=" + m + ", directed=" + directed
+                + ", weightModel=" + weightModel + "}";
+    }
+}
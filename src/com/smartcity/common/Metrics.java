@@ -1,18 +1,29 @@
 package com.smartcity.common;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /** Interface for tracking algorithm performance metrics  */
 public interface Metrics {
+
+    /** Pre-resolved handle to one named counter; hot loops update it without a name lookup. */
+    interface Counter {
+        void increment();
+        void add(long delta);
+        long get();
+    }
+
+    /** Returns the handle for {@code name}, registering it at zero if it does not exist yet. */
+    Counter counter(String name);
     void incrementCounter(String name);
-    void addCounter(String name, int value);
-    int getCounter(String name);
+    void addCounter(String name, long value);
+    /** Replaces the value of {@code name}, for rates and other readings that must not accumulate. */
+    void setCounter(String name, long value);
+    long getCounter(String name);
     void startTimer();
     void stopTimer();
     long getElapsedNanos();
     double getElapsedMillis();
     void reset();
-    Map<String, Integer> getAllCounters();
+    Map<String, Long> getAllCounters();
     String getSummary();
-}
\ No newline at end of file
+}
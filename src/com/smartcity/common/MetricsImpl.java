@@ -1,32 +1,64 @@
 package com.smartcity.common;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/** Single-threaded metrics; counters are mutable {@code long} slots, so updates never box. */
 public class MetricsImpl implements Metrics {
-    private final Map<String, Integer> counters;
+    private final Map<String, Slot> counters;
     private long startTime;
     private long endTime;
 
     public MetricsImpl() {
-        this.counters = new HashMap<>();
+        this.counters = new LinkedHashMap<>();
         this.startTime = 0;
         this.endTime = 0;
     }
 
+    private static final class Slot implements Counter {
+        private long value;
+
+        @Override
+        public void increment() {
+            value++;
+        }
+
+        @Override
+        public void add(long delta) {
+            value += delta;
+        }
+
+        @Override
+        public long get() {
+            return value;
+        }
+    }
+
+    @Override
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, k -> new Slot());
+    }
+
     @Override
     public void incrementCounter(String name) {
-        counters.put(name, counters.getOrDefault(name, 0) + 1);
+        counter(name).increment();
+    }
+
+    @Override
+    public void addCounter(String name, long value) {
+        counter(name).add(value);
     }
 
     @Override
-    public void addCounter(String name, int value) {
-        counters.put(name, counters.getOrDefault(name, 0) + value);
+    public void setCounter(String name, long value) {
+        counters.computeIfAbsent(name, k -> new Slot()).value = value;
     }
 
     @Override
-    public int getCounter(String name) {
-        return counters.getOrDefault(name, 0);
+    public long getCounter(String name) {
+        Slot slot = counters.get(name);
+        return slot == null ? 0 : slot.value;
     }
 
     @Override
@@ -51,14 +83,21 @@ public class MetricsImpl implements Metrics {
 
     @Override
     public void reset() {
-        counters.clear();
+        // Keep registered slots so handles held by callers stay valid
+        for (Slot slot : counters.values()) {
+            slot.value = 0;
+        }
         startTime = 0;
         endTime = 0;
     }
 
     @Override
-    public Map<String, Integer> getAllCounters() {
-        return new HashMap<>(counters);
+    public Map<String, Long> getAllCounters() {
+        Map<String, Long> snapshot = new HashMap<>();
+        for (Map.Entry<String, Slot> entry : counters.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().value);
+        }
+        return snapshot;
     }
 
     @Override
@@ -67,9 +106,9 @@ public class MetricsImpl implements Metrics {
         sb.append("=== Metrics Summary ===\n");
         sb.append(String.format("Time: %.3f ms\n", getElapsedMillis()));
         sb.append("Counters:\n");
-        for (Map.Entry<String, Integer> entry : counters.entrySet()) {
-            sb.append(String.format("  %s: %d\n", entry.getKey(), entry.getValue()));
+        for (Map.Entry<String, Slot> entry : counters.entrySet()) {
+            sb.append(String.format("  %s: %d\n", entry.getKey(), entry.getValue().value));
         }
         return sb.toString();
     }
-}
\ No newline at end of file
+}
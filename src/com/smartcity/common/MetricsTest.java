@@ -0,0 +1,83 @@
+package com.smartcity.common;
+
+import com.smartcity.graph.scc.TarjanSCC;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+    @Test
+    public void testCountersWidenPastInt() {
+        Metrics metrics = new MetricsImpl();
+        Metrics.Counter edges = metrics.counter("edges_explored");
+        edges.add(Integer.MAX_VALUE);
+        edges.add(Integer.MAX_VALUE);
+        metrics.incrementCounter("edges_explored");
+
+        assertEquals(2L * Integer.MAX_VALUE + 1, metrics.getCounter("edges_explored"));
+        assertEquals(2L * Integer.MAX_VALUE + 1, metrics.getAllCounters().get("edges_explored"));
+    }
+
+    @Test
+    public void testHandleSurvivesReset() {
+        Metrics metrics = new MetricsImpl();
+        Metrics.Counter visits = metrics.counter("dfs_visits");
+        visits.increment();
+        metrics.reset();
+        visits.increment();
+
+        assertEquals(1, metrics.getCounter("dfs_visits"));
+        assertSame(visits, metrics.counter("dfs_visits"));
+    }
+
+    @Test
+    public void testSetCounterReplacesValue() {
+        for (Metrics metrics : List.of(new MetricsImpl(), new ConcurrentMetrics())) {
+            metrics.addCounter("queries_per_second", 500);
+            metrics.setCounter("queries_per_second", 300);
+            metrics.setCounter("queries_per_second", 200);
+
+            assertEquals(200, metrics.getCounter("queries_per_second"));
+        }
+    }
+
+    @Test
+    public void testConcurrentMetricsAcrossThreads() throws InterruptedException {
+        Metrics metrics = new ConcurrentMetrics();
+        Metrics.Counter counter = metrics.counter("relaxations");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    counter.increment();
+                    metrics.incrementCounter("by_name");
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(800_000, metrics.getCounter("relaxations"));
+        assertEquals(800_000, metrics.getCounter("by_name"));
+    }
+
+    @Test
+    public void testNoOpMetricsRecordsNothing() {
+        Graph graph = new Graph(3, true, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+
+        List<List<Integer>> sccs = new TarjanSCC(graph, NoOpMetrics.INSTANCE).findSCCs();
+
+        assertEquals(2, sccs.size());
+        assertEquals(0, NoOpMetrics.INSTANCE.getCounter("dfs_visits"));
+        assertTrue(NoOpMetrics.INSTANCE.getAllCounters().isEmpty());
+    }
+}
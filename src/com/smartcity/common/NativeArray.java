@@ -0,0 +1,169 @@
+package com.smartcity.common;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-length int or long array in native memory, indexed by {@code long}.
+ *
+ * Storage is a series of direct {@link ByteBuffer} segments of at most 1 GiB, so an array may
+ * hold more than 2^31 elements and costs the garbage collector nothing but a few small objects.
+ * Memory is zeroed on allocation and returned to the OS by {@link #close()} rather than whenever
+ * the buffers happen to be collected; the array must not be used after that.
+ */
+public final class NativeArray implements AutoCloseable {
+    static final int DEFAULT_SEGMENT_SHIFT = 30;  // 1 GiB per segment
+    private static final AtomicLong RESERVED = new AtomicLong();
+    private static final Method INVOKE_CLEANER;
+    private static final Object UNSAFE;
+
+    static {
+        Method invokeCleaner = null;
+        Object unsafe = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Without it, buffers are freed when collected
+        }
+        INVOKE_CLEANER = invokeCleaner;
+        UNSAFE = unsafe;
+    }
+
+    private final long length;
+    private final int elementShift;   // log2 of the element size
+    private final int indexShift;     // log2 of elements per segment
+    private final long indexMask;
+    private ByteBuffer[] segments;
+
+    private NativeArray(long length, int elementShift, int segmentShift) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length must be >= 0");
+        }
+        this.length = length;
+        this.elementShift = elementShift;
+        this.indexShift = segmentShift - elementShift;
+        this.indexMask = (1L << indexShift) - 1;
+        int count = (int) ((length + indexMask) >>> indexShift);
+        segments = new ByteBuffer[count];
+        try {
+            for (int s = 0; s < count; s++) {
+                long elements = Math.min(1L << indexShift, length - ((long) s << indexShift));
+                segments[s] = ByteBuffer.allocateDirect((int) (elements << elementShift)).order(ByteOrder.nativeOrder());
+                RESERVED.addAndGet(segments[s].capacity());
+            }
+        } catch (OutOfMemoryError e) {
+            close();
+            throw e;
+        }
+    }
+
+    public static NativeArray ints(long length) {
+        return new NativeArray(length, 2, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    public static NativeArray longs(long length) {
+        return new NativeArray(length, 3, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    /** For tests: segments of {@code 2^segmentShift} bytes, so small arrays span several. */
+    static NativeArray ints(long length, int segmentShift) {
+        return new NativeArray(length, 2, segmentShift);
+    }
+
+    static NativeArray longs(long length, int segmentShift) {
+        return new NativeArray(length, 3, segmentShift);
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public int getInt(long i) {
+        return segments[(int) (i >>> indexShift)].getInt((int) (i & indexMask) << 2);
+    }
+
+    public void setInt(long i, int value) {
+        segments[(int) (i >>> indexShift)].putInt((int) (i & indexMask) << 2, value);
+    }
+
+    public long getLong(long i) {
+        return segments[(int) (i >>> indexShift)].getLong((int) (i & indexMask) << 3);
+    }
+
+    public void setLong(long i, long value) {
+        segments[(int) (i >>> indexShift)].putLong((int) (i & indexMask) << 3, value);
+    }
+
+    /** Sets every element of an int array to {@code value}. */
+    public void fill(int value) {
+        if (elementShift != 2) {
+            throw new IllegalStateException("fill(int) on a long array");
+        }
+        fillPattern((value & 0xFFFFFFFFL) | ((long) value << 32));
+    }
+
+    /** Sets every element of a long array to {@code value}. */
+    public void fill(long value) {
+        if (elementShift != 3) {
+            throw new IllegalStateException("fill(long) on an int array");
+        }
+        fillPattern(value);
+    }
+
+    private void fillPattern(long pattern) {
+        for (ByteBuffer segment : segments) {
+            int end = segment.capacity() & ~7;
+            for (int p = 0; p < end; p += 8) {
+                segment.putLong(p, pattern);
+            }
+            if (end < segment.capacity()) {
+                segment.putInt(end, (int) pattern);
+            }
+        }
+    }
+
+    /** Native bytes held by this array, 0 once closed. */
+    public long sizeBytes() {
+        return segments == null ? 0 : length << elementShift;
+    }
+
+    /** Native bytes held by all open arrays. */
+    public static long reservedBytes() {
+        return RESERVED.get();
+    }
+
+    /** Frees the native memory now; closing twice is harmless. */
+    @Override
+    public void close() {
+        ByteBuffer[] released = segments;
+        segments = null;
+        if (released == null) {
+            return;
+        }
+        for (ByteBuffer segment : released) {
+            if (segment == null) {
+                continue;
+            }
+            RESERVED.addAndGet(-segment.capacity());
+            if (INVOKE_CLEANER != null) {
+                try {
+                    INVOKE_CLEANER.invoke(UNSAFE, segment);
+                } catch (ReflectiveOperationException e) {
+                    // Left for the garbage collector
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NativeArray{length=" + length + ", elementBytes=" + (1 << elementShift) + "}";
+    }
+}
@@ -0,0 +1,132 @@
+package com.smartcity.common;
+
+/**
+ * Immutable CSR graph whose offsets, targets and weights live in {@link NativeArray}s, so a graph
+ * with billions of edges adds almost nothing to the Java heap. Edge indices are 64-bit, as in
+ * {@link MappedGraph}; unlike a mapping, the data is resident and never paged back from a file.
+ *
+ * The memory is released by {@link #close()}, after which the graph must not be used.
+ */
+public final class OffHeapGraph implements GraphView, AutoCloseable {
+    private final int n;
+    private final boolean directed;
+    private final String weightModel;
+    private final long m;
+    private final NativeArray offsets;
+    private final NativeArray targets;
+    private final NativeArray weights;
+
+    private OffHeapGraph(int n, boolean directed, String weightModel, long m,
+                         NativeArray offsets, NativeArray targets, NativeArray weights) {
+        this.n = n;
+        this.directed = directed;
+        this.weightModel = weightModel;
+        this.m = m;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /** Copies any view, including a {@link MappedGraph} of a snapshot too large for the heap. */
+    public static OffHeapGraph copyOf(GraphView graph) {
+        int n = graph.getN();
+        NativeArray offsets = NativeArray.longs(n + 1L);
+        long m = 0;
+        for (int u = 0; u < n; u++) {
+            offsets.setLong(u, m);
+            m += graph.outDegree(u);
+        }
+        offsets.setLong(n, m);
+        NativeArray targets = null;
+        NativeArray weights = null;
+        try {
+            targets = NativeArray.ints(m);
+            weights = NativeArray.ints(m);
+        } catch (OutOfMemoryError e) {
+            offsets.close();
+            if (targets != null) {
+                targets.close();
+            }
+            throw e;
+        }
+        long e = 0;
+        GraphView.EdgeCursor cursor = graph.cursor();
+        for (int u = 0; u < n; u++) {
+            for (cursor.reset(u); cursor.hasNext(); e++) {
+                targets.setInt(e, cursor.next());
+                weights.setInt(e, cursor.weight());
+            }
+        }
+        return new OffHeapGraph(n, graph.isDirected(), graph.getWeightModel(), m, offsets, targets, weights);
+    }
+
+    /** First edge index of {@code u}; indices are 64-bit. */
+    public long edgeStart(int u) {
+        return offsets.getLong(u);
+    }
+
+    public long edgeEnd(int u) {
+        return offsets.getLong(u + 1L);
+    }
+
+    public int edgeTarget(long e) {
+        return targets.getInt(e);
+    }
+
+    public int edgeWeight(long e) {
+        return weights.getInt(e);
+    }
+
+    @Override
+    public int outDegree(int u) {
+        return (int) (edgeEnd(u) - edgeStart(u));
+    }
+
+    @Override
+    public int target(int u, int i) {
+        return edgeTarget(edgeStart(u) + i);
+    }
+
+    @Override
+    public int weight(int u, int i) {
+        return edgeWeight(edgeStart(u) + i);
+    }
+
+    @Override
+    public int getN() {
+        return n;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return directed;
+    }
+
+    @Override
+    public String getWeightModel() {
+        return weightModel;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return m;
+    }
+
+    /** Native bytes held by the adjacency, 0 once closed. */
+    public long sizeBytes() {
+        return offsets.sizeBytes() + targets.sizeBytes() + weights.sizeBytes();
+    }
+
+    @Override
+    public void close() {
+        offsets.close();
+        targets.close();
+        weights.close();
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapGraph{n=" + n + ", m=" + m + ", directed=" + directed
+                + ", weightModel=" + weightModel + "}";
+    }
+}
@@ -0,0 +1,111 @@
+package com.smartcity.common;
+
+import com.smartcity.fixture.RandomGraphs;
+import com.smartcity.graph.scc.OffHeapTarjanSCC;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.OffHeapKahnTopologicalSort;
+import org.junit.jupiter.api.Test;
+import path.testing.DAGShortestPath;
+import path.testing.OffHeapDAGShortestPath;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapGraphTest {
+
+    @Test
+    public void testArraysSpanSegments() {
+        long before = NativeArray.reservedBytes();
+        try (NativeArray ints = NativeArray.ints(1000, 6); NativeArray longs = NativeArray.longs(100, 6)) {
+            assertEquals(before + 4000 + 800, NativeArray.reservedBytes());
+            ints.fill(-7);
+            longs.fill(1L << 40);
+            for (int i = 0; i < 1000; i += 3) {
+                ints.setInt(i, i);
+            }
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i % 3 == 0 ? i : -7, ints.getInt(i));
+            }
+            longs.setLong(99, -1);
+            assertEquals(1L << 40, longs.getLong(8));
+            assertEquals(-1, longs.getLong(99));
+            assertThrows(IllegalStateException.class, () -> longs.fill(0));
+        }
+        assertEquals(before, NativeArray.reservedBytes());
+    }
+
+    @Test
+    public void testCopyMatchesHeapGraph() {
+        Graph graph = RandomGraphs.builder(200, 800).weights(1, 9).build(1);
+        try (OffHeapGraph offHeap = OffHeapGraph.copyOf(graph)) {
+            assertEquals(graph.getEdgeCount(), offHeap.getEdgeCount());
+            assertEquals(8L * 201 + 8L * graph.getEdgeCount(), offHeap.sizeBytes());
+            for (int u = 0; u < graph.getN(); u++) {
+                assertEquals(graph.outDegree(u), offHeap.outDegree(u));
+                for (int i = 0; i < graph.outDegree(u); i++) {
+                    assertEquals(graph.target(u, i), offHeap.target(u, i));
+                    assertEquals(graph.weight(u, i), offHeap.weight(u, i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTarjanMatchesHeapVersion() {
+        long before = NativeArray.reservedBytes();
+        for (long seed = 0; seed < 5; seed++) {
+            Graph graph = RandomGraphs.builder(300, 450).weights(1, 9).build(seed);
+            int[] expected = new int[graph.getN()];
+            int expectedCount = new TarjanSCC(graph).findComponents(expected);
+
+            try (OffHeapGraph offHeap = OffHeapGraph.copyOf(graph);
+                 OffHeapTarjanSCC tarjan = new OffHeapTarjanSCC(offHeap);
+                 NativeArray componentOf = NativeArray.ints(graph.getN())) {
+                for (int run = 0; run < 2; run++) {
+                    assertEquals(expectedCount, tarjan.findComponents(componentOf));
+                    for (int v = 0; v < graph.getN(); v++) {
+                        assertEquals(expected[v], componentOf.getInt(v));
+                    }
+                }
+                assertEquals(24L * graph.getN(), tarjan.stateBytes());
+            }
+        }
+        assertEquals(before, NativeArray.reservedBytes());
+    }
+
+    @Test
+    public void testTopologicalOrderAndPaths() {
+        Graph dag = RandomGraphs.builder(300, 900).acyclic().weights(1, 9).build(3);
+        DAGShortestPath heap = new DAGShortestPath(dag);
+        long before = NativeArray.reservedBytes();
+        try (OffHeapGraph offHeap = OffHeapGraph.copyOf(dag);
+             OffHeapDAGShortestPath paths = new OffHeapDAGShortestPath(offHeap);
+             NativeArray dist = NativeArray.ints(dag.getN());
+             NativeArray pred = NativeArray.ints(dag.getN())) {
+            for (int source : new int[]{0, 17, 150}) {
+                paths.shortestPaths(source, dist, pred);
+                DAGShortestPath.PathResult expected = heap.shortestPaths(source);
+                for (int v = 0; v < dag.getN(); v++) {
+                    assertEquals(expected.getDistance(v), dist.getInt(v));
+                }
+                paths.longestPaths(source, dist, pred);
+                assertEquals(heap.longestPaths(source).findCriticalPath().length(),
+                        paths.findCriticalPath(dist, pred).length());
+            }
+        }
+        assertEquals(before, NativeArray.reservedBytes());
+
+        Graph cyclic = new Graph(3, true, "edge");
+        cyclic.addEdge(0, 1, 1);
+        cyclic.addEdge(1, 2, 1);
+        cyclic.addEdge(2, 0, 1);
+        try (OffHeapGraph offHeap = OffHeapGraph.copyOf(cyclic);
+             OffHeapKahnTopologicalSort sort = new OffHeapKahnTopologicalSort(offHeap);
+             NativeArray order = NativeArray.ints(3)) {
+            assertFalse(sort.sortInto(order));
+            assertThrows(IllegalArgumentException.class,
+                    () -> new OffHeapDAGShortestPath(offHeap).longestPaths(0, order, order));
+        }
+    }
+}
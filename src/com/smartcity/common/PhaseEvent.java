@@ -0,0 +1,33 @@
+package com.smartcity.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight Recorder event for one traced phase; committed by {@link Tracer} when a recording is running. */
+@Name("com.smartcity.Phase")
+@Label("Algorithm Phase")
+@Category({"Smart City", "Analysis"})
+@Description("One traced algorithm phase, with the graph size and the counters it reported")
+@StackTrace(false)
+final class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Path")
+    @Description("Names of the enclosing phases and this one, separated by '/'")
+    String path;
+
+    @Label("Vertices")
+    long vertices;
+
+    @Label("Edges")
+    long edges;
+
+    @Label("Counters")
+    @Description("Counters as name=value pairs, comma-separated")
+    String counters;
+}
@@ -0,0 +1,92 @@
+package com.smartcity.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Point-in-time statistics of every span path a {@link Tracer} has recorded, all durations in
+ * nanoseconds. {@link #toJson()} gives a machine-readable form for dashboards and regression checks.
+ */
+public record TraceSnapshot(long timestampMillis, List<PhaseStats> phases) {
+
+    public TraceSnapshot {
+        phases = List.copyOf(phases);
+    }
+
+    public record PhaseStats(String path, long count, long totalNanos, long minNanos, double meanNanos,
+                             long p50Nanos, long p90Nanos, long p99Nanos, long maxNanos) {
+    }
+
+    /** The stats for {@code path}, or null if it was never recorded. */
+    public PhaseStats phase(String path) {
+        for (PhaseStats stats : phases) {
+            if (stats.path().equals(path)) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"timestampMillis\": ").append(timestampMillis).append(", \"phases\": [");
+        for (int i = 0; i < phases.size(); i++) {
+            PhaseStats p = phases.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("  {\"path\": ");
+            appendString(sb, p.path());
+            sb.append(", \"count\": ").append(p.count())
+                    .append(", \"totalNanos\": ").append(p.totalNanos())
+                    .append(", \"minNanos\": ").append(p.minNanos())
+                    .append(", \"meanNanos\": ").append(String.format(Locale.ROOT, "%.1f", p.meanNanos()))
+                    .append(", \"p50Nanos\": ").append(p.p50Nanos())
+                    .append(", \"p90Nanos\": ").append(p.p90Nanos())
+                    .append(", \"p99Nanos\": ").append(p.p99Nanos())
+                    .append(", \"maxNanos\": ").append(p.maxNanos())
+                    .append('}');
+        }
+        sb.append(phases.isEmpty() ? "]}\n" : "\n]}\n");
+        return sb.toString();
+    }
+
+    public void writeJson(Path file) throws IOException {
+        Files.writeString(file, toJson(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-50s %8s %12s %12s %12s %12s%n", "phase", "count", "total ms", "p50 us", "p99 us", "max us"));
+        for (PhaseStats p : phases) {
+            sb.append(String.format("%-50s %8d %12.3f %12.1f %12.1f %12.1f%n", p.path(), p.count(),
+                    p.totalNanos() / 1e6, p.p50Nanos() / 1e3, p.p99Nanos() / 1e3, p.maxNanos() / 1e3));
+        }
+        return sb.toString();
+    }
+
+    private static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
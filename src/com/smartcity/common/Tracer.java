@@ -0,0 +1,186 @@
+package com.smartcity.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Nested, named timing spans with a latency histogram per span path.
+ *
+ * A span opened while another is open on the same thread becomes its child, and its duration
+ * is recorded under the path {@code parent/child}. When a span closes it also commits a
+ * {@link PhaseEvent} to JDK Flight Recorder, carrying the graph size and counters attached to
+ * it, if a recording with that event enabled is running.
+ *
+ * Algorithms open their spans on {@link #global()}, which is {@link #DISABLED} unless a tracer
+ * has been installed. A disabled tracer hands out one shared do-nothing span, so the untraced
+ * path costs a volatile read and two virtual calls per invocation, with no allocation.
+ */
+public class Tracer {
+    public static final Tracer DISABLED = new Tracer(false);
+    private static volatile Tracer global = DISABLED;
+
+    private final boolean enabled;
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final ThreadLocal<ActiveSpan> current = new ThreadLocal<>();
+
+    public Tracer() {
+        this(true);
+    }
+
+    private Tracer(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** The tracer algorithms report to. */
+    public static Tracer global() {
+        return global;
+    }
+
+    /** Installs {@code tracer} for all threads; pass {@link #DISABLED} to stop tracing. */
+    public static void setGlobal(Tracer tracer) {
+        global = tracer;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Opens a span; close it with try-with-resources on the same thread. */
+    public Span span(String name) {
+        if (!enabled) {
+            return Span.NOOP;
+        }
+        ActiveSpan parent = current.get();
+        ActiveSpan span = new ActiveSpan(this, parent, name);
+        current.set(span);
+        return span;
+    }
+
+    /** Histogram of span durations in nanoseconds for {@code path}, created if absent. */
+    public LatencyHistogram histogram(String path) {
+        return histograms.computeIfAbsent(path, p -> new LatencyHistogram());
+    }
+
+    /** Statistics of every path recorded so far, sorted by path. */
+    public TraceSnapshot snapshot() {
+        List<TraceSnapshot.PhaseStats> phases = new ArrayList<>();
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            phases.add(new TraceSnapshot.PhaseStats(entry.getKey(), h.getCount(), h.getTotal(), h.getMin(),
+                    h.getMean(), h.getValueAtPercentile(50), h.getValueAtPercentile(90),
+                    h.getValueAtPercentile(99), h.getMax()));
+        }
+        return new TraceSnapshot(System.currentTimeMillis(), phases);
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    /** A timed phase. The base class is the do-nothing span of a disabled tracer. */
+    public static class Span implements AutoCloseable {
+        static final Span NOOP = new Span();
+
+        Span() {
+        }
+
+        /** Attaches the graph size to the span's event. */
+        public Span graph(GraphView graph) {
+            return this;
+        }
+
+        public Span size(long vertices, long edges) {
+            return this;
+        }
+
+        /** Attaches a copy of the counters of {@code metrics} as they are when the span closes. */
+        public Span counters(Metrics metrics) {
+            return this;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class ActiveSpan extends Span {
+        private final Tracer tracer;
+        private final ActiveSpan parent;
+        private final String name;
+        private final String path;
+        private final long start;
+        private final PhaseEvent event = new PhaseEvent();
+        private long vertices = -1;
+        private long edges = -1;
+        private Metrics metrics;
+        private boolean closed;
+
+        ActiveSpan(Tracer tracer, ActiveSpan parent, String name) {
+            this.tracer = tracer;
+            this.parent = parent;
+            this.name = name;
+            this.path = parent == null ? name : parent.path + "/" + name;
+            event.begin();
+            this.start = System.nanoTime();
+        }
+
+        @Override
+        public Span graph(GraphView graph) {
+            return size(graph.getN(), graph.getEdgeCount());
+        }
+
+        @Override
+        public Span size(long vertices, long edges) {
+            this.vertices = vertices;
+            this.edges = edges;
+            return this;
+        }
+
+        @Override
+        public Span counters(Metrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long elapsed = System.nanoTime() - start;
+            tracer.histogram(path).record(elapsed);
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = name;
+                event.path = path;
+                event.vertices = vertices;
+                event.edges = edges;
+                event.counters = metrics == null ? "" : formatCounters(metrics.getAllCounters());
+                event.commit();
+            }
+            // Spans closed out of order leave the thread's current span alone
+            if (tracer.current.get() == this) {
+                if (parent == null) {
+                    tracer.current.remove();
+                } else {
+                    tracer.current.set(parent);
+                }
+            }
+        }
+
+        private static String formatCounters(Map<String, Long> counters) {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, Long> entry : new TreeMap<>(counters).entrySet()) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(entry.getKey()).append('=').append(entry.getValue());
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.smartcity.common;
+
+import com.smartcity.analysis.AnalysisPipeline;
+import com.smartcity.graph.scc.TarjanSCC;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TracerTest {
+
+    @Test
+    public void testHistogramPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v * 1000);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(1000, histogram.getMin());
+        assertEquals(100_000_000, histogram.getMax());
+        assertEquals(50_000_500.0, histogram.getMean(), 1e-6);
+        for (double p : new double[] {50, 90, 99, 99.9}) {
+            double expected = p * 1_000_000;
+            assertEquals(expected, histogram.getValueAtPercentile(p), expected / 64, "p" + p);
+        }
+        assertEquals(100_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testBucketsCoverLongRange() {
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(value <= LatencyHistogram.highestValueIn(bucket));
+            assertTrue(bucket == 0 || value > LatencyHistogram.highestValueIn(bucket - 1));
+        }
+        assertEquals(127, LatencyHistogram.bucketOf(127));
+        LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testNestedSpansRecordPaths() {
+        Tracer tracer = new Tracer();
+        for (int i = 0; i < 3; i++) {
+            try (Tracer.Span outer = tracer.span("pipeline")) {
+                try (Tracer.Span inner = tracer.span("scc")) {
+                    assertNotNull(inner);
+                }
+                try (Tracer.Span inner = tracer.span("paths")) {
+                    try (Tracer.Span leaf = tracer.span("relax")) {
+                        assertNotNull(leaf);
+                    }
+                }
+            }
+        }
+        try (Tracer.Span root = tracer.span("scc")) {
+            assertNotNull(root);
+        }
+
+        TraceSnapshot snapshot = tracer.snapshot();
+        assertEquals(List.of("pipeline", "pipeline/paths", "pipeline/paths/relax", "pipeline/scc", "scc"),
+                snapshot.phases().stream().map(TraceSnapshot.PhaseStats::path).toList());
+        assertEquals(3, snapshot.phase("pipeline/scc").count());
+        assertEquals(1, snapshot.phase("scc").count());
+        TraceSnapshot.PhaseStats pipeline = snapshot.phase("pipeline");
+        assertTrue(pipeline.totalNanos() >= snapshot.phase("pipeline/paths").totalNanos());
+        assertTrue(pipeline.minNanos() <= pipeline.p50Nanos() && pipeline.p99Nanos() <= pipeline.maxNanos());
+    }
+
+    @Test
+    public void testDisabledTracerRecordsNothing() {
+        Tracer.Span first = Tracer.DISABLED.span("a");
+        Tracer.Span second = Tracer.DISABLED.span("b").graph(new Graph(2, true, "edge"));
+        first.close();
+        second.close();
+
+        assertSame(first, second);
+        assertFalse(Tracer.DISABLED.isEnabled());
+        assertTrue(Tracer.DISABLED.snapshot().phases().isEmpty());
+    }
+
+    @Test
+    public void testPipelineStagesNestUnderGlobalTracer() {
+        Graph graph = new Graph(4, true, "edge");
+        graph.addEdge(0, 1, 2);
+        graph.addEdge(1, 0, 1);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(2, 3, 4);
+
+        Tracer tracer = new Tracer();
+        Tracer.setGlobal(tracer);
+        try {
+            AnalysisPipeline.builder().build().run(graph, 0);
+            try (Tracer.Span span = tracer.span("external")) {
+                new TarjanSCC(graph).findSCCs();
+            }
+        } finally {
+            Tracer.setGlobal(Tracer.DISABLED);
+        }
+
+        TraceSnapshot snapshot = tracer.snapshot();
+        for (String path : List.of("pipeline", "pipeline/scc", "pipeline/condensation", "pipeline/topological_order",
+                "pipeline/shortest_paths", "pipeline/longest_paths", "external/tarjan_scc")) {
+            assertNotNull(snapshot.phase(path), path);
+        }
+    }
+
+    @Test
+    public void testSnapshotJson() throws IOException {
+        Tracer tracer = new Tracer();
+        tracer.histogram("load").record(1500);
+        tracer.histogram("odd \"name\"\n").record(20);
+        TraceSnapshot snapshot = tracer.snapshot();
+
+        String json = snapshot.toJson();
+        assertTrue(json.contains("\"path\": \"load\", \"count\": 1, \"totalNanos\": 1500"), json);
+        assertTrue(json.contains("\"odd \\\"name\\\"\\n\""), json);
+
+        Path file = Files.createTempFile("trace", ".json");
+        try {
+            snapshot.writeJson(file);
+            assertEquals(json, Files.readString(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        tracer.reset();
+        assertTrue(tracer.snapshot().toJson().endsWith("\"phases\": []}\n"));
+    }
+
+    @Test
+    public void testSpansEmitFlightRecorderEvents() throws IOException {
+        Graph graph = new Graph(3, true, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        Metrics metrics = new MetricsImpl();
+        Tracer tracer = new Tracer();
+        Path file = Files.createTempFile("trace", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.smartcity.Phase").withThreshold(java.time.Duration.ZERO);
+            recording.start();
+            try (Tracer.Span span = tracer.span("tarjan").graph(graph).counters(metrics)) {
+                metrics.addCounter("dfs_visits", 3);
+            }
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals("com.smartcity.Phase")).toList();
+            assertEquals(1, events.size());
+            RecordedEvent event = events.get(0);
+            assertEquals("tarjan", event.getString("path"));
+            assertEquals(3, event.getLong("vertices"));
+            assertEquals(2, event.getLong("edges"));
+            assertEquals("dfs_visits=3", event.getString("counters"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
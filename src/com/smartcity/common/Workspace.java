@@ -0,0 +1,181 @@
+package com.smartcity.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-thread pool of scratch arrays for repeated algorithm runs.
+ *
+ * An algorithm opens a {@link Scope} with try-with-resources and borrows arrays from it; closing
+ * the scope hands them back to the thread's pool. Scopes nest, so an algorithm may call another
+ * one that opens its own. Arrays only grow, so once a thread has run on its largest graph further
+ * runs allocate no scratch at all. Borrowed arrays have arbitrary contents and may be longer than
+ * requested. Visited flags come as {@link Marks}, which are cleared by bumping an epoch instead of
+ * rewriting the array.
+ *
+ * A scope must be closed on the thread that opened it and before any scope opened earlier.
+ */
+public final class Workspace {
+    private static final ThreadLocal<Workspace> CURRENT = ThreadLocal.withInitial(Workspace::new);
+
+    private final List<int[]> ints = new ArrayList<>();
+    private final List<Marks> marks = new ArrayList<>();
+    private final List<Scope> scopes = new ArrayList<>();
+    private int intsInUse;
+    private int marksInUse;
+    private int depth;
+    private long allocations;
+    private long allocatedBytes;
+
+    private Workspace() {
+    }
+
+    /** The calling thread's workspace. */
+    public static Workspace current() {
+        return CURRENT.get();
+    }
+
+    /** Opens a scope on the calling thread's workspace. */
+    public static Scope open() {
+        return current().openScope();
+    }
+
+    public Scope openScope() {
+        if (depth == scopes.size()) {
+            scopes.add(new Scope());
+        }
+        Scope scope = scopes.get(depth++);
+        scope.intsMark = intsInUse;
+        scope.marksMark = marksInUse;
+        scope.open = true;
+        return scope;
+    }
+
+    /** Number of arrays this workspace has allocated since it was created or trimmed. */
+    public long getAllocations() {
+        return allocations;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /** Drops every pooled array that is not borrowed right now, e.g. after a one-off large graph. */
+    public void trim() {
+        ints.subList(intsInUse, ints.size()).clear();
+        marks.subList(marksInUse, marks.size()).clear();
+        allocations = 0;
+        allocatedBytes = 0;
+    }
+
+    private static int grownLength(int current, int n) {
+        // A little headroom so slowly growing inputs do not reallocate on every run
+        return Math.max(n, current + (current >> 3));
+    }
+
+    private int[] borrowInts(int n) {
+        if (intsInUse == ints.size()) {
+            ints.add(new int[0]);
+        }
+        int[] array = ints.get(intsInUse);
+        if (array.length < n) {
+            array = new int[grownLength(array.length, n)];
+            ints.set(intsInUse, array);
+            allocations++;
+            allocatedBytes += 4L * array.length;
+        }
+        intsInUse++;
+        return array;
+    }
+
+    private Marks borrowMarks(int n) {
+        if (marksInUse == marks.size()) {
+            marks.add(new Marks());
+        }
+        Marks result = marks.get(marksInUse++);
+        if (result.stamps.length < n) {
+            result.stamps = new int[grownLength(result.stamps.length, n)];
+            result.epoch = 0;
+            allocations++;
+            allocatedBytes += 4L * result.stamps.length;
+        }
+        result.clear();
+        return result;
+    }
+
+    /** Borrowing window on a workspace; closing it returns everything borrowed through it. */
+    public final class Scope implements AutoCloseable {
+        private int intsMark;
+        private int marksMark;
+        private boolean open;
+
+        private Scope() {
+        }
+
+        /** An array of at least {@code n} ints with arbitrary contents. */
+        public int[] ints(int n) {
+            checkOpen();
+            return borrowInts(n);
+        }
+
+        /** An array of at least {@code n} ints whose first {@code n} entries are {@code value}. */
+        public int[] filled(int n, int value) {
+            int[] array = ints(n);
+            Arrays.fill(array, 0, n, value);
+            return array;
+        }
+
+        /** Marks over {@code [0, n)}, all unmarked. */
+        public Marks marks(int n) {
+            checkOpen();
+            return borrowMarks(n);
+        }
+
+        private void checkOpen() {
+            if (!open) {
+                throw new IllegalStateException("Workspace scope is closed");
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!open) {
+                return;
+            }
+            if (scopes.get(depth - 1) != this) {
+                throw new IllegalStateException("Workspace scopes must be closed innermost first");
+            }
+            open = false;
+            intsInUse = intsMark;
+            marksInUse = marksMark;
+            depth--;
+        }
+    }
+
+    /** Set of vertex flags cleared in O(1) by advancing an epoch. */
+    public static final class Marks {
+        private int[] stamps = new int[0];
+        private int epoch;
+
+        public boolean isMarked(int v) {
+            return stamps[v] == epoch;
+        }
+
+        public void mark(int v) {
+            stamps[v] = epoch;
+        }
+
+        public void unmark(int v) {
+            stamps[v] = epoch - 1;
+        }
+
+        /** Unmarks everything; rewrites the array only when the epoch wraps around. */
+        public void clear() {
+            if (++epoch == Integer.MAX_VALUE || epoch <= 1) {
+                Arrays.fill(stamps, 0);
+                epoch = 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.smartcity.common;
+
+import com.smartcity.fixture.RandomGraphs;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.DFSTopologicalSort;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+import org.junit.jupiter.api.Test;
+import path.testing.DAGShortestPath;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkspaceTest {
+
+    @Test
+    public void testMarksClearWithoutRewriting() {
+        try (Workspace.Scope scope = Workspace.open()) {
+            Workspace.Marks marks = scope.marks(10);
+            marks.mark(3);
+            marks.mark(7);
+            marks.unmark(7);
+            assertTrue(marks.isMarked(3));
+            assertFalse(marks.isMarked(7));
+
+            marks.clear();
+            assertFalse(marks.isMarked(3));
+        }
+    }
+
+    @Test
+    public void testNestedScopesDoNotShareArrays() {
+        try (Workspace.Scope outer = Workspace.open()) {
+            int[] a = outer.ints(100);
+            int[] b;
+            try (Workspace.Scope inner = Workspace.open()) {
+                b = inner.ints(100);
+                assertNotSame(a, b);
+                assertThrows(IllegalStateException.class, outer::close);
+            }
+            assertSame(b, outer.ints(50));
+            assertArrayEquals(new int[]{7, 7, 7}, Arrays.copyOf(outer.filled(3, 7), 3));
+        }
+    }
+
+    @Test
+    public void testClosedScopeRejectsBorrowing() {
+        Workspace.Scope scope = Workspace.open();
+        scope.close();
+
+        assertThrows(IllegalStateException.class, () -> scope.ints(1));
+    }
+
+    @Test
+    public void testRepeatedRunsStopAllocatingScratch() {
+        Graph graph = RandomGraphs.builder(5000, 20000).acyclic().weights(1, 5).build(3);
+        int n = graph.getN();
+        int[] componentOf = new int[n];
+        int[] order = new int[n];
+        int[] dist = new int[n];
+        int[] pred = new int[n];
+        DAGShortestPath paths = new DAGShortestPath(graph, NoOpMetrics.INSTANCE);
+        Workspace workspace = Workspace.current();
+
+        Runnable runAll = () -> {
+            assertEquals(n, new TarjanSCC(graph, NoOpMetrics.INSTANCE).findComponents(componentOf));
+            assertTrue(new KahnTopologicalSort(graph, NoOpMetrics.INSTANCE).sortInto(order));
+            assertTrue(new DFSTopologicalSort(graph, NoOpMetrics.INSTANCE).sortInto(order));
+            paths.shortestPaths(0, dist, pred);
+        };
+        runAll.run();
+        long warm = workspace.getAllocations();
+        for (int i = 0; i < 20; i++) {
+            runAll.run();
+        }
+
+        assertEquals(warm, workspace.getAllocations());
+    }
+
+    @Test
+    public void testPooledResultsMatchFreshOnes() {
+        Graph cyclic = new Graph(6, true, "edge");
+        cyclic.addEdge(0, 1, 1);
+        cyclic.addEdge(1, 2, 1);
+        cyclic.addEdge(2, 0, 1);
+        cyclic.addEdge(3, 4, 1);
+        cyclic.addEdge(4, 3, 1);
+        cyclic.addEdge(2, 5, 1);
+
+        for (int run = 0; run < 3; run++) {
+            List<List<Integer>> sccs = new TarjanSCC(cyclic).findSCCs();
+            int[] componentOf = new int[6];
+            assertEquals(sccs.size(), new TarjanSCC(cyclic).findComponents(componentOf));
+            for (int c = 0; c < sccs.size(); c++) {
+                for (int v : sccs.get(c)) {
+                    assertEquals(c, componentOf[v]);
+                }
+            }
+            assertNull(new KahnTopologicalSort(cyclic).sort());
+            assertNull(new DFSTopologicalSort(cyclic).sort());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.smartcity.execution;
+
+import java.util.List;
+
+/**
+ * Outcome of one {@link TaskGraphExecutor} run. Times are in nanoseconds; {@code busyNanos} sums
+ * the time spent inside tasks, and {@code criticalPathNanos} is the heaviest dependency chain
+ * of measured component durations.
+ */
+public record ExecutionReport<T>(List<T> results, long makespanNanos, long busyNanos,
+                                 long criticalPathNanos, int workers) {
+
+    /** Fraction of worker time spent inside tasks. */
+    public double utilization() {
+        return makespanNanos == 0 ? 0.0 : (double) busyNanos / ((double) makespanNanos * workers);
+    }
+
+    /** Critical path over makespan; 1.0 means the run was as short as the dependencies allow. */
+    public double criticalPathEfficiency() {
+        return makespanNanos == 0 ? 0.0 : Math.min(1.0, (double) criticalPathNanos / makespanNanos);
+    }
+
+    /** Sequential task time over makespan. */
+    public double speedup() {
+        return makespanNanos == 0 ? 0.0 : (double) busyNanos / makespanNanos;
+    }
+}
@@ -0,0 +1,300 @@
+package com.smartcity.execution;
+
+import com.smartcity.common.GraphView;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs one task per original vertex while respecting the condensation DAG.
+ *
+ * Each component keeps an atomic count of unfinished predecessors. It becomes ready as soon as
+ * that count reaches zero, and it runs its tasks one after another in the component's
+ * discovered order. Tasks inside a cycle depend on each other, so there is no safe way to
+ * overlap them. Ready components are submitted while one of {@code parallelism} semaphore
+ * permits is free, so at most that many run at once whatever the executor. By default each
+ * execution gets a fresh virtual-thread-per-task executor, so tasks that block on I/O or sleep
+ * do not hold a platform thread. Any {@link ExecutorService} can be passed instead; a
+ * caller-supplied executor is not shut down.
+ *
+ * When a task fails, components that have not started are cancelled, running ones are
+ * interrupted, and the call returns only after they have all stopped.
+ *
+ * After a run, the counters {@code makespan_micros}, {@code busy_micros},
+ * {@code critical_path_micros}, {@code utilization_permille} and
+ * {@code critical_path_efficiency_permille} are added to the metrics. The critical path is the
+ * heaviest chain of measured component durations through the DAG, so an efficiency of 1000 means
+ * the run was as short as the dependencies allow.
+ */
+public final class TaskGraphExecutor {
+    private final GraphView dag;
+    private final List<List<Integer>> components;
+    private final Metrics metrics;
+    private final ExecutorService executor;
+    private final int workers;
+
+    public TaskGraphExecutor(GraphView dag, List<List<Integer>> components) {
+        this(dag, components, new MetricsImpl(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /** @param parallelism how many components may run at once */
+    public TaskGraphExecutor(GraphView dag, List<List<Integer>> components, Metrics metrics, int parallelism) {
+        this(dag, components, metrics, null, parallelism);
+    }
+
+    /**
+     * @param executor runs component jobs; null for a virtual-thread-per-task executor per run
+     * @param workers  how many components may run at once; also the capacity for utilization
+     */
+    public TaskGraphExecutor(GraphView dag, List<List<Integer>> components, Metrics metrics,
+                             ExecutorService executor, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be >= 1");
+        }
+        if (components.size() != dag.getN()) {
+            throw new IllegalArgumentException("DAG has " + dag.getN() + " vertices but there are "
+                    + components.size() + " components");
+        }
+        if (new KahnTopologicalSort(dag, new MetricsImpl()).sort() == null) {
+            throw new IllegalArgumentException("Condensation contains a cycle");
+        }
+        this.dag = dag;
+        this.components = components;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.workers = workers;
+    }
+
+    /** Runs {@code tasks.get(v)} for every original vertex {@code v}. */
+    public ExecutionReport<Void> run(List<? extends Runnable> tasks) {
+        List<Callable<Void>> callables = new ArrayList<>(tasks.size());
+        for (Runnable task : tasks) {
+            callables.add(() -> {
+                task.run();
+                return null;
+            });
+        }
+        return call(callables);
+    }
+
+    /**
+     * Calls {@code tasks.get(v)} for every original vertex {@code v}; results are indexed the same way.
+     *
+     * @throws CompletionException wrapping the first task failure; components that were not
+     *                             started yet are skipped
+     */
+    public <T> ExecutionReport<T> call(List<? extends Callable<? extends T>> tasks) {
+        int taskCount = 0;
+        for (List<Integer> component : components) {
+            taskCount += component.size();
+        }
+        if (tasks.size() != taskCount) {
+            throw new IllegalArgumentException("Expected " + taskCount + " tasks, got " + tasks.size());
+        }
+
+        ExecutorService service = executor != null ? executor : Executors.newVirtualThreadPerTaskExecutor();
+        Run<T> run = new Run<>(tasks, service);
+        try {
+            long start = System.nanoTime();
+            metrics.startTimer();
+            try {
+                run.start();
+                run.done.join();
+            } catch (CompletionException e) {
+                run.cancel();
+                throw e;
+            } finally {
+                metrics.stopTimer();
+            }
+            return report(run, System.nanoTime() - start);
+        } finally {
+            if (executor == null) {
+                service.close();
+            }
+        }
+    }
+
+    private <T> ExecutionReport<T> report(Run<T> run, long makespan) {
+        int k = dag.getN();
+        long busy = run.busy.sum();
+
+        // Completion order is a topological order: a component only starts after its predecessors end
+        long[] finish = new long[k];
+        long criticalPath = 0;
+        for (int i = 0; i < k; i++) {
+            int c = run.finishOrder[i];
+            finish[c] += run.duration[c];
+            criticalPath = Math.max(criticalPath, finish[c]);
+            int degree = dag.outDegree(c);
+            for (int e = 0; e < degree; e++) {
+                int d = dag.target(c, e);
+                finish[d] = Math.max(finish[d], finish[c]);
+            }
+        }
+
+        ExecutionReport<T> report = new ExecutionReport<>(Collections.unmodifiableList(Arrays.asList(run.results)),
+                makespan, busy, criticalPath, workers);
+        metrics.addCounter("components_executed", k);
+        metrics.addCounter("tasks_executed", run.results.length);
+        metrics.addCounter("makespan_micros", makespan / 1000);
+        metrics.addCounter("busy_micros", busy / 1000);
+        metrics.addCounter("critical_path_micros", criticalPath / 1000);
+        metrics.addCounter("utilization_permille", Math.round(report.utilization() * 1000));
+        metrics.addCounter("critical_path_efficiency_permille", Math.round(report.criticalPathEfficiency() * 1000));
+        return report;
+    }
+
+    /** State of one execution. */
+    private final class Run<T> {
+        final List<? extends Callable<? extends T>> tasks;
+        final ExecutorService service;
+        final AtomicIntegerArray pending;
+        final AtomicInteger remaining;
+        final AtomicInteger finished = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final LongAdder busy = new LongAdder();
+        final Semaphore permits = new Semaphore(workers);
+        final Queue<Integer> ready = new ConcurrentLinkedQueue<>();
+        final Queue<Job> jobs = new ConcurrentLinkedQueue<>();
+        final long[] duration;
+        final int[] finishOrder;
+        final T[] results;
+
+        @SuppressWarnings("unchecked")
+        Run(List<? extends Callable<? extends T>> tasks, ExecutorService service) {
+            int k = dag.getN();
+            this.tasks = tasks;
+            this.service = service;
+            this.remaining = new AtomicInteger(k);
+            this.duration = new long[k];
+            this.finishOrder = new int[k];
+            this.results = (T[]) new Object[tasks.size()];
+            int[] inDegree = new int[k];
+            for (int c = 0; c < k; c++) {
+                int degree = dag.outDegree(c);
+                for (int e = 0; e < degree; e++) {
+                    inDegree[dag.target(c, e)]++;
+                }
+            }
+            this.pending = new AtomicIntegerArray(inDegree);
+        }
+
+        void start() {
+            if (dag.getN() == 0) {
+                done.complete(null);
+                return;
+            }
+            for (int c = 0; c < dag.getN(); c++) {
+                if (pending.get(c) == 0) {
+                    ready.add(c);
+                }
+            }
+            drain();
+        }
+
+        /**
+         * Submits ready components while permits last. Every thread that queues a component or
+         * frees a permit drains afterwards, so no ready component is left waiting for a free permit.
+         */
+        void drain() {
+            while (failure.get() == null && !ready.isEmpty() && permits.tryAcquire()) {
+                Integer c = ready.poll();
+                if (c == null) {
+                    permits.release();
+                    continue;
+                }
+                Job job = new Job(c);
+                jobs.add(job);
+                try {
+                    job.future = service.submit(job);
+                } catch (RejectedExecutionException e) {
+                    if (job.claimed.compareAndSet(false, true)) {
+                        permits.release();
+                    }
+                    fail(e);
+                }
+            }
+        }
+
+        /** Cancels jobs that have not started, interrupts running ones and waits for them to end. */
+        void cancel() {
+            for (Job job : jobs) {
+                if (job.claimed.compareAndSet(false, true)) {
+                    permits.release();
+                } else if (job.future != null) {
+                    job.future.cancel(true);
+                }
+            }
+            permits.acquireUninterruptibly(workers);
+        }
+
+        void runComponent(int c) {
+            if (failure.get() != null) {
+                return;
+            }
+            long start = System.nanoTime();
+            for (int v : components.get(c)) {
+                try {
+                    results[v] = tasks.get(v).call();
+                } catch (Throwable e) {
+                    fail(new CompletionException("Task " + v + " in component " + c + " failed", e));
+                    return;
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            duration[c] = elapsed;
+            busy.add(elapsed);
+            finishOrder[finished.getAndIncrement()] = c;
+
+            int degree = dag.outDegree(c);
+            for (int e = 0; e < degree; e++) {
+                int d = dag.target(c, e);
+                if (pending.decrementAndGet(d) == 0) {
+                    ready.add(d);
+                }
+            }
+            if (remaining.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+
+        void fail(Throwable e) {
+            if (failure.compareAndSet(null, e)) {
+                done.completeExceptionally(e);
+            }
+        }
+
+        /** One submitted component; whoever claims it first either runs it or cancels it. */
+        private final class Job implements Runnable {
+            final int component;
+            final AtomicBoolean claimed = new AtomicBoolean();
+            volatile Future<?> future;
+
+            Job(int component) {
+                this.component = component;
+            }
+
+            @Override
+            public void run() {
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    runComponent(component);
+                } finally {
+                    permits.release();
+                    drain();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.smartcity.execution;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.TarjanSCC;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskGraphExecutorTest {
+
+    // 0 -> {1, 2} cycle -> 3, plus independent 4
+    private static Graph sample() {
+        Graph graph = new Graph(5, true, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 1, 1);
+        graph.addEdge(2, 3, 1);
+        return graph;
+    }
+
+    @Test
+    public void testTasksRunAfterTheirDependencies() {
+        Graph graph = sample();
+        List<List<Integer>> sccs = new TarjanSCC(graph).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, sccs);
+        ConcurrentLinkedQueue<Integer> log = new ConcurrentLinkedQueue<>();
+        List<Runnable> tasks = new ArrayList<>();
+        for (int v = 0; v < graph.getN(); v++) {
+            int task = v;
+            tasks.add(() -> log.add(task));
+        }
+        Metrics metrics = new MetricsImpl();
+
+        ExecutionReport<Void> report = new TaskGraphExecutor(condensation.getCondensationCSR(), sccs, metrics, 4)
+                .run(tasks);
+
+        List<Integer> order = new ArrayList<>(log);
+        assertEquals(5, order.size());
+        for (int u = 0; u < graph.getN(); u++) {
+            for (int i = 0; i < graph.outDegree(u); i++) {
+                int v = graph.target(u, i);
+                if (condensation.getComponent(u) != condensation.getComponent(v)) {
+                    assertTrue(order.indexOf(u) < order.indexOf(v));
+                }
+            }
+        }
+        List<Integer> cycle = sccs.get(condensation.getComponent(1));
+        assertEquals(order.indexOf(cycle.get(0)) + 1, order.indexOf(cycle.get(1)));
+        assertEquals(5, metrics.getCounter("tasks_executed"));
+        assertTrue(report.makespanNanos() >= report.criticalPathNanos());
+    }
+
+    @Test
+    public void testResultsAndParallelSpeedup() {
+        int n = 8;
+        Graph graph = new Graph(n, true, "edge");
+        List<List<Integer>> sccs = new TarjanSCC(graph).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, sccs);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            int task = v;
+            tasks.add(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+                return task * 10;
+            });
+        }
+
+        ExecutionReport<Integer> report = new TaskGraphExecutor(condensation.getCondensationCSR(), sccs,
+                new MetricsImpl(), 4).call(tasks);
+
+        for (int v = 0; v < n; v++) {
+            assertEquals(v * 10, report.results().get(v));
+        }
+        assertTrue(peak.get() > 1);
+        assertTrue(report.speedup() > 1.0);
+    }
+
+    @Test
+    public void testDefaultExecutorUsesVirtualThreads() {
+        Graph graph = sample();
+        List<List<Integer>> sccs = new TarjanSCC(graph).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, sccs);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int v = 0; v < graph.getN(); v++) {
+            tasks.add(() -> Thread.currentThread().isVirtual());
+        }
+
+        ExecutionReport<Boolean> report = new TaskGraphExecutor(condensation.getCondensationCSR(), sccs).call(tasks);
+
+        assertEquals(Collections.nCopies(graph.getN(), true), report.results());
+    }
+
+    @Test
+    public void testFailureStopsDependents() {
+        Graph graph = sample();
+        List<List<Integer>> sccs = new TarjanSCC(graph).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, sccs);
+        AtomicInteger ranThree = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        for (int v = 0; v < graph.getN(); v++) {
+            int task = v;
+            tasks.add(() -> {
+                if (task == 0) {
+                    throw new IllegalStateException("boom");
+                }
+                if (task == 3) {
+                    ranThree.incrementAndGet();
+                }
+            });
+        }
+
+        TaskGraphExecutor executor = new TaskGraphExecutor(condensation.getCondensationCSR(), sccs, new MetricsImpl(), 2);
+        CompletionException error = assertThrows(CompletionException.class, () -> executor.run(tasks));
+
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        assertEquals(0, ranThree.get());
+    }
+
+    @Test
+    public void testParallelismCapsRunningComponents() {
+        int n = 12;
+        Graph graph = new Graph(n, true, "edge");
+        List<List<Integer>> sccs = new TarjanSCC(graph).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, sccs);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            tasks.add(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            });
+        }
+
+        new TaskGraphExecutor(condensation.getCondensationCSR(), sccs, new MetricsImpl(), 3).run(tasks);
+
+        assertTrue(peak.get() <= 3, "peak " + peak.get());
+    }
+
+    @Test
+    public void testFailureWaitsForRunningTasks() {
+        int n = 6;
+        Graph graph = new Graph(n, true, "edge");
+        List<List<Integer>> sccs = new TarjanSCC(graph).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, sccs);
+        ExecutorService pool = Executors.newFixedThreadPool(n);
+        try {
+            for (ExecutorService executor : Arrays.asList(null, pool)) {
+                AtomicInteger started = new AtomicInteger();
+                AtomicInteger ended = new AtomicInteger();
+                List<Runnable> tasks = new ArrayList<>();
+                for (int v = 0; v < n; v++) {
+                    int task = v;
+                    tasks.add(() -> {
+                        started.incrementAndGet();
+                        try {
+                            if (task == 0) {
+                                throw new IllegalStateException("boom");
+                            }
+                            Thread.sleep(5_000);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            ended.incrementAndGet();
+                        }
+                    });
+                }
+                TaskGraphExecutor taskGraph = new TaskGraphExecutor(condensation.getCondensationCSR(), sccs,
+                        new MetricsImpl(), executor, n);
+
+                long start = System.nanoTime();
+                assertThrows(CompletionException.class, () -> taskGraph.run(tasks));
+
+                assertEquals(started.get(), ended.get());
+                assertTrue(System.nanoTime() - start < 4_000_000_000L, "running tasks were interrupted");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectsCyclicDag() {
+        Graph cyclic = new Graph(2, true, "edge");
+        cyclic.addEdge(0, 1, 1);
+        cyclic.addEdge(1, 0, 1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new TaskGraphExecutor(cyclic, List.of(List.of(0), List.of(1))));
+    }
+}
@@ -0,0 +1,104 @@
+package com.smartcity.fixture;
+
+import com.smartcity.common.Graph;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Seeded random directed graphs shared by the tests; not part of the library. A graph is built
+ * from {@code m} edge draws with both endpoints uniform over {@code [0, n)}; draws that an option
+ * rejects (a self-loop in an acyclic graph, a repeated pair with {@link Builder#noParallelEdges()})
+ * are dropped, not retried, so the edge count can be below {@code m}. The same seed and options
+ * always give the same graph.
+ *
+ * <pre>
+ * Graph dag = RandomGraphs.builder(500, 2000).acyclic().weights(1, 9).build(seed);
+ * </pre>
+ */
+public final class RandomGraphs {
+
+    private RandomGraphs() {
+    }
+
+    public static Builder builder(int n, int m) {
+        return new Builder(n, m);
+    }
+
+    public static final class Builder {
+        private final int n;
+        private final int m;
+        private double forward;
+        private boolean acyclic;
+        private boolean noParallelEdges;
+        private int minWeight = 1;
+        private int maxWeight = 1;
+
+        private Builder(int n, int m) {
+            if (n < 1 || m < 0) {
+                throw new IllegalArgumentException("Need n >= 1 and m >= 0, got n=" + n + ", m=" + m);
+            }
+            this.n = n;
+            this.m = m;
+        }
+
+        /** Every edge goes from the lower id to the higher one, so vertex order is topological. */
+        public Builder acyclic() {
+            this.acyclic = true;
+            return this;
+        }
+
+        /**
+         * Orients each edge from the lower id to the higher one with probability {@code fraction},
+         * leaving the rest as drawn: a mostly-forward graph whose condensation keeps many components.
+         */
+        public Builder forwardFraction(double fraction) {
+            if (fraction < 0 || fraction > 1) {
+                throw new IllegalArgumentException("fraction must be in [0, 1], got " + fraction);
+            }
+            this.forward = fraction;
+            return this;
+        }
+
+        /** Edge weights uniform over {@code [min, max]}; all weights are 1 by default. */
+        public Builder weights(int min, int max) {
+            if (min > max) {
+                throw new IllegalArgumentException("Empty weight range [" + min + ", " + max + "]");
+            }
+            this.minWeight = min;
+            this.maxWeight = max;
+            return this;
+        }
+
+        /** At most one edge per ordered pair, so a path is identified by its vertices. */
+        public Builder noParallelEdges() {
+            this.noParallelEdges = true;
+            return this;
+        }
+
+        public Graph build(long seed) {
+            Random random = new Random(seed);
+            Graph graph = new Graph(n, true, "edge");
+            Set<Long> pairs = noParallelEdges ? new HashSet<>() : null;
+            for (int i = 0; i < m; i++) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                if (acyclic && u == v) {
+                    continue;
+                }
+                boolean orient = acyclic || (forward > 0 && random.nextDouble() < forward);
+                if (orient && u > v) {
+                    int t = u;
+                    u = v;
+                    v = t;
+                }
+                if (pairs != null && !pairs.add((long) u * n + v)) {
+                    continue;
+                }
+                graph.addEdge(u, v, minWeight + random.nextInt(maxWeight - minWeight + 1));
+            }
+            return graph;
+        }
+    }
+}
@@ -1,54 +1,273 @@
 package com.smartcity.graph.scc;
 
+import com.smartcity.common.CSRGraph;
 import com.smartcity.common.Graph;
+import com.smartcity.common.GraphView;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+/**
+ * Builds the condensation DAG of a graph given its SCCs, as a {@link CSRGraph}.
+ *
+ * Vertices are bucketed by component (ascending vertex order within each bucket), then each
+ * component's outgoing cross edges are deduplicated with an int mark array stamped by component
+ * id, so no keys or boxed objects are created per edge. Components are processed in parallel
+ * ranges in two passes: count distinct targets, then fill the CSR arrays at prefix-summed offsets.
+ * Edge order per component matches first occurrence in vertex order.
+ *
+ * Once built, the condensation keeps no reference to the input graph or to the bucket arrays,
+ * so holding it (for example in an {@code AnalysisCache}) does not pin the original graph.
+ */
 public class CondensationGraph {
-    private final Graph originalGraph;
-    private final List<List<Integer>> sacs;
+    /** How weights of parallel edges between the same two components are combined. */
+    public enum WeightMerge { FIRST, MIN, MAX, SUM }
+
+    private static final long PARALLEL_EDGE_THRESHOLD = 1 << 16;
+
+    private GraphView originalGraph;    // only while building
+    private final int originalVertices;
+    private final long originalEdges;
+    private final List<List<Integer>> sacs;     // null when built from a component map
+    private final int componentCount;
+    private final WeightMerge merge;
+    private final int parallelism;
+    private CSRGraph condensationCSR;
     private Graph condensation;
-    private int[] componentMap;
+    private final int[] componentMap;
+
+    // Component buckets: members of component c are members[memberStart[c] .. memberStart[c + 1])
+    private int[] memberStart;
+    private int[] members;
+
+    public CondensationGraph(GraphView originalGraph, List<List<Integer>> sacs) {
+        this(originalGraph, sacs, WeightMerge.FIRST);
+    }
+
+    public CondensationGraph(GraphView originalGraph, List<List<Integer>> sacs, WeightMerge merge) {
+        this(originalGraph, sacs, merge, Runtime.getRuntime().availableProcessors());
+    }
 
-    public CondensationGraph(Graph originalGraph, List<List<Integer>> sacs) {
+    public CondensationGraph(GraphView originalGraph, List<List<Integer>> sacs, WeightMerge merge, int parallelism) {
+        this(originalGraph, sacs, componentMap(originalGraph.getN(), sacs), sacs.size(), merge, parallelism);
+    }
+
+    private CondensationGraph(GraphView originalGraph, List<List<Integer>> sacs, int[] componentMap,
+                              int componentCount, WeightMerge merge, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be >= 1");
+        }
         this.originalGraph = originalGraph;
+        this.originalVertices = originalGraph.getN();
+        this.originalEdges = originalGraph.getEdgeCount();
         this.sacs = sacs;
-        buildCondensation();
+        this.componentCount = componentCount;
+        this.merge = merge;
+        this.parallelism = parallelism;
+        this.componentMap = componentMap;
+        try {
+            buildCondensation();
+        } finally {
+            this.originalGraph = null;
+            this.memberStart = null;
+            this.members = null;
+        }
     }
 
-    private void buildCondensation() {
-        int numSCCs = sacs.size();
-        componentMap = new int[originalGraph.getN()];
+    /**
+     * Condensation for a component map such as the one {@link TarjanSCC#findComponents(int[])}
+     * fills, without listing the components first. Component {@code c} of the map becomes vertex
+     * {@code c} of the condensation; {@link #printInfo()} then omits the member lists.
+     */
+    public static CondensationGraph fromComponentMap(GraphView originalGraph, int[] componentMap, int componentCount,
+                                                     WeightMerge merge, int parallelism) {
+        return new CondensationGraph(originalGraph, null, componentMap, componentCount, merge, parallelism);
+    }
 
+    private static int[] componentMap(int n, List<List<Integer>> sacs) {
+        int[] componentMap = new int[n];
         for (int i = 0; i < sacs.size(); i++) {
             for (int v : sacs.get(i)) {
                 componentMap[v] = i;
             }
         }
+        return componentMap;
+    }
 
-        condensation = new Graph(numSCCs, true, originalGraph.getWeightModel());
-        Set<String> addedEdges = new HashSet<>();
+    /** Wraps a condensation maintained elsewhere, such as by {@link IncrementalSCC}. */
+    CondensationGraph(GraphView originalGraph, List<List<Integer>> sacs, WeightMerge merge,
+                      CSRGraph condensationCSR, int[] componentMap) {
+        this.originalVertices = originalGraph.getN();
+        this.originalEdges = originalGraph.getEdgeCount();
+        this.sacs = sacs;
+        this.componentCount = sacs.size();
+        this.merge = merge;
+        this.parallelism = 1;
+        this.condensationCSR = condensationCSR;
+        this.componentMap = componentMap;
+    }
 
-        for (int u = 0; u < originalGraph.getN(); u++) {
-            int compU = componentMap[u];
-            for (Graph.Edge edge : originalGraph.getNeighbors(u)) {
-                int v = edge.to();
-                int compV = componentMap[v];
+    private void buildCondensation() {
+        int n = originalGraph.getN();
+        int numSCCs = componentCount;
 
-                if (compU != compV) {
-                    String edgeKey = compU + "->" + compV;
-                    if (!addedEdges.contains(edgeKey)) {
-                        condensation.addEdge(compU, compV, edge.weight());
-                        addedEdges.add(edgeKey);
+        memberStart = new int[numSCCs + 1];
+        for (int v = 0; v < n; v++) {
+            memberStart[componentMap[v] + 1]++;
+        }
+        for (int c = 0; c < numSCCs; c++) {
+            memberStart[c + 1] += memberStart[c];
+        }
+        members = new int[n];
+        int[] fill = Arrays.copyOf(memberStart, Math.max(numSCCs, 0));
+        for (int v = 0; v < n; v++) {
+            members[fill[componentMap[v]]++] = v;
+        }
+
+        int[] offsets = new int[numSCCs + 1];
+        boolean parallel = parallelism > 1 && originalGraph.getEdgeCount() >= PARALLEL_EDGE_THRESHOLD;
+        ForkJoinPool pool = parallel ? new ForkJoinPool(parallelism) : null;
+        // Stamps are unique per component and pass, so scratch arrays never need clearing
+        // and one pair per worker thread is enough.
+        ThreadLocal<int[]> marks = ThreadLocal.withInitial(() -> new int[numSCCs]);
+        ThreadLocal<int[]> slots = ThreadLocal.withInitial(() -> new int[numSCCs]);
+        try {
+            // Pass 1: distinct target components per component
+            run(pool, new RangeTask(0, numSCCs, grain(numSCCs), offsets, null, null, marks, slots));
+            int total = 0;
+            for (int c = 0; c < numSCCs; c++) {
+                int count = offsets[c];
+                offsets[c] = total;
+                total += count;
+            }
+            offsets[numSCCs] = total;
+
+            // Pass 2: fill targets and merged weights
+            int[] targets = new int[total];
+            int[] weights = new int[total];
+            run(pool, new RangeTask(0, numSCCs, grain(numSCCs), offsets, targets, weights, marks, slots));
+            condensationCSR = new CSRGraph(numSCCs, true, originalGraph.getWeightModel(), offsets, targets, weights);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private int grain(int numSCCs) {
+        return Math.max(64, numSCCs / (parallelism * 8));
+    }
+
+    private void run(ForkJoinPool pool, RangeTask task) {
+        if (pool == null) {
+            task.computeRange(new int[componentCount], new int[componentCount]);
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    /** Processes components {@code [from, to)}; counts when {@code targets} is null, fills otherwise. */
+    private final class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] weights;
+        private final boolean countOnly;
+        private final ThreadLocal<int[]> marks;
+        private final ThreadLocal<int[]> slots;
+
+        RangeTask(int from, int to, int grain, int[] offsets, int[] targets, int[] weights,
+                  ThreadLocal<int[]> marks, ThreadLocal<int[]> slots) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.countOnly = targets == null;
+            this.marks = marks;
+            this.slots = slots;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeTask(from, mid, grain, offsets, targets, weights, marks, slots),
+                          new RangeTask(mid, to, grain, offsets, targets, weights, marks, slots));
+                return;
+            }
+            computeRange(marks.get(), slots.get());
+        }
+
+        void computeRange(int[] mark, int[] slot) {
+            GraphView.EdgeCursor cursor = originalGraph.cursor();
+            for (int c = from; c < to; c++) {
+                // Pass 1 stamps c + 1, pass 2 stamps -(c + 1)
+                int stamp = countOnly ? c + 1 : -(c + 1);
+                int count = 0;
+                int base = countOnly ? 0 : offsets[c];
+                for (int k = memberStart[c]; k < memberStart[c + 1]; k++) {
+                    int u = members[k];
+                    for (cursor.reset(u); cursor.hasNext(); ) {
+                        int t = componentMap[cursor.next()];
+                        if (t == c) {
+                            continue;
+                        }
+                        if (mark[t] != stamp) {
+                            mark[t] = stamp;
+                            if (!countOnly) {
+                                slot[t] = base + count;
+                                targets[base + count] = t;
+                                weights[base + count] = cursor.weight();
+                            }
+                            count++;
+                        } else if (!countOnly) {
+                            int e = slot[t];
+                            weights[e] = mergeWeight(weights[e], cursor.weight());
+                        }
                     }
                 }
+                if (countOnly) {
+                    offsets[c] = count;
+                }
             }
         }
     }
 
+    private int mergeWeight(int current, int next) {
+        return switch (merge) {
+            case FIRST -> current;
+            case MIN -> Math.min(current, next);
+            case MAX -> Math.max(current, next);
+            case SUM -> current + next;
+        };
+    }
+
+    /** The condensation DAG in primitive CSR form. */
+    public CSRGraph getCondensationCSR() {
+        return condensationCSR;
+    }
+
+    /** The condensation as a {@link Graph}; materialized on first call. */
     public Graph getCondensation() {
+        if (condensation == null) {
+            condensation = new Graph(condensationCSR.getN(), true, condensationCSR.getWeightModel());
+            for (int c = 0; c < condensationCSR.getN(); c++) {
+                for (int e = condensationCSR.edgeStart(c); e < condensationCSR.edgeEnd(c); e++) {
+                    condensation.addEdge(c, condensationCSR.edgeTarget(e), condensationCSR.edgeWeight(e));
+                }
+            }
+        }
         return condensation;
     }
 
+    public WeightMerge getWeightMerge() {
+        return merge;
+    }
+
     public int[] getComponentMap() {
         return componentMap;
     }
@@ -59,21 +278,24 @@ public class CondensationGraph {
 
     public void printInfo() {
         System.out.println("\n=== Condensation Graph ===");
-        System.out.println("Original vertices: " + originalGraph.getN());
-        System.out.println("Components: " + sacs.size());
-        System.out.println("Original edges: " + originalGraph.getAllEdges().size());
-        System.out.println("Condensation edges: " + condensation.getAllEdges().size());
+        System.out.println("Original vertices: " + originalVertices);
+        System.out.println("Components: " + componentCount);
+        System.out.println("Original edges: " + originalEdges);
+        System.out.println("Condensation edges: " + condensationCSR.getEdgeCount());
 
-        System.out.println("\nComponent details:");
-        for (int i = 0; i < sacs.size(); i++) {
-            System.out.println("Component " + i + ": " + sacs.get(i));
+        if (sacs != null) {
+            System.out.println("\nComponent details:");
+            for (int i = 0; i < sacs.size(); i++) {
+                System.out.println("Component " + i + ": " + sacs.get(i));
+            }
         }
 
         System.out.println("\nCondensation edges:");
-        for (int u = 0; u < condensation.getN(); u++) {
-            for (Graph.Edge e : condensation.getNeighbors(u)) {
-                System.out.println("  " + u + " -> " + e.to() + " (weight: " + e.weight() + ")");
+        for (int u = 0; u < condensationCSR.getN(); u++) {
+            for (int e = condensationCSR.edgeStart(u); e < condensationCSR.edgeEnd(u); e++) {
+                System.out.println("  " + u + " -> " + condensationCSR.edgeTarget(e)
+                        + " (weight: " + condensationCSR.edgeWeight(e) + ")");
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.fixture.RandomGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CondensationGraphTest {
+
+    // {0,1} and {2,3} are SCCs; three parallel cross edges 1->2, 0->3, 1->3 plus 3->4
+    private static Graph twoCycles() {
+        Graph graph = new Graph(5, true, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 2, 1);
+        graph.addEdge(1, 2, 7);
+        graph.addEdge(0, 3, 4);
+        graph.addEdge(1, 3, 9);
+        graph.addEdge(3, 4, 2);
+        return graph;
+    }
+
+    private static CSRGraph condense(Graph graph, CondensationGraph.WeightMerge merge) {
+        List<List<Integer>> sccs = new TarjanSCC(graph).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, sccs, merge, 1);
+        return condensation.getCondensationCSR();
+    }
+
+    private static int weightBetween(Graph graph, CondensationGraph.WeightMerge merge, int u, int v) {
+        List<List<Integer>> sccs = new TarjanSCC(graph).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, sccs, merge, 1);
+        CSRGraph dag = condensation.getCondensationCSR();
+        int cu = condensation.getComponent(u);
+        int cv = condensation.getComponent(v);
+        for (int e = dag.edgeStart(cu); e < dag.edgeEnd(cu); e++) {
+            if (dag.edgeTarget(e) == cv) {
+                return dag.edgeWeight(e);
+            }
+        }
+        fail("no edge " + cu + " -> " + cv);
+        return -1;
+    }
+
+    @Test
+    public void testParallelEdgesAreDeduplicated() {
+        CSRGraph dag = condense(twoCycles(), CondensationGraph.WeightMerge.FIRST);
+
+        assertEquals(3, dag.getN());
+        assertEquals(2, dag.getEdgeCount());
+    }
+
+    @Test
+    public void testWeightMergePolicies() {
+        Graph graph = twoCycles();
+
+        // First occurrence in vertex order is 0->3 (weight 4)
+        assertEquals(4, weightBetween(graph, CondensationGraph.WeightMerge.FIRST, 0, 2));
+        assertEquals(4, weightBetween(graph, CondensationGraph.WeightMerge.MIN, 0, 2));
+        assertEquals(9, weightBetween(graph, CondensationGraph.WeightMerge.MAX, 0, 2));
+        assertEquals(20, weightBetween(graph, CondensationGraph.WeightMerge.SUM, 0, 2));
+        assertEquals(2, weightBetween(graph, CondensationGraph.WeightMerge.SUM, 3, 4));
+    }
+
+    @Test
+    public void testGraphViewMatchesCSR() {
+        Graph graph = twoCycles();
+        List<List<Integer>> sccs = new TarjanSCC(graph).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, sccs);
+
+        Graph dag = condensation.getCondensation();
+        CSRGraph csr = condensation.getCondensationCSR();
+
+        assertEquals(csr.getN(), dag.getN());
+        for (int u = 0; u < dag.getN(); u++) {
+            assertEquals(csr.outDegree(u), dag.outDegree(u));
+            for (int i = 0; i < dag.outDegree(u); i++) {
+                assertEquals(csr.target(u, i), dag.target(u, i));
+                assertEquals(csr.weight(u, i), dag.weight(u, i));
+            }
+        }
+    }
+
+    @Test
+    public void testParallelBuildMatchesSequential() {
+        Graph graph = RandomGraphs.builder(40000, 120000).weights(1, 10).build(42);
+        List<List<Integer>> sccs = new TarjanSCC(graph).findSCCs();
+
+        CSRGraph sequential = new CondensationGraph(graph, sccs, CondensationGraph.WeightMerge.SUM, 1)
+                .getCondensationCSR();
+        CSRGraph parallel = new CondensationGraph(graph, sccs, CondensationGraph.WeightMerge.SUM, 4)
+                .getCondensationCSR();
+
+        assertArrayEquals(sequential.getOffsets(), parallel.getOffsets());
+        assertArrayEquals(sequential.getTargets(), parallel.getTargets());
+        assertArrayEquals(sequential.getWeights(), parallel.getWeights());
+    }
+}
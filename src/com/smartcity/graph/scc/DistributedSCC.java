@@ -0,0 +1,475 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.GraphView;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.NoOpMetrics;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * SCC map and condensation order computed by partition across worker processes.
+ *
+ * The coordinator splits the vertices into partitions, either by contiguous ID range balanced on
+ * vertices plus edges, or by refining that split with label propagation toward a smaller edge
+ * cut. Each worker ({@link DistributedSCCWorker}) receives the edges induced by its partition
+ * over a loopback socket, streamed from the {@link GraphView} without building a copy on the
+ * coordinator, runs Tarjan on them and numbers its components in topological order.
+ *
+ * Only components that hold an endpoint of a cut edge can merge across partitions, so workers
+ * return just those boundary components plus which of them reach which others locally. The
+ * coordinator runs Tarjan on that boundary graph, with the cut edges added, and sends each worker
+ * the global topological rank of its boundary components. Every other component keeps its local
+ * id and slots in after the highest-ranked boundary SCC that reaches it; when it also reaches
+ * that SCC it lies on one of its cycles and joins it. Components are numbered in topological
+ * order of the global condensation, as in {@link ExternalSCC}.
+ *
+ * Counters: {@code partition_cut_edges}, {@code merge_nodes}, {@code merge_edges},
+ * {@code merge_micros}, {@code bytes_sent} and {@code bytes_received}.
+ */
+public final class DistributedSCC {
+    private static final double MAX_IMBALANCE = 0.05;
+    private static final int REFINE_PASSES = 8;
+
+    public enum Partitioning { RANGE, MIN_CUT }
+
+    private final int partitions;
+    private final Partitioning partitioning;
+    private final boolean workerProcesses;
+    private final List<String> workerJvmArgs;
+    private final int timeoutMillis;
+    private final Metrics metrics;
+
+    private DistributedSCC(Builder builder) {
+        this.partitions = builder.partitions;
+        this.partitioning = builder.partitioning;
+        this.workerProcesses = builder.workerProcesses;
+        this.workerJvmArgs = builder.workerJvmArgs;
+        this.timeoutMillis = builder.timeoutMillis;
+        this.metrics = builder.metrics;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Result run(GraphView graph) throws IOException {
+        int n = graph.getN();
+        int p = Math.max(1, Math.min(partitions, n));
+        int[] partOf = partitioning == Partitioning.RANGE ? rangePartition(graph, p) : minCutPartition(graph, p);
+
+        // Local ids are ranks within the partition, in global id order
+        int[] sizes = new int[p];
+        int[] localId = new int[n];
+        for (int v = 0; v < n; v++) {
+            localId[v] = sizes[partOf[v]]++;
+        }
+        long[] internalEdges = new long[p];
+        long cutEdges = 0;
+        boolean[] onCut = new boolean[n];
+        GraphView.EdgeCursor cursor = graph.cursor();
+        for (int u = 0; u < n; u++) {
+            for (cursor.reset(u); cursor.hasNext(); ) {
+                int v = cursor.next();
+                if (partOf[v] == partOf[u]) {
+                    internalEdges[partOf[u]]++;
+                } else {
+                    cutEdges++;
+                    onCut[u] = true;
+                    onCut[v] = true;
+                }
+            }
+        }
+        metrics.addCounter("partition_cut_edges", cutEdges);
+
+        metrics.startTimer();
+        int[] componentOf = new int[n];
+        int[] boundaryOf = new int[n];
+        int[] base = new int[p + 1];
+        long[] workerNanos = new long[p];
+        int components;
+        int mergeEdges;
+        long mergeNanos;
+        List<Process> processes = new ArrayList<>();
+        List<Socket> sockets = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, p, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(timeoutMillis);
+            for (int i = 0; i < p; i++) {
+                startWorker(server.getLocalPort(), processes);
+            }
+            for (int i = 0; i < p; i++) {
+                Socket socket = server.accept();
+                socket.setSoTimeout(timeoutMillis);
+                sockets.add(socket);
+            }
+            List<DataInputStream> ins = new ArrayList<>();
+            List<DataOutputStream> outs = new ArrayList<>();
+            for (Socket socket : sockets) {
+                ins.add(new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16)));
+                outs.add(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16)));
+            }
+            for (int i = 0; i < p; i++) {
+                sendTask(outs.get(i), i, sizes[i], internalEdges[i], partOf, localId, onCut, graph);
+            }
+
+            // Boundary components of every partition, and the local reachability between them
+            DataInputStream[] byPart = new DataInputStream[p];
+            int[] componentCounts = new int[p];
+            long[][] reach = new long[p][];
+            for (DataInputStream in : ins) {
+                if (in.readInt() != DistributedSCCWorker.BOUNDARY_MAGIC) {
+                    throw new IOException("Not a DistributedSCC boundary reply");
+                }
+                int part = in.readInt();
+                byPart[part] = in;
+                componentCounts[part] = in.readInt();
+                base[part + 1] = in.readInt();
+                long boundaryVertices = 0;
+                for (int v = 0; v < n; v++) {
+                    if (partOf[v] == part && onCut[v]) {
+                        boundaryOf[v] = in.readInt();
+                        boundaryVertices++;
+                    }
+                }
+                reach[part] = new long[in.readInt()];
+                for (int r = 0; r < reach[part].length; r++) {
+                    reach[part][r] = (long) in.readInt() << 32 | (in.readInt() & 0xFFFFFFFFL);
+                }
+                metrics.addCounter("bytes_received", 16L + 4L * boundaryVertices + 4L + 8L * reach[part].length);
+            }
+
+            long mergeStart = System.nanoTime();
+            for (int i = 0; i < p; i++) {
+                base[i + 1] += base[i];
+            }
+            CSRGraph.Builder boundary = CSRGraph.builder(base[p], true, "edge");
+            for (int i = 0; i < p; i++) {
+                for (long edge : reach[i]) {
+                    boundary.addEdge(base[i] + (int) (edge >>> 32), base[i] + (int) edge, 0);
+                }
+            }
+            for (int u = 0; u < n; u++) {
+                for (cursor.reset(u); cursor.hasNext(); ) {
+                    int v = cursor.next();
+                    if (partOf[v] != partOf[u]) {
+                        boundary.addEdge(base[partOf[u]] + boundaryOf[u], base[partOf[v]] + boundaryOf[v], 0);
+                    }
+                }
+            }
+            mergeEdges = boundary.size();
+            int[] merged = new int[base[p]];
+            int boundarySccs = new TarjanSCC(boundary.build(), NoOpMetrics.INSTANCE).findComponents(merged);
+            mergeNanos = System.nanoTime() - mergeStart;
+
+            for (int i = 0; i < p; i++) {
+                DataOutputStream out = outs.get(i);
+                out.writeInt(DistributedSCCWorker.RANKS_MAGIC);
+                for (int b = base[i]; b < base[i + 1]; b++) {
+                    out.writeInt(boundarySccs - 1 - merged[b]);
+                }
+                out.flush();
+                metrics.addCounter("bytes_sent", 4L + 4L * (base[i + 1] - base[i]));
+            }
+
+            // Positions interleave boundary SCCs (odd) with the other components after each of
+            // them (even); within a position, partitions and then local topological ids decide
+            int[][] position = new int[p][];
+            int[] count = new int[2 * boundarySccs + 1];
+            for (int part = 0; part < p; part++) {
+                DataInputStream in = byPart[part];
+                if (in.readInt() != DistributedSCCWorker.RESULT_MAGIC || in.readInt() != part) {
+                    throw new IOException("Not a DistributedSCC result");
+                }
+                position[part] = new int[componentCounts[part]];
+                for (int c = 0; c < componentCounts[part]; c++) {
+                    int at = in.readInt();
+                    position[part][c] = at;
+                    if (at % 2 == 0) {
+                        count[at]++;
+                    }
+                }
+            }
+            int[] next = new int[count.length];
+            components = 0;
+            for (int at = 0; at < count.length; at++) {
+                next[at] = components;
+                components += at % 2 == 1 ? 1 : count[at];
+            }
+            int[][] global = new int[p][];
+            for (int part = 0; part < p; part++) {
+                global[part] = new int[componentCounts[part]];
+                for (int c = 0; c < componentCounts[part]; c++) {
+                    int at = position[part][c];
+                    global[part][c] = at % 2 == 1 ? next[at] : next[at]++;
+                }
+            }
+            // Local ids follow global id order, so each reply's vertex section is read as a stream
+            for (int v = 0; v < n; v++) {
+                componentOf[v] = global[partOf[v]][byPart[partOf[v]].readInt()];
+            }
+            for (int part = 0; part < p; part++) {
+                workerNanos[part] = byPart[part].readLong();
+                metrics.addCounter("bytes_received", 16L + 4L * componentCounts[part] + 4L * sizes[part]);
+            }
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+        metrics.stopTimer();
+
+        metrics.addCounter("merge_nodes", base[p]);
+        metrics.addCounter("merge_edges", mergeEdges);
+        metrics.addCounter("merge_micros", mergeNanos / 1000);
+        return new Result(componentOf, components, sizes, internalEdges, cutEdges, base[p], mergeEdges,
+                mergeNanos, workerNanos);
+    }
+
+    private void startWorker(int port, List<Process> processes) throws IOException {
+        if (!workerProcesses) {
+            Thread thread = new Thread(() -> {
+                try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                    DistributedSCCWorker.serve(socket);
+                } catch (IOException e) {
+                    // The coordinator sees the closed socket and fails the run
+                }
+            }, "scc-worker");
+            thread.setDaemon(true);
+            thread.start();
+            return;
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(workerJvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(DistributedSCCWorker.class.getName());
+        command.add(Integer.toString(port));
+        processes.add(new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start());
+    }
+
+    /** Streams the partition's internal edges, then its vertices that touch a cut edge, in local ids. */
+    private void sendTask(DataOutputStream out, int part, int size, long edges, int[] partOf, int[] localId,
+                          boolean[] onCut, GraphView graph) throws IOException {
+        if (edges > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Partition " + part + " has too many edges; use more partitions");
+        }
+        out.writeInt(DistributedSCCWorker.TASK_MAGIC);
+        out.writeInt(part);
+        out.writeInt(size);
+        out.writeInt((int) edges);
+        GraphView.EdgeCursor cursor = graph.cursor();
+        for (int u = 0; u < graph.getN(); u++) {
+            if (partOf[u] != part) {
+                continue;
+            }
+            for (cursor.reset(u); cursor.hasNext(); ) {
+                int v = cursor.next();
+                if (partOf[v] == part) {
+                    out.writeInt(localId[u]);
+                    out.writeInt(localId[v]);
+                }
+            }
+        }
+        int boundary = 0;
+        for (int v = 0; v < graph.getN(); v++) {
+            if (partOf[v] == part && onCut[v]) {
+                boundary++;
+            }
+        }
+        out.writeInt(boundary);
+        for (int v = 0; v < graph.getN(); v++) {
+            if (partOf[v] == part && onCut[v]) {
+                out.writeInt(localId[v]);
+            }
+        }
+        out.flush();
+        metrics.addCounter("bytes_sent", 20L + 8L * edges + 4L * boundary);
+    }
+
+    /** Contiguous ranges with about the same number of vertices plus edges in each. */
+    static int[] rangePartition(GraphView graph, int p) {
+        int n = graph.getN();
+        long total = n;
+        for (int v = 0; v < n; v++) {
+            total += graph.outDegree(v);
+        }
+        int[] partOf = new int[n];
+        long work = 0;
+        for (int v = 0; v < n; v++) {
+            partOf[v] = (int) Math.min(p - 1, work * p / total);
+            work += 1 + graph.outDegree(v);
+        }
+        return partOf;
+    }
+
+    /**
+     * Label propagation from the range split: each vertex moves to the partition holding most of
+     * its out-neighbours, as long as that partition stays within 5% of the average size. Edges
+     * are read through one cursor per pass, so the coordinator needs no reverse adjacency.
+     */
+    static int[] minCutPartition(GraphView graph, int p) {
+        int[] partOf = rangePartition(graph, p);
+        int n = graph.getN();
+        int capacity = (int) Math.ceil((double) n / p * (1 + MAX_IMBALANCE));
+        int[] size = new int[p];
+        for (int v = 0; v < n; v++) {
+            size[partOf[v]]++;
+        }
+        int[] score = new int[p];
+        int[] touched = new int[p];
+        GraphView.EdgeCursor cursor = graph.cursor();
+        for (int pass = 0; pass < REFINE_PASSES; pass++) {
+            int moves = 0;
+            for (int v = 0; v < n; v++) {
+                int count = 0;
+                for (cursor.reset(v); cursor.hasNext(); ) {
+                    int q = partOf[cursor.next()];
+                    if (score[q]++ == 0) {
+                        touched[count++] = q;
+                    }
+                }
+                int current = partOf[v];
+                int best = current;
+                for (int i = 0; i < count; i++) {
+                    int q = touched[i];
+                    if (score[q] > score[best] && size[q] < capacity) {
+                        best = q;
+                    }
+                }
+                for (int i = 0; i < count; i++) {
+                    score[touched[i]] = 0;
+                }
+                if (best != current) {
+                    size[current]--;
+                    size[best]++;
+                    partOf[v] = best;
+                    moves++;
+                }
+            }
+            if (moves == 0) {
+                break;
+            }
+        }
+        return partOf;
+    }
+
+    /**
+     * Global components numbered in topological order of the condensation, plus the partition
+     * and merge statistics of the run.
+     */
+    public record Result(int[] componentOf, int componentCount, int[] partitionSizes, long[] partitionEdges,
+                         long cutEdges, int mergeNodes, long mergeEdges, long mergeNanos, long[] workerNanos) {
+
+        /** Largest partition over the average, by vertices; 1.0 is a perfect split. */
+        public double vertexBalance() {
+            return balance(Arrays.stream(partitionSizes).asLongStream().toArray());
+        }
+
+        /** Largest partition over the average, by internal edges. */
+        public double edgeBalance() {
+            return balance(partitionEdges);
+        }
+
+        private static double balance(long[] loads) {
+            long max = 0;
+            long sum = 0;
+            for (long load : loads) {
+                max = Math.max(max, load);
+                sum += load;
+            }
+            return sum == 0 ? 1.0 : (double) max * loads.length / sum;
+        }
+
+        /** Vertices ordered by component, so every edge between components points forward. */
+        public int[] taskOrder() {
+            int[] start = new int[componentCount + 1];
+            for (int c : componentOf) {
+                start[c + 1]++;
+            }
+            for (int c = 0; c < componentCount; c++) {
+                start[c + 1] += start[c];
+            }
+            int[] order = new int[componentOf.length];
+            for (int v = 0; v < componentOf.length; v++) {
+                order[start[componentOf[v]]++] = v;
+            }
+            return order;
+        }
+
+        public void printReport() {
+            System.out.println("\n=== Distributed SCC ===");
+            System.out.println("Components: " + componentCount + ", partitions: " + partitionSizes.length);
+            System.out.printf("Balance: vertices %.2f, edges %.2f; cut edges: %d%n", vertexBalance(), edgeBalance(), cutEdges);
+            System.out.printf("Merge: %d nodes, %d edges, %.3f ms%n", mergeNodes, mergeEdges, mergeNanos / 1e6);
+            for (int i = 0; i < workerNanos.length; i++) {
+                System.out.printf("Worker %d: %d vertices, %d edges, %.3f ms%n",
+                        i, partitionSizes[i], partitionEdges[i], workerNanos[i] / 1e6);
+            }
+        }
+    }
+
+    public static final class Builder {
+        private int partitions = Runtime.getRuntime().availableProcessors();
+        private Partitioning partitioning = Partitioning.RANGE;
+        private boolean workerProcesses = true;
+        private List<String> workerJvmArgs = List.of();
+        private int timeoutMillis = 120_000;
+        private Metrics metrics = new MetricsImpl();
+
+        private Builder() {
+        }
+
+        public Builder partitions(int partitions) {
+            if (partitions < 1) {
+                throw new IllegalArgumentException("partitions must be >= 1");
+            }
+            this.partitions = partitions;
+            return this;
+        }
+
+        public Builder partitioning(Partitioning partitioning) {
+            this.partitioning = partitioning;
+            return this;
+        }
+
+        /** Separate JVMs per partition (the default), or worker threads talking over the same sockets. */
+        public Builder workerProcesses(boolean workerProcesses) {
+            this.workerProcesses = workerProcesses;
+            return this;
+        }
+
+        /** Extra JVM options for worker processes, such as {@code -Xmx}. */
+        public Builder workerJvmArgs(String... args) {
+            this.workerJvmArgs = List.of(args);
+            return this;
+        }
+
+        /** How long to wait for a worker to connect or answer. */
+        public Builder timeoutMillis(int timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        public Builder metrics(Metrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public DistributedSCC build() {
+            return new DistributedSCC(this);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.fixture.RandomGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistributedSCCTest {
+
+    /** Dense clusters of {@code clusterSize} vertices whose IDs are shuffled across the range. */
+    private static Graph shuffledClusters(int clusters, int clusterSize, long seed) {
+        Random random = new Random(seed);
+        int n = clusters * clusterSize;
+        List<Integer> ids = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            ids.add(v);
+        }
+        Collections.shuffle(ids, random);
+        Graph graph = new Graph(n, true, "edge");
+        for (int c = 0; c < clusters; c++) {
+            for (int i = 0; i < 4 * clusterSize; i++) {
+                int u = ids.get(c * clusterSize + random.nextInt(clusterSize));
+                int v = ids.get(c * clusterSize + random.nextInt(clusterSize));
+                graph.addEdge(u, v, 1);
+            }
+            graph.addEdge(ids.get(c * clusterSize), ids.get(random.nextInt(n)), 1);
+        }
+        return graph;
+    }
+
+    private static void assertMatchesTarjan(Graph graph, DistributedSCC.Result result) {
+        Set<Set<Integer>> expected = new HashSet<>();
+        for (List<Integer> scc : new TarjanSCC(graph).findSCCs()) {
+            expected.add(new HashSet<>(scc));
+        }
+        Map<Integer, Set<Integer>> actual = new HashMap<>();
+        for (int v = 0; v < graph.getN(); v++) {
+            actual.computeIfAbsent(result.componentOf()[v], c -> new HashSet<>()).add(v);
+        }
+        assertEquals(expected, new HashSet<>(actual.values()));
+        assertEquals(expected.size(), result.componentCount());
+        for (int u = 0; u < graph.getN(); u++) {
+            for (int i = 0; i < graph.outDegree(u); i++) {
+                assertTrue(result.componentOf()[u] <= result.componentOf()[graph.target(u, i)]);
+            }
+        }
+    }
+
+    @Test
+    public void testWorkerThreadsMatchTarjan() throws IOException {
+        for (DistributedSCC.Partitioning partitioning : DistributedSCC.Partitioning.values()) {
+            for (long seed = 0; seed < 3; seed++) {
+                Graph graph = RandomGraphs.builder(1500, 1900).weights(1, 9).build(seed);
+                Metrics metrics = new MetricsImpl();
+                DistributedSCC.Result result = DistributedSCC.builder().partitions(4).partitioning(partitioning)
+                        .workerProcesses(false).metrics(metrics).build().run(graph);
+
+                assertMatchesTarjan(graph, result);
+                assertEquals(1500, Arrays.stream(result.partitionSizes()).sum());
+                assertEquals(graph.getEdgeCount(), Arrays.stream(result.partitionEdges()).sum() + result.cutEdges());
+                assertEquals(result.cutEdges(), metrics.getCounter("partition_cut_edges"));
+                assertTrue(metrics.getCounter("bytes_sent") > 0);
+
+                int[] order = result.taskOrder();
+                for (int i = 1; i < order.length; i++) {
+                    assertTrue(result.componentOf()[order[i - 1]] <= result.componentOf()[order[i]]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWorkerProcessesMatchTarjan() throws IOException {
+        Graph graph = RandomGraphs.builder(3000, 3900).weights(1, 9).build(42);
+        DistributedSCC.Result result = DistributedSCC.builder().partitions(3).workerJvmArgs("-Xmx64m")
+                .timeoutMillis(60_000).build().run(graph);
+
+        assertMatchesTarjan(graph, result);
+        assertEquals(3, result.workerNanos().length);
+        assertTrue(result.vertexBalance() < 1.5);
+    }
+
+    @Test
+    public void testMergeSeesOnlyBoundaryComponents() throws IOException {
+        // One ring through every partition, with a local DAG hanging off each ring vertex
+        int ring = 400;
+        Graph graph = new Graph(2 * ring, true, "edge");
+        for (int v = 0; v < ring; v++) {
+            graph.addEdge(2 * v, 2 * ((v + 1) % ring), 1);
+            graph.addEdge(2 * v, 2 * v + 1, 1);
+        }
+        DistributedSCC.Result result = DistributedSCC.builder().partitions(4).workerProcesses(false).build()
+                .run(graph);
+
+        assertMatchesTarjan(graph, result);
+        assertEquals(ring + 1, result.componentCount());
+        assertEquals(8, result.mergeNodes());
+        assertEquals(4, result.cutEdges());
+    }
+
+    @Test
+    public void testMinCutKeepsClustersTogether() {
+        CSRGraph graph = CSRGraph.fromGraph(shuffledClusters(8, 200, 5));
+        int[] range = DistributedSCC.rangePartition(graph, 4);
+        int[] refined = DistributedSCC.minCutPartition(graph, 4);
+
+        assertTrue(cut(graph, refined) < cut(graph, range) / 2,
+                "cut " + cut(graph, refined) + " vs " + cut(graph, range));
+        int[] sizes = new int[4];
+        for (int part : refined) {
+            sizes[part]++;
+        }
+        for (int size : sizes) {
+            assertTrue(size <= Math.ceil(1600 / 4.0 * 1.05));
+        }
+    }
+
+    private static long cut(CSRGraph graph, int[] partOf) {
+        long cut = 0;
+        for (int u = 0; u < graph.getN(); u++) {
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                if (partOf[u] != partOf[graph.edgeTarget(e)]) {
+                    cut++;
+                }
+            }
+        }
+        return cut;
+    }
+}
@@ -0,0 +1,248 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.NoOpMetrics;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Worker side of {@link DistributedSCC}: receives one partition, runs {@link TarjanSCC} on the
+ * subgraph induced by it and numbers the local components in topological order. Only the
+ * boundary components, those holding an endpoint of a cut edge, go back to the coordinator,
+ * together with which boundary components reach which others inside the partition. Once the
+ * coordinator has ranked the boundary components globally, the worker places every local
+ * component relative to those ranks and returns the per-vertex map. Run as a process with
+ * {@code <port>} to connect to a coordinator on the loopback interface, or in-process through
+ * {@link #serve(Socket)}.
+ *
+ * Messages are big-endian, as written by {@link DataOutputStream}:
+ *
+ * <pre>
+ * task:     int magic, int partition, int n, int m, m x (int u, int v),   local vertex ids
+ *           int b, b x int vertex                                           boundary vertices
+ * boundary: int magic, int partition, int components, int k,
+ *           b x int boundary component, int r, r x (int from, int to)      boundary component ids
+ * ranks:    int magic, k x int rank                                         global topological rank
+ * result:   int magic, int partition, components x int position, n x int component,
+ *           long computeNanos
+ * </pre>
+ *
+ * A position is {@code 2 * rank + 1} for a component that belongs to the boundary SCC of that
+ * rank, and {@code 2 * (rank + 1)} for a component that is an SCC of its own and sits after the
+ * boundary SCC of that rank, or before all of them for rank -1.
+ */
+public final class DistributedSCCWorker {
+    static final int TASK_MAGIC = 0x5343_4354;     // "SCCT"
+    static final int BOUNDARY_MAGIC = 0x5343_4342; // "SCCB"
+    static final int RANKS_MAGIC = 0x5343_434B;    // "SCCK"
+    static final int RESULT_MAGIC = 0x5343_4352;   // "SCCR"
+
+    private DistributedSCCWorker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: DistributedSCCWorker <coordinator port>");
+            System.exit(2);
+        }
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]))) {
+            serve(socket);
+        }
+    }
+
+    /** Handles exactly one task on {@code socket}. */
+    public static void serve(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        if (in.readInt() != TASK_MAGIC) {
+            throw new IOException("Not a DistributedSCC task");
+        }
+        int partition = in.readInt();
+        int n = in.readInt();
+        int m = in.readInt();
+        CSRGraph.Builder builder = CSRGraph.builder(n, true, "edge");
+        for (int e = 0; e < m; e++) {
+            builder.addEdge(in.readInt(), in.readInt(), 0);
+        }
+        int[] boundaryVertices = new int[in.readInt()];
+        for (int i = 0; i < boundaryVertices.length; i++) {
+            boundaryVertices[i] = in.readInt();
+        }
+
+        long start = System.nanoTime();
+        CSRGraph local = builder.build();
+        int[] componentOf = new int[n];
+        int components = new TarjanSCC(local, NoOpMetrics.INSTANCE).findComponents(componentOf);
+        // Tarjan emits sink components first; reversing the numbering gives topological order
+        for (int v = 0; v < n; v++) {
+            componentOf[v] = components - 1 - componentOf[v];
+        }
+        CSRGraph condensation = condensation(local, componentOf, components);
+        int[] boundaryOf = new int[components];
+        Arrays.fill(boundaryOf, -1);
+        for (int v : boundaryVertices) {
+            boundaryOf[componentOf[v]] = 0;
+        }
+        int k = 0;
+        for (int c = 0; c < components; c++) {
+            if (boundaryOf[c] == 0) {
+                boundaryOf[c] = k++;
+            }
+        }
+        int[] boundary = new int[k];
+        for (int c = 0; c < components; c++) {
+            if (boundaryOf[c] >= 0) {
+                boundary[boundaryOf[c]] = c;
+            }
+        }
+        long[] reach = boundaryReach(condensation, boundary, boundaryOf);
+        long computeNanos = System.nanoTime() - start;
+
+        out.writeInt(BOUNDARY_MAGIC);
+        out.writeInt(partition);
+        out.writeInt(components);
+        out.writeInt(k);
+        for (int v : boundaryVertices) {
+            out.writeInt(boundaryOf[componentOf[v]]);
+        }
+        out.writeInt(reach.length);
+        for (long edge : reach) {
+            out.writeInt((int) (edge >>> 32));
+            out.writeInt((int) edge);
+        }
+        out.flush();
+
+        if (in.readInt() != RANKS_MAGIC) {
+            throw new IOException("Not a DistributedSCC rank message");
+        }
+        int[] rank = new int[k];
+        for (int i = 0; i < k; i++) {
+            rank[i] = in.readInt();
+        }
+        start = System.nanoTime();
+        int[] position = positions(condensation, boundary, rank);
+        computeNanos += System.nanoTime() - start;
+
+        out.writeInt(RESULT_MAGIC);
+        out.writeInt(partition);
+        for (int c = 0; c < components; c++) {
+            out.writeInt(position[c]);
+        }
+        for (int v = 0; v < n; v++) {
+            out.writeInt(componentOf[v]);
+        }
+        out.writeLong(computeNanos);
+        out.flush();
+    }
+
+    /** Deduplicated local condensation; every edge points from a lower to a higher component id. */
+    static CSRGraph condensation(CSRGraph graph, int[] componentOf, int components) {
+        CSRGraph.Builder builder = CSRGraph.builder(components, true, "edge");
+        for (long edge : condensationEdges(graph, componentOf)) {
+            builder.addEdge((int) (edge >>> 32), (int) edge, 0);
+        }
+        return builder.build();
+    }
+
+    /** Distinct component pairs joined by an edge, packed {@code from << 32 | to}. */
+    static long[] condensationEdges(CSRGraph graph, int[] componentOf) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        long[] edges = new long[targets.length];
+        int count = 0;
+        for (int u = 0; u < graph.getN(); u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int from = componentOf[u];
+                int to = componentOf[targets[e]];
+                if (from != to) {
+                    edges[count++] = (long) from << 32 | to;
+                }
+            }
+        }
+        Arrays.sort(edges, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || edges[unique - 1] != edges[i]) {
+                edges[unique++] = edges[i];
+            }
+        }
+        return Arrays.copyOf(edges, unique);
+    }
+
+    /**
+     * For each boundary component, the boundary components it reaches without passing another
+     * one, packed {@code from << 32 | to}. Their transitive closure is the local reachability
+     * between boundary components.
+     */
+    static long[] boundaryReach(CSRGraph condensation, int[] boundary, int[] boundaryOf) {
+        int[] offsets = condensation.getOffsets();
+        int[] targets = condensation.getTargets();
+        int[] seen = new int[condensation.getN()];
+        int[] stack = new int[condensation.getN()];
+        long[] edges = new long[16];
+        int count = 0;
+        for (int b = 0; b < boundary.length; b++) {
+            int top = 0;
+            stack[top++] = boundary[b];
+            seen[boundary[b]] = b + 1;
+            while (top > 0) {
+                int c = stack[--top];
+                for (int e = offsets[c]; e < offsets[c + 1]; e++) {
+                    int d = targets[e];
+                    if (seen[d] == b + 1) {
+                        continue;
+                    }
+                    seen[d] = b + 1;
+                    if (boundaryOf[d] >= 0) {
+                        if (count == edges.length) {
+                            edges = Arrays.copyOf(edges, 2 * count);
+                        }
+                        edges[count++] = (long) b << 32 | boundaryOf[d];
+                    } else {
+                        stack[top++] = d;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(edges, count);
+    }
+
+    /**
+     * Places every local component given the global rank of each boundary component. A component
+     * reached from boundary ranks up to {@code lo} and reaching ranks from {@code hi} lies on a
+     * cycle through the boundary SCC when {@code lo == hi}; otherwise it is an SCC of its own that
+     * fits between ranks {@code lo} and {@code hi}.
+     */
+    static int[] positions(CSRGraph condensation, int[] boundary, int[] rank) {
+        int components = condensation.getN();
+        int[] offsets = condensation.getOffsets();
+        int[] targets = condensation.getTargets();
+        int[] lo = new int[components];
+        int[] hi = new int[components];
+        Arrays.fill(lo, -1);
+        Arrays.fill(hi, Integer.MAX_VALUE);
+        for (int b = 0; b < boundary.length; b++) {
+            lo[boundary[b]] = rank[b];
+            hi[boundary[b]] = rank[b];
+        }
+        // Component ids are topological, so one sweep each way settles both bounds
+        for (int c = 0; c < components; c++) {
+            for (int e = offsets[c]; e < offsets[c + 1]; e++) {
+                lo[targets[e]] = Math.max(lo[targets[e]], lo[c]);
+            }
+        }
+        for (int c = components - 1; c >= 0; c--) {
+            for (int e = offsets[c]; e < offsets[c + 1]; e++) {
+                hi[c] = Math.min(hi[c], hi[targets[e]]);
+            }
+        }
+        int[] position = new int[components];
+        for (int c = 0; c < components; c++) {
+            position[c] = lo[c] >= 0 && lo[c] == hi[c] ? 2 * lo[c] + 1 : 2 * (lo[c] + 1);
+        }
+        return position;
+    }
+}
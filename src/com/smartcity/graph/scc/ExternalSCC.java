@@ -0,0 +1,302 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.ConcurrentMetrics;
+import com.smartcity.common.ExternalGraphBuilder;
+import com.smartcity.common.MappedGraph;
+import com.smartcity.common.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Semi-external SCC and condensation order for graphs whose edges do not fit on the heap.
+ *
+ * The input is a {@code GraphSnapshot} file, read through {@link MappedGraph} so edges stay on
+ * disk. The reversed graph is written next to it with an {@link ExternalGraphBuilder}, then
+ * Kosaraju runs two iterative DFS passes over the mapped files. Only O(n) state lives on the
+ * heap: about 12 bytes per vertex plus a visited bitset. Kosaraju's second pass finds components
+ * in topological order of the condensation, so the component id is also its topological rank.
+ *
+ * The output file holds, little-endian:
+ *
+ * <pre>
+ *  0  int    magic ("SCCX")
+ *  4  int    version
+ *  8  int    n
+ * 12  int    component count
+ * 16  int[n] component of each vertex (= topological rank of that component)
+ *     int[n] rank of each vertex in the derived task order
+ * </pre>
+ *
+ * Counters: {@code io_bytes_read}, {@code io_bytes_written}, {@code sort_runs},
+ * {@code merge_passes}, {@code dfs_edge_reads} and {@code heap_bytes_reserved}.
+ */
+public final class ExternalSCC {
+    public static final int MAGIC = 0x58434353; // "SCCX" read little-endian
+    public static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int IO_BUFFER_BYTES = 1 << 16;
+
+    private final long memoryBudget;
+    private final Path tempDirectory;
+    private final Metrics metrics;
+
+    private ExternalSCC(Builder builder) {
+        this.memoryBudget = builder.memoryBudget;
+        this.tempDirectory = builder.tempDirectory;
+        this.metrics = builder.metrics;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Heap needed for the DFS state of {@code n} vertices, excluding I/O buffers. */
+    public static long vertexStateBytes(int n) {
+        return 12L * n + 8L * ((n + 63) >>> 6);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the budget cannot hold the per-vertex state
+     */
+    public Result run(Path snapshot, Path output) throws IOException {
+        Path tempDir = tempDirectory != null ? tempDirectory : snapshot.toAbsolutePath().getParent();
+        Path reversed = Files.createTempFile(tempDir, "reversed", ".bin");
+        metrics.startTimer();
+        try (MappedGraph forward = MappedGraph.open(snapshot)) {
+            int n = forward.getN();
+            long stateBytes = vertexStateBytes(n);
+            if (memoryBudget < stateBytes + 2L * IO_BUFFER_BYTES) {
+                throw new IllegalArgumentException("Memory budget of " + memoryBudget + " bytes is too small for "
+                        + n + " vertices; semi-external SCC needs at least " + (stateBytes + 2L * IO_BUFFER_BYTES));
+            }
+            metrics.addCounter("heap_bytes_reserved", stateBytes);
+
+            reverse(forward, reversed, tempDir);
+            int[] order = new int[n];
+            int[] cursor = new int[n];
+            int[] stack = new int[n];
+            long[] visited = new long[(n + 63) >>> 6];
+
+            postOrder(forward, order, cursor, stack, visited);
+
+            int[] componentOf = cursor;
+            int components;
+            try (MappedGraph transposed = MappedGraph.open(reversed)) {
+                components = assignComponents(transposed, order, componentOf, stack, visited);
+            }
+
+            // Counting sort of vertices by component gives each vertex its task rank
+            int[] next = stack;
+            Arrays.fill(next, 0, components, 0);
+            for (int v = 0; v < n; v++) {
+                next[componentOf[v]]++;
+            }
+            int sum = 0;
+            for (int c = 0; c < components; c++) {
+                int count = next[c];
+                next[c] = sum;
+                sum += count;
+            }
+            int[] taskRank = order;
+            for (int v = 0; v < n; v++) {
+                taskRank[v] = next[componentOf[v]]++;
+            }
+
+            writeOutput(output, n, components, componentOf, taskRank);
+            return new Result(output, n, components);
+        } finally {
+            metrics.stopTimer();
+            Files.deleteIfExists(reversed);
+        }
+    }
+
+    private void reverse(MappedGraph forward, Path reversed, Path tempDir) throws IOException {
+        int n = forward.getN();
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(n, forward.isDirected(),
+                forward.getWeightModel(), memoryBudget, tempDir, metrics)) {
+            for (int u = 0; u < n; u++) {
+                long end = forward.edgeEnd(u);
+                for (long e = forward.edgeStart(u); e < end; e++) {
+                    builder.addEdge(forward.edgeTarget(e), u, forward.edgeWeight(e));
+                }
+            }
+            metrics.addCounter("io_bytes_read", (n + 1L) * Long.BYTES + forward.getEdgeCount() * 2L * Integer.BYTES);
+            builder.build(forward.getSource(), reversed);
+        }
+    }
+
+    /** Iterative DFS over the forward graph; fills {@code order} with vertices in finishing order. */
+    private void postOrder(MappedGraph graph, int[] order, int[] cursor, int[] stack, long[] visited) {
+        int n = graph.getN();
+        int finished = 0;
+        long edgeReads = 0;
+        for (int root = 0; root < n; root++) {
+            if (isSet(visited, root)) {
+                continue;
+            }
+            int depth = 0;
+            set(visited, root);
+            cursor[root] = 0;
+            stack[depth++] = root;
+            while (depth > 0) {
+                int u = stack[depth - 1];
+                long start = graph.edgeStart(u);
+                long e = start + cursor[u];
+                if (e < graph.edgeEnd(u)) {
+                    cursor[u]++;
+                    edgeReads++;
+                    int v = graph.edgeTarget(e);
+                    if (!isSet(visited, v)) {
+                        set(visited, v);
+                        cursor[v] = 0;
+                        stack[depth++] = v;
+                    }
+                    continue;
+                }
+                depth--;
+                order[finished++] = u;
+            }
+        }
+        metrics.addCounter("dfs_edge_reads", edgeReads);
+    }
+
+    /** Reverse-graph DFS in decreasing finishing time; each tree is one component. */
+    private int assignComponents(MappedGraph transposed, int[] order, int[] componentOf, int[] stack, long[] visited) {
+        int n = transposed.getN();
+        Arrays.fill(visited, 0L);
+        int components = 0;
+        long edgeReads = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            int root = order[i];
+            if (isSet(visited, root)) {
+                continue;
+            }
+            int depth = 0;
+            set(visited, root);
+            stack[depth++] = root;
+            while (depth > 0) {
+                int u = stack[--depth];
+                componentOf[u] = components;
+                long end = transposed.edgeEnd(u);
+                for (long e = transposed.edgeStart(u); e < end; e++) {
+                    edgeReads++;
+                    int v = transposed.edgeTarget(e);
+                    if (!isSet(visited, v)) {
+                        set(visited, v);
+                        stack[depth++] = v;
+                    }
+                }
+            }
+            components++;
+        }
+        metrics.addCounter("dfs_edge_reads", edgeReads);
+        return components;
+    }
+
+    private static boolean isSet(long[] bits, int v) {
+        return (bits[v >>> 6] & (1L << v)) != 0;
+    }
+
+    private static void set(long[] bits, int v) {
+        bits[v >>> 6] |= 1L << v;
+    }
+
+    private void writeOutput(Path output, int n, int components, int[] componentOf, int[] taskRank) throws IOException {
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(IO_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(components);
+            for (int[] column : new int[][]{componentOf, taskRank}) {
+                for (int v = 0; v < n; v++) {
+                    if (!buf.hasRemaining()) {
+                        flush(out, buf);
+                    }
+                    buf.putInt(column[v]);
+                }
+            }
+            flush(out, buf);
+        }
+    }
+
+    private void flush(FileChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            metrics.addCounter("io_bytes_written", out.write(buf));
+        }
+        buf.clear();
+    }
+
+    /** Location and size of an output file. */
+    public record Result(Path output, int vertexCount, int componentCount) {
+
+        /** Component of each vertex, read back from the file. */
+        public int[] readComponents() throws IOException {
+            return readColumn(0);
+        }
+
+        /** Position of each vertex in the derived task order, read back from the file. */
+        public int[] readTaskRanks() throws IOException {
+            return readColumn(1);
+        }
+
+        private int[] readColumn(int column) throws IOException {
+            try (FileChannel in = FileChannel.open(output, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                in.read(header, 0);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("Not an SCC output file: " + output);
+                }
+                ByteBuffer data = ByteBuffer.allocate(4 * vertexCount).order(ByteOrder.LITTLE_ENDIAN);
+                long position = HEADER_BYTES + 4L * vertexCount * column;
+                int read;
+                do {
+                    read = in.read(data, position + data.position());
+                } while (read > 0 && data.hasRemaining());
+                int[] values = new int[vertexCount];
+                data.flip();
+                data.asIntBuffer().get(values);
+                return values;
+            }
+        }
+    }
+
+    public static final class Builder {
+        private long memoryBudget = Runtime.getRuntime().maxMemory() / 2;
+        private Path tempDirectory;
+        private Metrics metrics = new ConcurrentMetrics();
+
+        private Builder() {
+        }
+
+        /** Heap bytes the run may use for vertex state, sort buffers and I/O buffers. */
+        public Builder memoryBudget(long bytes) {
+            if (bytes <= 0) {
+                throw new IllegalArgumentException("memoryBudget must be > 0");
+            }
+            this.memoryBudget = bytes;
+            return this;
+        }
+
+        /** Directory for sorted runs and the reversed graph; defaults to the input's directory. */
+        public Builder tempDirectory(Path directory) {
+            this.tempDirectory = directory;
+            return this;
+        }
+
+        public Builder metrics(Metrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public ExternalSCC build() {
+            return new ExternalSCC(this);
+        }
+    }
+}
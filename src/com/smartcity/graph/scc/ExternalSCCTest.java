@@ -0,0 +1,139 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.ExternalGraphBuilder;
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphLoader;
+import com.smartcity.common.GraphSnapshot;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.fixture.RandomGraphs;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExternalSCCTest {
+
+    private static void assertSamePartition(Graph graph, int[] componentOf) {
+        List<List<Integer>> sccs = new TarjanSCC(graph).findSCCs();
+        Set<Set<Integer>> expected = new HashSet<>();
+        for (List<Integer> scc : sccs) {
+            expected.add(new HashSet<>(scc));
+        }
+        Map<Integer, Set<Integer>> actual = new HashMap<>();
+        for (int v = 0; v < componentOf.length; v++) {
+            actual.computeIfAbsent(componentOf[v], c -> new HashSet<>()).add(v);
+        }
+        assertEquals(expected, new HashSet<>(actual.values()));
+    }
+
+    @Test
+    public void testMatchesTarjanWithTopologicalIds(@TempDir Path dir) throws IOException {
+        Graph graph = RandomGraphs.builder(2000, 2600).weights(1, 9).build(11);
+        Path snapshot = dir.resolve("graph.bin");
+        GraphSnapshot.write(graph, 0, snapshot);
+        Metrics metrics = new MetricsImpl();
+
+        ExternalSCC.Result result = ExternalSCC.builder().memoryBudget(1 << 20).metrics(metrics).build()
+                .run(snapshot, dir.resolve("sccs.bin"));
+
+        int[] componentOf = result.readComponents();
+        assertSamePartition(graph, componentOf);
+        assertEquals(new TarjanSCC(graph).findSCCs().size(), result.componentCount());
+        for (int u = 0; u < graph.getN(); u++) {
+            for (int i = 0; i < graph.outDegree(u); i++) {
+                assertTrue(componentOf[u] <= componentOf[graph.target(u, i)]);
+            }
+        }
+        int[] ranks = result.readTaskRanks();
+        int[] byRank = new int[graph.getN()];
+        Arrays.fill(byRank, -1);
+        for (int v = 0; v < ranks.length; v++) {
+            assertEquals(-1, byRank[ranks[v]]);
+            byRank[ranks[v]] = v;
+        }
+        for (int r = 1; r < byRank.length; r++) {
+            assertTrue(componentOf[byRank[r - 1]] <= componentOf[byRank[r]]);
+        }
+        assertTrue(metrics.getCounter("io_bytes_written") > 0);
+        assertTrue(metrics.getCounter("io_bytes_read") > 0);
+        assertEquals(2L * graph.getEdgeCount(), metrics.getCounter("dfs_edge_reads"));
+        assertEquals(List.of(snapshot, dir.resolve("sccs.bin")).size(), Files.list(dir).count());
+    }
+
+    @Test
+    public void testSmallBudgetSpillsAndMergesInPasses(@TempDir Path dir) throws IOException {
+        Graph graph = RandomGraphs.builder(1000, 60000).weights(1, 9).build(4);
+        Path snapshot = dir.resolve("graph.bin");
+        GraphSnapshot.write(graph, 0, snapshot);
+        Metrics metrics = new MetricsImpl();
+
+        // 160 KiB: runs of about 6.8k edges and a merge fan-in of 2
+        ExternalSCC.Result result = ExternalSCC.builder().memoryBudget(160 << 10).metrics(metrics).build()
+                .run(snapshot, dir.resolve("sccs.bin"));
+
+        assertSamePartition(graph, result.readComponents());
+        assertTrue(metrics.getCounter("sort_runs") > 3);
+        assertTrue(metrics.getCounter("merge_passes") > 1);
+    }
+
+    @Test
+    public void testRejectsBudgetBelowVertexState(@TempDir Path dir) throws IOException {
+        Path snapshot = dir.resolve("graph.bin");
+        GraphSnapshot.write(RandomGraphs.builder(100000, 10).weights(1, 9).build(1), 0, snapshot);
+
+        ExternalSCC scc = ExternalSCC.builder().memoryBudget(1 << 20).build();
+        assertThrows(IllegalArgumentException.class, () -> scc.run(snapshot, dir.resolve("sccs.bin")));
+    }
+
+    @Test
+    public void testBuilderMatchesInMemorySnapshot(@TempDir Path dir) throws IOException {
+        Graph graph = RandomGraphs.builder(500, 20000).weights(1, 9).build(9);
+        Metrics metrics = new MetricsImpl();
+        Path snapshot = dir.resolve("built.bin");
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(500, true, "edge", 1 << 17, dir, metrics)) {
+            Random random = new Random(9);
+            for (int i = 0; i < 20000; i++) {
+                builder.addEdge(random.nextInt(500), random.nextInt(500), 1 + random.nextInt(9));
+            }
+            builder.build(7, snapshot);
+        }
+
+        GraphLoader.CSRGraphData data = GraphSnapshot.readCSR(snapshot);
+        assertEquals(7, data.source());
+        assertArrayEquals(graph.toCSR().getOffsets(), data.graph().getOffsets());
+        assertArrayEquals(graph.toCSR().getTargets(), data.graph().getTargets());
+        assertArrayEquals(graph.toCSR().getWeights(), data.graph().getWeights());
+        assertTrue(metrics.getCounter("sort_runs") > 1);
+        assertEquals(1, Files.list(dir).count());
+    }
+
+    @Test
+    public void testUndirectedBuilderMirrorsEdges(@TempDir Path dir) throws IOException {
+        Graph graph = new Graph(300, false, "edge");
+        Path expected = dir.resolve("expected.bin");
+        Path snapshot = dir.resolve("built.bin");
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(300, false, "edge", 1 << 17, dir,
+                new MetricsImpl())) {
+            Random random = new Random(4);
+            for (int i = 0; i < 12000; i++) {
+                int u = random.nextInt(300);
+                int v = random.nextInt(300);
+                int w = 1 + random.nextInt(9);
+                graph.addEdge(u, v, w);
+                builder.addEdge(u, v, w);
+            }
+            assertEquals(graph.getEdgeCount(), builder.getEdgeCount());
+            builder.build(0, snapshot);
+        }
+        GraphSnapshot.write(graph, 0, expected);
+
+        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(snapshot));
+        assertFalse(GraphSnapshot.readCSR(snapshot).graph().isDirected());
+    }
+}
@@ -0,0 +1,695 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.DynamicGraph;
+import com.smartcity.common.GraphView;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import java.util.*;
+
+/**
+ * Strongly connected components of a graph under edge insertions and deletions.
+ *
+ * Components are kept in a topological order of the condensation. Every component owns a
+ * disjoint label interval {@code [label, label + width)} and components are ordered by label.
+ * <ul>
+ *   <li>An insert that agrees with the order costs O(1). Otherwise a Pearce–Kelly search runs
+ *       forward from the target and backward from the source, bounded by the two labels. If the
+ *       forward search reaches the source, the components found by both searches form the new
+ *       cycle and are merged; the searched region is then reordered within its own labels.</li>
+ *   <li>Deleting an edge between components never invalidates the order. Deleting an edge
+ *       {@code u -> v} inside a component keeps it intact iff u still reaches v inside it, which
+ *       a bidirectional search usually settles after a few vertices. Only otherwise Tarjan reruns
+ *       on that component; the pieces split its label interval in topological order.</li>
+ * </ul>
+ * The condensation edges of each component are kept as a row of (target vertex, weight) pairs.
+ * An update marks only the rows it can change: the source component of an inserted or deleted
+ * cross edge, a merged component, and the pieces of a split plus their predecessors. Targets
+ * are stored as vertices, so a merge downstream needs no patching; duplicates collapse when
+ * {@link #getCondensation()} assembles the rows, which it does at most once per version.
+ * This class is itself the {@link GraphView} of the current edge set.
+ */
+public class IncrementalSCC implements GraphView {
+    private static final long LABEL_SPACE = 1L << 62;
+
+    private final int n;
+    private final DynamicGraph graph;
+    private final Metrics metrics;
+
+    // Components; ids are < n and recycled through a free stack
+    private final int[] comp;
+    private final int[][] members;
+    private final int[] memberLen;
+    private final long[] label;
+    private final long[] width;
+    private final int[] freeIds;
+    private int freeCount;
+    private int componentCount;
+
+    // Search scratch, stamped so nothing is cleared between updates
+    private final int[] forwardMark;
+    private final int[] backwardMark;
+    private int epoch;
+    private final int[] vertexForward;
+    private final int[] vertexBackward;
+    private final int[] forward;
+    private final int[] backward;
+    private final int[] work;
+
+    // Local Tarjan scratch for splits
+    private final int[] tarjanIndex;
+    private final int[] tarjanLow;
+    private final int[] tarjanCursor;
+    private final int[] tarjanStack;
+    private final int[] callStack;
+    private final boolean[] onStack;
+
+    // Condensation rows: distinct cross edges of each component as (target vertex, weight)
+    private final int[][] rowTargets;
+    private final int[][] rowWeights;
+    private final int[] rowLen;
+    private final boolean[] rowDirty;
+    private final int[] rowMark;
+    private int rowEpoch;
+    private CondensationGraph condensation;
+    private long condensationVersion = -1;
+
+    private final Metrics.Counter edgesInserted;
+    private final Metrics.Counter edgesRemoved;
+    private final Metrics.Counter componentsMerged;
+    private final Metrics.Counter componentsSplit;
+    private final Metrics.Counter componentsSearched;
+    private final Metrics.Counter relabels;
+    private final Metrics.Counter rowsRebuilt;
+
+    public IncrementalSCC(GraphView graph) {
+        this(graph, new MetricsImpl());
+    }
+
+    public IncrementalSCC(GraphView graph, Metrics metrics) {
+        this.n = graph.getN();
+        this.graph = new DynamicGraph(graph);
+        this.metrics = metrics;
+
+        comp = new int[n];
+        members = new int[n][];
+        memberLen = new int[n];
+        label = new long[n];
+        width = new long[n];
+        freeIds = new int[n];
+        forwardMark = new int[n];
+        backwardMark = new int[n];
+        vertexForward = new int[n];
+        vertexBackward = new int[n];
+        forward = new int[n];
+        backward = new int[n];
+        work = new int[n];
+        tarjanIndex = new int[n];
+        tarjanLow = new int[n];
+        tarjanCursor = new int[n];
+        tarjanStack = new int[n];
+        callStack = new int[n];
+        onStack = new boolean[n];
+        rowTargets = new int[n][];
+        rowWeights = new int[n][];
+        rowLen = new int[n];
+        rowDirty = new boolean[n];
+        rowMark = new int[n];
+        Arrays.fill(rowDirty, true);
+
+        edgesInserted = metrics.counter("edges_inserted");
+        edgesRemoved = metrics.counter("edges_removed");
+        componentsMerged = metrics.counter("components_merged");
+        componentsSplit = metrics.counter("components_split");
+        componentsSearched = metrics.counter("components_searched");
+        relabels = metrics.counter("relabels");
+        rowsRebuilt = metrics.counter("condensation_rows_rebuilt");
+
+        // Tarjan emits components in reverse topological order
+        List<List<Integer>> sccs = new TarjanSCC(this.graph, new MetricsImpl()).findSCCs();
+        int k = sccs.size();
+        long spacing = LABEL_SPACE / Math.max(k, 1);
+        for (int c = 0; c < k; c++) {
+            List<Integer> scc = sccs.get(c);
+            members[c] = new int[scc.size()];
+            for (int v : scc) {
+                members[c][memberLen[c]++] = v;
+                comp[v] = c;
+            }
+            label[c] = (k - 1 - c) * spacing;
+            width[c] = spacing;
+        }
+        componentCount = k;
+        for (int c = n - 1; c >= k; c--) {
+            freeIds[freeCount++] = c;
+        }
+    }
+
+    /**
+     * Adds the edge {@code u -> v}.
+     *
+     * @return true if the edge closed a cycle and components were merged
+     */
+    public boolean addEdge(int u, int v, int weight) {
+        graph.addEdge(u, v, weight);
+        edgesInserted.increment();
+
+        int cu = comp[u];
+        int cv = comp[v];
+        if (cu == cv) {
+            return false;
+        }
+        rowDirty[cu] = true;
+        if (label[cu] < label[cv]) {
+            return false;
+        }
+        return reorder(cu, cv);
+    }
+
+    /**
+     * Removes one occurrence of the edge {@code u -> v}.
+     *
+     * @return false if the graph had no such edge
+     */
+    public boolean removeEdge(int u, int v) {
+        if (!graph.removeEdge(u, v)) {
+            return false;
+        }
+        edgesRemoved.increment();
+
+        if (comp[u] != comp[v]) {
+            rowDirty[comp[u]] = true;
+        } else if (u != v && !reachableWithin(comp[u], u, v)) {
+            split(comp[u]);
+        }
+        return true;
+    }
+
+    /**
+     * Restores the order after an edge from {@code cu} to {@code cv} with label[cv] < label[cu].
+     * Only components whose labels lie between the two are searched.
+     */
+    private boolean reorder(int cu, int cv) {
+        long lower = label[cv];
+        long upper = label[cu];
+        int mark = ++epoch;
+
+        int forwardSize = search(cv, upper, mark, true);
+        boolean cycle = forwardMark[cu] == mark;
+        int backwardSize = search(cu, lower, mark, false);
+
+        // Pool the labels of both regions; before the update they sit in one interval of the order
+        int total = forwardSize + backwardSize;
+        long[] slotLabels = new long[total];
+        long[] slotWidths = new long[total];
+        int pooled = 0;
+        for (int i = 0; i < forwardSize; i++) {
+            slotLabels[pooled++] = label[forward[i]];
+        }
+        for (int i = 0; i < backwardSize; i++) {
+            int c = backward[i];
+            if (forwardMark[c] != mark) {
+                slotLabels[pooled++] = label[c];
+            }
+        }
+        slotLabels = Arrays.copyOf(slotLabels, pooled);
+        slotWidths = Arrays.copyOf(slotWidths, pooled);
+        Arrays.sort(slotLabels);
+        for (int i = 0; i < forwardSize; i++) {
+            slotWidths[Arrays.binarySearch(slotLabels, label[forward[i]])] = width[forward[i]];
+        }
+        for (int i = 0; i < backwardSize; i++) {
+            int c = backward[i];
+            if (forwardMark[c] != mark) {
+                slotWidths[Arrays.binarySearch(slotLabels, label[c])] = width[c];
+            }
+        }
+
+        // Components on the new cycle are in both regions; they leave both lists and become one
+        int merged = -1;
+        if (cycle) {
+            int cycleSize = 0;
+            for (int i = 0; i < backwardSize; i++) {
+                if (forwardMark[backward[i]] == mark) {
+                    work[cycleSize++] = backward[i];
+                }
+            }
+            forwardSize = removeMarked(forward, forwardSize, backwardMark, mark);
+            backwardSize = removeMarked(backward, backwardSize, forwardMark, mark);
+            merged = merge(work, cycleSize);
+        }
+
+        sortByLabel(backward, backwardSize);
+        sortByLabel(forward, forwardSize);
+        for (int i = 0; i < backwardSize; i++) {
+            assign(backward[i], slotLabels[i], slotWidths[i]);
+        }
+        if (merged >= 0) {
+            assign(merged, slotLabels[backwardSize], slotWidths[backwardSize]);
+        }
+        int firstForwardSlot = pooled - forwardSize;
+        for (int i = 0; i < forwardSize; i++) {
+            assign(forward[i], slotLabels[firstForwardSlot + i], slotWidths[firstForwardSlot + i]);
+        }
+        return cycle;
+    }
+
+    /**
+     * DFS over components from {@code start}, forward along out-edges to labels at most
+     * {@code bound}, or backward along in-edges to labels at least {@code bound}.
+     */
+    private int search(int start, long bound, int mark, boolean isForward) {
+        int[] marks = isForward ? forwardMark : backwardMark;
+        int[] found = isForward ? forward : backward;
+        int size = 0;
+        int top = 0;
+        marks[start] = mark;
+        found[size++] = start;
+        work[top++] = start;
+
+        while (top > 0) {
+            int c = work[--top];
+            componentsSearched.increment();
+            for (int k = 0; k < memberLen[c]; k++) {
+                int x = members[c][k];
+                int degree = isForward ? graph.outDegree(x) : graph.inDegree(x);
+                for (int i = 0; i < degree; i++) {
+                    int d = comp[isForward ? graph.target(x, i) : graph.source(x, i)];
+                    if (marks[d] == mark) {
+                        continue;
+                    }
+                    if (isForward ? label[d] <= bound : label[d] >= bound) {
+                        marks[d] = mark;
+                        found[size++] = d;
+                        work[top++] = d;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    private static int removeMarked(int[] list, int size, int[] marks, int mark) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (marks[list[i]] != mark) {
+                list[kept++] = list[i];
+            }
+        }
+        return kept;
+    }
+
+    /** Merges the given components into the largest of them and returns its id. */
+    private int merge(int[] cycle, int size) {
+        int survivor = cycle[0];
+        int totalMembers = 0;
+        for (int i = 0; i < size; i++) {
+            totalMembers += memberLen[cycle[i]];
+            if (memberLen[cycle[i]] > memberLen[survivor]) {
+                survivor = cycle[i];
+            }
+        }
+        if (members[survivor].length < totalMembers) {
+            members[survivor] = Arrays.copyOf(members[survivor], totalMembers);
+        }
+        for (int i = 0; i < size; i++) {
+            int c = cycle[i];
+            if (c == survivor) {
+                continue;
+            }
+            for (int k = 0; k < memberLen[c]; k++) {
+                int x = members[c][k];
+                comp[x] = survivor;
+                members[survivor][memberLen[survivor]++] = x;
+            }
+            release(c);
+        }
+        componentCount -= size - 1;
+        componentsMerged.add(size - 1);
+        rowDirty[survivor] = true;
+        return survivor;
+    }
+
+    /** Bidirectional BFS from {@code u} and back from {@code v}, always expanding the smaller frontier. */
+    private boolean reachableWithin(int c, int u, int v) {
+        int mark = ++epoch;
+        int[] forwardQueue = callStack;
+        int[] backwardQueue = tarjanStack;
+        int forwardHead = 0;
+        int forwardTail = 0;
+        int backwardHead = 0;
+        int backwardTail = 0;
+        vertexForward[u] = mark;
+        forwardQueue[forwardTail++] = u;
+        vertexBackward[v] = mark;
+        backwardQueue[backwardTail++] = v;
+
+        while (forwardHead < forwardTail && backwardHead < backwardTail) {
+            if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+                int x = forwardQueue[forwardHead++];
+                for (int i = 0; i < graph.outDegree(x); i++) {
+                    int y = graph.target(x, i);
+                    if (comp[y] != c || vertexForward[y] == mark) {
+                        continue;
+                    }
+                    if (vertexBackward[y] == mark) {
+                        return true;
+                    }
+                    vertexForward[y] = mark;
+                    forwardQueue[forwardTail++] = y;
+                }
+            } else {
+                int x = backwardQueue[backwardHead++];
+                for (int i = 0; i < graph.inDegree(x); i++) {
+                    int y = graph.source(x, i);
+                    if (comp[y] != c || vertexBackward[y] == mark) {
+                        continue;
+                    }
+                    if (vertexForward[y] == mark) {
+                        return true;
+                    }
+                    vertexBackward[y] = mark;
+                    backwardQueue[backwardTail++] = y;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Reruns Tarjan on the members of {@code c}, restricted to edges inside it. */
+    private void split(int c) {
+        int size = memberLen[c];
+        int[] vertices = Arrays.copyOf(members[c], size);
+        for (int x : vertices) {
+            tarjanIndex[x] = -1;
+        }
+
+        List<int[]> pieces = new ArrayList<>();
+        int index = 0;
+        int stackSize = 0;
+        for (int root : vertices) {
+            if (tarjanIndex[root] != -1) {
+                continue;
+            }
+            int depth = 0;
+            tarjanIndex[root] = tarjanLow[root] = index++;
+            tarjanCursor[root] = 0;
+            tarjanStack[stackSize++] = root;
+            onStack[root] = true;
+            callStack[depth++] = root;
+
+            while (depth > 0) {
+                int x = callStack[depth - 1];
+                if (tarjanCursor[x] < graph.outDegree(x)) {
+                    int y = graph.target(x, tarjanCursor[x]++);
+                    if (comp[y] != c) {
+                        continue;
+                    }
+                    if (tarjanIndex[y] == -1) {
+                        tarjanIndex[y] = tarjanLow[y] = index++;
+                        tarjanCursor[y] = 0;
+                        tarjanStack[stackSize++] = y;
+                        onStack[y] = true;
+                        callStack[depth++] = y;
+                    } else if (onStack[y]) {
+                        tarjanLow[x] = Math.min(tarjanLow[x], tarjanIndex[y]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (tarjanIndex[x] == tarjanLow[x]) {
+                    int start = stackSize;
+                    do {
+                        onStack[tarjanStack[--start]] = false;
+                    } while (tarjanStack[start] != x);
+                    pieces.add(Arrays.copyOfRange(tarjanStack, start, stackSize));
+                    stackSize = start;
+                }
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    tarjanLow[parent] = Math.min(tarjanLow[parent], tarjanLow[x]);
+                }
+            }
+        }
+
+        int k = pieces.size();
+        if (k == 1) {
+            return;
+        }
+        if (width[c] < k) {
+            relabel();
+        }
+
+        // Pieces come out sinks first; the last piece takes the lowest sub-interval
+        long base = label[c];
+        long sub = width[c] / k;
+        int largest = 0;
+        for (int p = 1; p < k; p++) {
+            if (pieces.get(p).length > pieces.get(largest).length) {
+                largest = p;
+            }
+        }
+        for (int p = 0; p < k; p++) {
+            int[] piece = pieces.get(p);
+            int id = p == largest ? c : freeIds[--freeCount];
+            members[id] = piece;
+            memberLen[id] = piece.length;
+            if (id != c) {
+                for (int x : piece) {
+                    comp[x] = id;
+                }
+            }
+            assign(id, base + (k - 1 - p) * sub, sub);
+        }
+        componentCount += k - 1;
+        componentsSplit.add(k - 1);
+
+        // Rows pointing into c may now need one entry per piece; the pieces' own rows are rebuilt too
+        for (int x : vertices) {
+            rowDirty[comp[x]] = true;
+            for (int i = 0; i < graph.inDegree(x); i++) {
+                rowDirty[comp[graph.source(x, i)]] = true;
+            }
+        }
+    }
+
+    /** Spreads all labels evenly over the label space again; needed only once splits run out of room. */
+    private void relabel() {
+        int[] live = new int[componentCount];
+        int count = 0;
+        for (int c = 0; c < n; c++) {
+            if (memberLen[c] > 0) {
+                live[count++] = c;
+            }
+        }
+        sortByLabel(live, count);
+        long spacing = LABEL_SPACE / Math.max(count, 1);
+        for (int i = 0; i < count; i++) {
+            assign(live[i], i * spacing, spacing);
+        }
+        relabels.increment();
+    }
+
+    /** Sorts component ids by label without boxing; labels are unique. */
+    private void sortByLabel(int[] ids, int size) {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = label[ids[i]];
+        }
+        int[] copy = Arrays.copyOf(ids, size);
+        Arrays.sort(keys);
+        for (int id : copy) {
+            ids[Arrays.binarySearch(keys, label[id])] = id;
+        }
+    }
+
+    private void assign(int c, long newLabel, long newWidth) {
+        label[c] = newLabel;
+        width[c] = newWidth;
+    }
+
+    private void release(int c) {
+        members[c] = null;
+        memberLen[c] = 0;
+        rowTargets[c] = rowWeights[c] = null;
+        rowLen[c] = 0;
+        rowDirty[c] = true;
+        freeIds[freeCount++] = c;
+    }
+
+    /** Id of the component holding {@code vertex}; ids stay stable until that component merges or splits. */
+    public int getComponent(int vertex) {
+        return comp[vertex];
+    }
+
+    public boolean sameComponent(int u, int v) {
+        return comp[u] == comp[v];
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    public int[] getMembers(int component) {
+        return Arrays.copyOf(members[component], memberLen[component]);
+    }
+
+    /** Component ids in topological order of the condensation. */
+    public int[] getTopologicalOrder() {
+        int[] order = new int[componentCount];
+        int count = 0;
+        for (int c = 0; c < n; c++) {
+            if (memberLen[c] > 0) {
+                order[count++] = c;
+            }
+        }
+        sortByLabel(order, count);
+        return order;
+    }
+
+    /** Current components in topological order, each with its vertices ascending. */
+    public List<List<Integer>> getComponents() {
+        List<List<Integer>> result = new ArrayList<>(componentCount);
+        for (int c : getTopologicalOrder()) {
+            int[] vertices = getMembers(c);
+            Arrays.sort(vertices);
+            List<Integer> scc = new ArrayList<>(vertices.length);
+            for (int v : vertices) {
+                scc.add(v);
+            }
+            result.add(scc);
+        }
+        return result;
+    }
+
+    /**
+     * Condensation of the current graph. Its component indices follow {@link #getComponents()},
+     * so they are already a topological order, and parallel edges keep the weight of the first
+     * one in vertex order, as {@link CondensationGraph.WeightMerge#FIRST}. Only rows touched
+     * since the previous call are recomputed, and the result is shared until the next update.
+     */
+    public CondensationGraph getCondensation() {
+        if (condensation != null && condensationVersion == graph.getVersion()) {
+            return condensation;
+        }
+        int[] order = getTopologicalOrder();
+        int k = order.length;
+        int[] position = new int[n];
+        int bound = 0;
+        for (int i = 0; i < k; i++) {
+            int c = order[i];
+            position[c] = i;
+            if (rowDirty[c]) {
+                rebuildRow(c);
+            }
+            bound += rowLen[c];
+        }
+
+        int[] offsets = new int[k + 1];
+        int[] targets = new int[bound];
+        int[] weights = new int[bound];
+        int edges = 0;
+        for (int i = 0; i < k; i++) {
+            int c = order[i];
+            int stamp = ++rowEpoch;
+            offsets[i] = edges;
+            for (int e = 0; e < rowLen[c]; e++) {
+                // Targets merged since the row was built collapse onto the first edge into them
+                int d = position[comp[rowTargets[c][e]]];
+                if (rowMark[d] != stamp) {
+                    rowMark[d] = stamp;
+                    targets[edges] = d;
+                    weights[edges++] = rowWeights[c][e];
+                }
+            }
+        }
+        offsets[k] = edges;
+
+        int[] componentMap = new int[n];
+        for (int v = 0; v < n; v++) {
+            componentMap[v] = position[comp[v]];
+        }
+        CSRGraph dag = new CSRGraph(k, true, graph.getWeightModel(), offsets,
+                Arrays.copyOf(targets, edges), Arrays.copyOf(weights, edges));
+        condensation = new CondensationGraph(this, getComponents(), CondensationGraph.WeightMerge.FIRST,
+                dag, componentMap);
+        condensationVersion = graph.getVersion();
+        return condensation;
+    }
+
+    /** Distinct cross edges of {@code c} by first occurrence in ascending vertex order. */
+    private void rebuildRow(int c) {
+        int[] vertices = Arrays.copyOf(members[c], memberLen[c]);
+        Arrays.sort(vertices);
+        int stamp = ++rowEpoch;
+        int len = 0;
+        int[] targets = rowTargets[c] != null ? rowTargets[c] : new int[4];
+        int[] weights = rowWeights[c] != null ? rowWeights[c] : new int[4];
+        for (int x : vertices) {
+            for (int i = 0; i < graph.outDegree(x); i++) {
+                int y = graph.target(x, i);
+                int d = comp[y];
+                if (d == c || rowMark[d] == stamp) {
+                    continue;
+                }
+                rowMark[d] = stamp;
+                if (len == targets.length) {
+                    targets = Arrays.copyOf(targets, 2 * len);
+                    weights = Arrays.copyOf(weights, 2 * len);
+                }
+                targets[len] = y;
+                weights[len++] = graph.weight(x, i);
+            }
+        }
+        rowTargets[c] = targets;
+        rowWeights[c] = weights;
+        rowLen[c] = len;
+        rowDirty[c] = false;
+        rowsRebuilt.increment();
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public int getN() {
+        return n;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return true;
+    }
+
+    @Override
+    public String getWeightModel() {
+        return graph.getWeightModel();
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return graph.getEdgeCount();
+    }
+
+    @Override
+    public long getVersion() {
+        return graph.getVersion();
+    }
+
+    @Override
+    public int outDegree(int u) {
+        return graph.outDegree(u);
+    }
+
+    @Override
+    public int target(int u, int i) {
+        return graph.target(u, i);
+    }
+
+    @Override
+    public int weight(int u, int i) {
+        return graph.weight(u, i);
+    }
+}
@@ -0,0 +1,189 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalSCCTest {
+
+    private static Set<Set<Integer>> normalize(List<List<Integer>> sccs) {
+        Set<Set<Integer>> result = new HashSet<>();
+        for (List<Integer> scc : sccs) {
+            result.add(new HashSet<>(scc));
+        }
+        return result;
+    }
+
+    private static void assertConsistent(IncrementalSCC scc) {
+        assertEquals(normalize(new TarjanSCC(scc).findSCCs()), normalize(scc.getComponents()));
+
+        int[] position = new int[scc.getN()];
+        int[] order = scc.getTopologicalOrder();
+        for (int i = 0; i < order.length; i++) {
+            position[order[i]] = i;
+        }
+        for (int u = 0; u < scc.getN(); u++) {
+            for (int i = 0; i < scc.outDegree(u); i++) {
+                int cu = scc.getComponent(u);
+                int cv = scc.getComponent(scc.target(u, i));
+                assertTrue(cu == cv || position[cu] < position[cv]);
+            }
+        }
+    }
+
+    @Test
+    public void testInsertClosingCycleMergesOnlyCycle() {
+        Graph graph = new Graph(5, true, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 4, 1);
+        Metrics metrics = new MetricsImpl();
+        IncrementalSCC scc = new IncrementalSCC(graph, metrics);
+        assertEquals(5, scc.getComponentCount());
+
+        assertTrue(scc.addEdge(3, 1, 1));
+
+        assertEquals(3, scc.getComponentCount());
+        assertTrue(scc.sameComponent(1, 3));
+        assertTrue(scc.sameComponent(2, 3));
+        assertFalse(scc.sameComponent(0, 1));
+        assertFalse(scc.sameComponent(3, 4));
+        assertEquals(2, metrics.getCounter("components_merged"));
+        assertConsistent(scc);
+    }
+
+    @Test
+    public void testForwardInsertDoesNotSearch() {
+        Graph graph = new Graph(4, true, "edge");
+        graph.addEdge(0, 1, 1);
+        Metrics metrics = new MetricsImpl();
+        IncrementalSCC scc = new IncrementalSCC(graph, metrics);
+
+        int[] order = scc.getTopologicalOrder();
+        assertFalse(scc.addEdge(scc.getMembers(order[0])[0], scc.getMembers(order[3])[0], 1));
+
+        assertEquals(0, metrics.getCounter("components_searched"));
+        assertConsistent(scc);
+    }
+
+    @Test
+    public void testRemoveSplitsComponent() {
+        Graph graph = new Graph(4, true, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 0, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 2, 1);
+        IncrementalSCC scc = new IncrementalSCC(graph);
+        assertEquals(1, scc.getComponentCount());
+
+        assertTrue(scc.removeEdge(2, 0));
+        assertEquals(3, scc.getComponentCount());
+        assertTrue(scc.sameComponent(2, 3));
+        assertConsistent(scc);
+
+        assertFalse(scc.removeEdge(2, 0));
+        assertEquals(4, scc.getEdgeCount());
+    }
+
+    @Test
+    public void testRandomUpdatesMatchFullRecomputation() {
+        Random random = new Random(7);
+        int n = 300;
+        Graph graph = new Graph(n, true, "edge");
+        List<int[]> edges = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            graph.addEdge(u, v, 1);
+            edges.add(new int[]{u, v});
+        }
+        IncrementalSCC scc = new IncrementalSCC(graph);
+        assertConsistent(scc);
+
+        for (int step = 0; step < 2000; step++) {
+            if (edges.isEmpty() || random.nextInt(3) != 0) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                scc.addEdge(u, v, 1 + random.nextInt(5));
+                edges.add(new int[]{u, v});
+            } else {
+                int[] edge = edges.remove(random.nextInt(edges.size()));
+                assertTrue(scc.removeEdge(edge[0], edge[1]));
+            }
+            if (step % 50 == 0) {
+                assertConsistent(scc);
+            }
+        }
+        assertConsistent(scc);
+    }
+
+    @Test
+    public void testCondensationIsPatchedIncrementally() {
+        Random random = new Random(11);
+        int n = 400;
+        Graph graph = new Graph(n, true, "edge");
+        List<int[]> edges = new ArrayList<>();
+        for (int i = 0; i < 350; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            graph.addEdge(u, v, 1 + random.nextInt(9));
+            edges.add(new int[]{u, v});
+        }
+        Metrics metrics = new MetricsImpl();
+        IncrementalSCC scc = new IncrementalSCC(graph, metrics);
+
+        for (int step = 0; step < 1500; step++) {
+            if (edges.isEmpty() || random.nextInt(3) != 0) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                scc.addEdge(u, v, 1 + random.nextInt(9));
+                edges.add(new int[]{u, v});
+            } else {
+                int[] edge = edges.remove(random.nextInt(edges.size()));
+                assertTrue(scc.removeEdge(edge[0], edge[1]));
+            }
+            if (step % 25 == 0) {
+                CondensationGraph expected = new CondensationGraph(scc, scc.getComponents());
+                CondensationGraph actual = scc.getCondensation();
+                assertArrayEquals(expected.getComponentMap(), actual.getComponentMap());
+                assertArrayEquals(expected.getCondensationCSR().getOffsets(), actual.getCondensationCSR().getOffsets());
+                assertArrayEquals(expected.getCondensationCSR().getTargets(), actual.getCondensationCSR().getTargets());
+                assertArrayEquals(expected.getCondensationCSR().getWeights(), actual.getCondensationCSR().getWeights());
+            }
+        }
+
+        // No update: the same condensation is returned; one cross edge: one row is recomputed
+        CondensationGraph current = scc.getCondensation();
+        assertSame(current, scc.getCondensation());
+        int[] order = scc.getTopologicalOrder();
+        long rebuilt = metrics.getCounter("condensation_rows_rebuilt");
+        scc.addEdge(scc.getMembers(order[0])[0], scc.getMembers(order[order.length - 1])[0], 1);
+        assertNotSame(current, scc.getCondensation());
+        assertEquals(rebuilt + 1, metrics.getCounter("condensation_rows_rebuilt"));
+    }
+
+    @Test
+    public void testCondensationFollowsTopologicalOrder() {
+        Graph graph = new Graph(4, true, "edge");
+        graph.addEdge(3, 2, 1);
+        graph.addEdge(2, 1, 1);
+        IncrementalSCC scc = new IncrementalSCC(graph);
+        scc.addEdge(1, 2, 1);
+
+        CondensationGraph condensation = scc.getCondensation();
+        var dag = condensation.getCondensationCSR();
+        for (int c = 0; c < dag.getN(); c++) {
+            for (int e = dag.edgeStart(c); e < dag.edgeEnd(c); e++) {
+                assertTrue(c < dag.edgeTarget(e));
+            }
+        }
+        assertEquals(condensation.getComponent(1), condensation.getComponent(2));
+    }
+}
@@ -0,0 +1,136 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.NativeArray;
+import com.smartcity.common.OffHeapGraph;
+
+/**
+ * {@link TarjanSCC} over an {@link OffHeapGraph}, with every per-vertex array in native memory:
+ * {@code ids}, {@code low}, the component stack, the DFS call stack and a 64-bit edge cursor,
+ * 24 bytes per vertex in all. The state is allocated on the first run, reused by later ones and
+ * freed by {@link #close()}. A vertex is on the component stack exactly when it has an id but
+ * no component yet, so no separate flag array is needed.
+ */
+public final class OffHeapTarjanSCC implements AutoCloseable {
+    private final OffHeapGraph graph;
+    private final Metrics metrics;
+    private NativeArray ids;
+    private NativeArray low;
+    private NativeArray stack;
+    private NativeArray callStack;
+    private NativeArray cursor;
+
+    public OffHeapTarjanSCC(OffHeapGraph graph) {
+        this(graph, new MetricsImpl());
+    }
+
+    public OffHeapTarjanSCC(OffHeapGraph graph, Metrics metrics) {
+        this.graph = graph;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Writes the component of every vertex into {@code componentOf}, numbered in the order
+     * {@link TarjanSCC#findSCCs()} would list them, and returns the component count.
+     */
+    public int findComponents(NativeArray componentOf) {
+        int n = graph.getN();
+        if (componentOf.length() < n) {
+            throw new IllegalArgumentException("componentOf needs " + n + " entries");
+        }
+        if (ids == null) {
+            ids = NativeArray.ints(n);
+            low = NativeArray.ints(n);
+            stack = NativeArray.ints(n);
+            callStack = NativeArray.ints(n);
+            cursor = NativeArray.longs(n);
+        }
+        ids.fill(-1);
+        componentOf.fill(-1);
+
+        int id = 0;
+        int stackSize = 0;
+        int components = 0;
+        long edgesExplored = 0;
+        long stackPops = 0;
+
+        metrics.startTimer();
+        for (int root = 0; root < n; root++) {
+            if (ids.getInt(root) != -1) {
+                continue;
+            }
+            int depth = 0;
+            ids.setInt(root, id);
+            low.setInt(root, id++);
+            cursor.setLong(root, graph.edgeStart(root));
+            stack.setInt(stackSize++, root);
+            callStack.setInt(depth++, root);
+
+            while (depth > 0) {
+                int u = callStack.getInt(depth - 1);
+                long e = cursor.getLong(u);
+                if (e < graph.edgeEnd(u)) {
+                    cursor.setLong(u, e + 1);
+                    edgesExplored++;
+                    int v = graph.edgeTarget(e);
+                    if (ids.getInt(v) == -1) {
+                        ids.setInt(v, id);
+                        low.setInt(v, id++);
+                        cursor.setLong(v, graph.edgeStart(v));
+                        stack.setInt(stackSize++, v);
+                        callStack.setInt(depth++, v);
+                    } else if (componentOf.getInt(v) == -1) {
+                        low.setInt(u, Math.min(low.getInt(u), ids.getInt(v)));
+                    }
+                    continue;
+                }
+
+                depth--;
+                int lowU = low.getInt(u);
+                if (ids.getInt(u) == lowU) {
+                    int v;
+                    do {
+                        v = stack.getInt(--stackSize);
+                        componentOf.setInt(v, components);
+                        stackPops++;
+                    } while (v != u);
+                    components++;
+                }
+                if (depth > 0) {
+                    int parent = callStack.getInt(depth - 1);
+                    low.setInt(parent, Math.min(low.getInt(parent), lowU));
+                }
+            }
+        }
+        metrics.stopTimer();
+
+        metrics.addCounter("dfs_visits", n);
+        metrics.addCounter("edges_explored", edgesExplored);
+        metrics.addCounter("stack_pops", stackPops);
+        return components;
+    }
+
+    /** Native bytes held for DFS state, 0 before the first run and after close. */
+    public long stateBytes() {
+        return ids == null ? 0
+                : ids.sizeBytes() + low.sizeBytes() + stack.sizeBytes() + callStack.sizeBytes() + cursor.sizeBytes();
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /** Frees the DFS state; the instance may be run again, which reallocates it. */
+    @Override
+    public void close() {
+        if (ids != null) {
+            ids.close();
+            low.close();
+            stack.close();
+            callStack.close();
+            cursor.close();
+            ids = low = stack = callStack = cursor = null;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.GraphView;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parallel SCC detection on the fork/join pool using forward-backward reachability (FW-BW)
+ * with an initial trimming pass.
+ *
+ * <ol>
+ *   <li>Trim: vertices with no live in- or out-edges are peeled off as singleton SCCs.</li>
+ *   <li>FW-BW: pick a random pivot, compute its forward and backward closures concurrently inside
+ *       the current partition; their intersection is an SCC, and the three remaining parts are
+ *       solved as independent fork/join subtasks. A random pivot splits a chain of small SCCs
+ *       roughly in half, so the expected recursion depth stays logarithmic.</li>
+ *   <li>Partitions below {@link #SEQUENTIAL_THRESHOLD} vertices, or deeper than
+ *       {@link #MAX_FWBW_DEPTH} splits, fall back to an iterative Tarjan restricted to the
+ *       partition, which keeps the many-tiny-SCCs case cheap.</li>
+ * </ol>
+ *
+ * Returns the same {@code List<List<Integer>>} shape as {@link TarjanSCC}. Components are
+ * sorted internally and ordered by their smallest vertex, so output is deterministic
+ * regardless of scheduling.
+ */
+public class ParallelSCC {
+    static final int SEQUENTIAL_THRESHOLD = 2048;
+    static final int MAX_FWBW_DEPTH = 64;
+    private static final int PARALLEL_RANGE = 8192;
+    private static final int DONE = -1;
+
+    private final GraphView graph;
+    private final Metrics metrics;
+    private final int parallelism;
+
+    private CSRGraph forward;
+    private CSRGraph backward;
+    private int[] color;        // partition id per live vertex, DONE once assigned to an SCC
+    private int[] fwMark;
+    private int[] bwMark;
+    private int[] ids;          // Tarjan fallback state, shared (partitions are disjoint)
+    private int[] low;
+    private int[] edgeCursor;
+    private boolean[] onStack;
+    private AtomicInteger nextColor;
+    private ConcurrentLinkedQueue<List<Integer>> found;
+
+    private final LongAdder edgesExplored = new LongAdder();
+    private final LongAdder fwbwTasks = new LongAdder();
+    private final LongAdder tarjanFallbacks = new LongAdder();
+    private final AtomicInteger largestFallback = new AtomicInteger();
+
+    public ParallelSCC(GraphView graph) {
+        this(graph, new MetricsImpl());
+    }
+
+    public ParallelSCC(GraphView graph, Metrics metrics) {
+        this(graph, metrics, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelSCC(GraphView graph, Metrics metrics, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be >= 1");
+        }
+        this.graph = graph;
+        this.metrics = metrics;
+        this.parallelism = parallelism;
+    }
+
+    public List<List<Integer>> findSCCs() {
+        int n = graph.getN();
+        forward = CSRGraph.fromGraph(graph);
+        backward = forward.reverse();
+        color = new int[n];
+        fwMark = new int[n];
+        bwMark = new int[n];
+        ids = new int[n];
+        low = new int[n];
+        edgeCursor = new int[n];
+        onStack = new boolean[n];
+        Arrays.fill(ids, -1);
+        nextColor = new AtomicInteger(1);
+        found = new ConcurrentLinkedQueue<>();
+        edgesExplored.reset();
+        fwbwTasks.reset();
+        tarjanFallbacks.reset();
+        largestFallback.set(0);
+
+        metrics.startTimer();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            int trimmed = trim(pool);
+            int[] remaining = new int[n - trimmed];
+            int k = 0;
+            for (int v = 0; v < n; v++) {
+                if (color[v] != DONE) {
+                    remaining[k++] = v;
+                }
+            }
+            pool.invoke(new FwBwTask(remaining, 0, 0));
+            metrics.addCounter("trimmed_vertices", trimmed);
+        } finally {
+            pool.shutdown();
+        }
+
+        List<List<Integer>> sccs = new ArrayList<>(found);
+        for (List<Integer> scc : sccs) {
+            Collections.sort(scc);
+        }
+        sccs.sort(Comparator.comparingInt(scc -> scc.get(0)));
+        metrics.stopTimer();
+
+        metrics.addCounter("edges_explored", edgesExplored.sum());
+        metrics.addCounter("fwbw_tasks", fwbwTasks.sum());
+        metrics.addCounter("tarjan_fallbacks", tarjanFallbacks.sum());
+        metrics.addCounter("largest_fallback", largestFallback.get());
+        metrics.addCounter("parallelism", parallelism);
+        return sccs;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    // ---------------------------------------------------------------- trimming
+
+    /** Peels vertices without live in- or out-edges (ignoring self-loops). Returns the count. */
+    private int trim(ForkJoinPool pool) {
+        int n = forward.getN();
+        int[] inDeg = new int[n];
+        int[] outDeg = new int[n];
+        pool.invoke(new DegreeTask(0, n, inDeg, outDeg));
+
+        int[] work = new int[2 * n]; // a vertex is queued at most once per degree reaching zero
+        int size = 0;
+        for (int v = 0; v < n; v++) {
+            if (inDeg[v] == 0 || outDeg[v] == 0) {
+                work[size++] = v;
+            }
+        }
+
+        int trimmed = 0;
+        while (size > 0) {
+            int v = work[--size];
+            if (color[v] == DONE) {
+                continue;
+            }
+            color[v] = DONE;
+            found.add(new ArrayList<>(List.of(v)));
+            trimmed++;
+            for (int e = forward.edgeStart(v); e < forward.edgeEnd(v); e++) {
+                int w = forward.edgeTarget(e);
+                if (w != v && color[w] != DONE && --inDeg[w] == 0) {
+                    work[size++] = w;
+                }
+            }
+            for (int e = backward.edgeStart(v); e < backward.edgeEnd(v); e++) {
+                int w = backward.edgeTarget(e);
+                if (w != v && color[w] != DONE && --outDeg[w] == 0) {
+                    work[size++] = w;
+                }
+            }
+        }
+        return trimmed;
+    }
+
+    private final class DegreeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int[] inDeg;
+        private final int[] outDeg;
+
+        DegreeTask(int from, int to, int[] inDeg, int[] outDeg) {
+            this.from = from;
+            this.to = to;
+            this.inDeg = inDeg;
+            this.outDeg = outDeg;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_RANGE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new DegreeTask(from, mid, inDeg, outDeg), new DegreeTask(mid, to, inDeg, outDeg));
+                return;
+            }
+            for (int v = from; v < to; v++) {
+                outDeg[v] = countNonLoop(forward, v);
+                inDeg[v] = countNonLoop(backward, v);
+            }
+        }
+
+        private int countNonLoop(CSRGraph g, int v) {
+            int count = 0;
+            for (int e = g.edgeStart(v); e < g.edgeEnd(v); e++) {
+                if (g.edgeTarget(e) != v) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    // ---------------------------------------------------------------- FW-BW
+
+    private final class FwBwTask extends RecursiveAction {
+        private final int[] vertices;
+        private final int partition;
+        private final int depth;
+
+        FwBwTask(int[] vertices, int partition, int depth) {
+            this.vertices = vertices;
+            this.partition = partition;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (vertices.length == 0) {
+                return;
+            }
+            if (vertices.length <= SEQUENTIAL_THRESHOLD || depth >= MAX_FWBW_DEPTH) {
+                tarjanFallbacks.increment();
+                largestFallback.accumulateAndGet(vertices.length, Math::max);
+                tarjanWithin(vertices, partition);
+                return;
+            }
+            fwbwTasks.increment();
+
+            int stamp = nextColor.getAndIncrement();
+            int pivot = vertices[ThreadLocalRandom.current().nextInt(vertices.length)];
+            invokeAll(new ReachTask(forward, pivot, partition, fwMark, stamp, vertices.length),
+                      new ReachTask(backward, pivot, partition, bwMark, stamp, vertices.length));
+
+            int sccSize = 0, fwOnly = 0, bwOnly = 0;
+            for (int v : vertices) {
+                boolean f = fwMark[v] == stamp;
+                boolean b = bwMark[v] == stamp;
+                if (f && b) sccSize++;
+                else if (f) fwOnly++;
+                else if (b) bwOnly++;
+            }
+
+            List<Integer> scc = new ArrayList<>(sccSize);
+            int[] fwPart = new int[fwOnly];
+            int[] bwPart = new int[bwOnly];
+            int[] rest = new int[vertices.length - sccSize - fwOnly - bwOnly];
+            int fwColor = nextColor.getAndIncrement();
+            int bwColor = nextColor.getAndIncrement();
+            int restColor = nextColor.getAndIncrement();
+            int fi = 0, bi = 0, ri = 0;
+            for (int v : vertices) {
+                boolean f = fwMark[v] == stamp;
+                boolean b = bwMark[v] == stamp;
+                if (f && b) {
+                    color[v] = DONE;
+                    scc.add(v);
+                } else if (f) {
+                    color[v] = fwColor;
+                    fwPart[fi++] = v;
+                } else if (b) {
+                    color[v] = bwColor;
+                    bwPart[bi++] = v;
+                } else {
+                    color[v] = restColor;
+                    rest[ri++] = v;
+                }
+            }
+            found.add(scc);
+
+            invokeAll(new FwBwTask(fwPart, fwColor, depth + 1), new FwBwTask(bwPart, bwColor, depth + 1),
+                      new FwBwTask(rest, restColor, depth + 1));
+        }
+    }
+
+    /** BFS from {@code pivot} that stays inside one partition and stamps every reached vertex. */
+    private final class ReachTask extends RecursiveAction {
+        private final CSRGraph g;
+        private final int pivot;
+        private final int partition;
+        private final int[] mark;
+        private final int stamp;
+        private final int capacity;
+
+        ReachTask(CSRGraph g, int pivot, int partition, int[] mark, int stamp, int capacity) {
+            this.g = g;
+            this.pivot = pivot;
+            this.partition = partition;
+            this.mark = mark;
+            this.stamp = stamp;
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected void compute() {
+            int[] queue = new int[capacity];
+            int head = 0, tail = 0;
+            long explored = 0;
+            mark[pivot] = stamp;
+            queue[tail++] = pivot;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int e = g.edgeStart(u); e < g.edgeEnd(u); e++) {
+                    int v = g.edgeTarget(e);
+                    explored++;
+                    if (color[v] == partition && mark[v] != stamp) {
+                        mark[v] = stamp;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+            edgesExplored.add(explored);
+        }
+    }
+
+    // ---------------------------------------------------------------- Tarjan fallback
+
+    /** Iterative Tarjan over the vertices of one partition; edges leaving it are ignored. */
+    private void tarjanWithin(int[] vertices, int partition) {
+        int size = vertices.length;
+        int[] stack = new int[size];
+        int[] callStack = new int[size];
+        int stackSize = 0;
+        int id = 0;
+        long explored = 0;
+
+        for (int root : vertices) {
+            if (ids[root] != -1) {
+                continue;
+            }
+            int depth = 0;
+            ids[root] = low[root] = id++;
+            edgeCursor[root] = forward.edgeStart(root);
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            callStack[depth++] = root;
+
+            while (depth > 0) {
+                int u = callStack[depth - 1];
+                if (edgeCursor[u] < forward.edgeEnd(u)) {
+                    int v = forward.edgeTarget(edgeCursor[u]++);
+                    explored++;
+                    if (color[v] != partition) {
+                        continue;
+                    }
+                    if (ids[v] == -1) {
+                        ids[v] = low[v] = id++;
+                        edgeCursor[v] = forward.edgeStart(v);
+                        stack[stackSize++] = v;
+                        onStack[v] = true;
+                        callStack[depth++] = v;
+                    } else if (onStack[v]) {
+                        low[u] = Math.min(low[u], ids[v]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (ids[u] == low[u]) {
+                    List<Integer> scc = new ArrayList<>();
+                    int v;
+                    do {
+                        v = stack[--stackSize];
+                        onStack[v] = false;
+                        scc.add(v);
+                    } while (v != u);
+                    found.add(scc);
+                }
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[u]);
+                }
+            }
+        }
+        for (int v : vertices) {
+            color[v] = DONE;
+        }
+        edgesExplored.add(explored);
+    }
+}
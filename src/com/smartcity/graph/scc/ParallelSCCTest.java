@@ -0,0 +1,114 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.fixture.RandomGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelSCCTest {
+
+    private static Set<Set<Integer>> normalize(List<List<Integer>> sccs) {
+        Set<Set<Integer>> result = new HashSet<>();
+        for (List<Integer> scc : sccs) {
+            result.add(new HashSet<>(scc));
+        }
+        return result;
+    }
+
+    @Test
+    public void testMatchesTarjanOnRandomGraphs() {
+        for (long seed = 0; seed < 5; seed++) {
+            Graph graph = RandomGraphs.builder(6000, 9000 + (int) seed * 1000).weights(1, 10).build(seed);
+            Set<Set<Integer>> expected = normalize(new TarjanSCC(graph).findSCCs());
+
+            for (int parallelism : new int[]{1, 4}) {
+                List<List<Integer>> sccs = new ParallelSCC(graph, new MetricsImpl(), parallelism).findSCCs();
+                assertEquals(expected, normalize(sccs));
+            }
+        }
+    }
+
+    @Test
+    public void testSmallGraphAndDeterministicOrder() {
+        Graph graph = new Graph(5, true, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 1, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 3, 1);
+
+        List<List<Integer>> sccs = new ParallelSCC(graph).findSCCs();
+
+        assertEquals(List.of(List.of(0), List.of(1, 2), List.of(3), List.of(4)), sccs);
+    }
+
+    @Test
+    public void testGiantSCCAndChainOfCycles() {
+        int n = 200_000;
+        CSRGraph.Builder ring = CSRGraph.builder(n, true, "edge");
+        CSRGraph.Builder chain = CSRGraph.builder(n, true, "edge");
+        for (int i = 0; i < n; i++) {
+            ring.addEdge(i, (i + 1) % n, 1);
+            if (i % 2 == 0) {
+                chain.addEdge(i, i + 1, 1);
+                chain.addEdge(i + 1, i, 1);
+            }
+            if (i + 2 < n && i % 2 == 0) {
+                chain.addEdge(i, i + 2, 1);
+            }
+        }
+
+        Metrics metrics = new MetricsImpl();
+        List<List<Integer>> giant = new ParallelSCC(ring.build(), metrics, 4).findSCCs();
+        assertEquals(1, giant.size());
+        assertEquals(n, giant.get(0).size());
+        assertTrue(metrics.getCounter("fwbw_tasks") >= 1);
+
+        List<List<Integer>> pairs = new ParallelSCC(chain.build(), new MetricsImpl(), 4).findSCCs();
+        assertEquals(n / 2, pairs.size());
+        for (List<Integer> scc : pairs) {
+            assertEquals(2, scc.size());
+        }
+    }
+
+    @Test
+    public void testChainOfTwoCyclesIsSplitInParallel() {
+        // Trimming removes nothing here, and a pivot at one end would split off a single pair
+        int n = 100_000;
+        CSRGraph.Builder chain = CSRGraph.builder(n, true, "edge");
+        for (int i = 0; i < n; i += 2) {
+            chain.addEdge(i, i + 1, 1);
+            chain.addEdge(i + 1, i, 1);
+            if (i + 2 < n) {
+                chain.addEdge(i + 1, i + 2, 1);
+            }
+        }
+
+        Metrics metrics = new MetricsImpl();
+        List<List<Integer>> pairs = new ParallelSCC(chain.build(), metrics, 4).findSCCs();
+
+        assertEquals(n / 2, pairs.size());
+        assertEquals(0, metrics.getCounter("trimmed_vertices"));
+        assertTrue(metrics.getCounter("fwbw_tasks") >= n / ParallelSCC.SEQUENTIAL_THRESHOLD,
+                "fwbw_tasks " + metrics.getCounter("fwbw_tasks"));
+        assertTrue(metrics.getCounter("largest_fallback") <= ParallelSCC.SEQUENTIAL_THRESHOLD,
+                "largest_fallback " + metrics.getCounter("largest_fallback"));
+    }
+
+    @Test
+    public void testCondensationAcceptsResult() {
+        Graph graph = RandomGraphs.builder(3000, 6000).weights(1, 10).build(42);
+        List<List<Integer>> sccs = new ParallelSCC(graph).findSCCs();
+
+        CondensationGraph condensation = new CondensationGraph(graph, sccs);
+
+        assertEquals(sccs.size(), condensation.getCondensation().getN());
+        assertNotNull(new com.smartcity.graph.topo.KahnTopologicalSort(condensation.getCondensation()).sort());
+    }
+}
@@ -0,0 +1,288 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.ConcurrentMetrics;
+import com.smartcity.common.GraphView;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.Workspace;
+
+import java.util.Random;
+
+/**
+ * Vertex-to-vertex reachability answered from an index over the condensation DAG.
+ *
+ * When the full transitive closure fits in {@code maxClosureBytes} it is stored as one bitset row
+ * per component and every query is a single bit test. Otherwise each component gets interval
+ * labels from two DFS traversals (in opposite child orders) and a topological level: if {@code a}
+ * reaches {@code b}, the intervals of {@code b} lie inside those of {@code a} and its level is
+ * higher, so any violation answers "no" at once, while containment in either DFS tree span
+ * answers "yes". Only the remaining queries fall back to a DFS that prunes every branch whose
+ * labels rule out the target.
+ *
+ * Queries may run concurrently once built, given thread-safe metrics; the convenience constructor
+ * uses {@link ConcurrentMetrics}. Counters: {@code reach_queries}, {@code reach_fallback_searches},
+ * {@code index_build_micros}, {@code index_bytes} and {@code reach_queries_per_second}, which holds
+ * the latest measurement.
+ */
+public final class ReachabilityIndex {
+    public static final long DEFAULT_MAX_CLOSURE_BYTES = 64L << 20;
+
+    private final int[] componentOf;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int k;
+    private final Metrics metrics;
+    private final Metrics.Counter queries;
+    private final Metrics.Counter fallbacks;
+
+    // Closure mode: row c occupies closure[c * words .. (c + 1) * words)
+    private final long[] closure;
+    private final int words;
+
+    // Label mode
+    private final int[] post;
+    private final int[] low;
+    private final int[] treeLow;
+    private final int[] post2;
+    private final int[] low2;
+    private final int[] treeLow2;
+    private final int[] level;
+
+    private final long buildNanos;
+    private final long sizeBytes;
+
+    public ReachabilityIndex(CondensationGraph condensation) {
+        this(condensation.getCondensationCSR(), condensation.getComponentMap(), DEFAULT_MAX_CLOSURE_BYTES,
+                new ConcurrentMetrics());
+    }
+
+    /**
+     * @param dag             the condensation; must be acyclic
+     * @param componentOf     component of each original vertex
+     * @param maxClosureBytes largest closure to store as bitsets; 0 always uses labels
+     */
+    public ReachabilityIndex(GraphView dag, int[] componentOf, long maxClosureBytes, Metrics metrics) {
+        long start = System.nanoTime();
+        CSRGraph csr = CSRGraph.fromGraph(dag);
+        this.componentOf = componentOf;
+        this.offsets = csr.getOffsets();
+        this.targets = csr.getTargets();
+        this.k = csr.getN();
+        this.metrics = metrics;
+        this.queries = metrics.counter("reach_queries");
+        this.fallbacks = metrics.counter("reach_fallback_searches");
+
+        int[] firstPost = new int[k];
+        int[] firstLow = new int[k];
+        int[] firstTreeLow = new int[k];
+        int[] byPost = label(false, firstPost, firstLow, firstTreeLow);
+
+        long rowWords = (k + 63L) >>> 6;
+        long closureBytes = 8L * rowWords * k;
+        if (closureBytes <= maxClosureBytes && rowWords * k <= Integer.MAX_VALUE - 8) {
+            this.words = (int) rowWords;
+            this.closure = buildClosure(byPost);
+            this.post = this.low = this.treeLow = this.post2 = this.low2 = this.treeLow2 = this.level = null;
+            this.sizeBytes = closureBytes + 4L * componentOf.length;
+        } else {
+            this.words = 0;
+            this.closure = null;
+            this.post = firstPost;
+            this.low = firstLow;
+            this.treeLow = firstTreeLow;
+            this.post2 = new int[k];
+            this.low2 = new int[k];
+            this.treeLow2 = new int[k];
+            label(true, post2, low2, treeLow2);
+            this.level = levels(byPost);
+            this.sizeBytes = 28L * k + 4L * (offsets.length + targets.length) + 4L * componentOf.length;
+        }
+        this.buildNanos = System.nanoTime() - start;
+        metrics.addCounter("index_build_micros", buildNanos / 1000);
+        metrics.addCounter("index_bytes", sizeBytes);
+    }
+
+    /**
+     * Iterative DFS over all components; {@code reversed} visits roots and children in reverse.
+     * Fills post-order numbers, the lowest post number reachable ({@code low}) and, if requested,
+     * the lowest post number in the DFS subtree. Returns components by post number.
+     */
+    private int[] label(boolean reversed, int[] post, int[] low, int[] treeLow) {
+        int[] byPost = new int[k];
+        try (Workspace.Scope scope = Workspace.open()) {
+            Workspace.Marks visited = scope.marks(k);
+            int[] stack = scope.ints(k);
+            int[] cursor = scope.ints(k);
+            int counter = 0;
+            for (int i = 0; i < k; i++) {
+                int root = reversed ? k - 1 - i : i;
+                if (visited.isMarked(root)) {
+                    continue;
+                }
+                int depth = 0;
+                visited.mark(root);
+                cursor[root] = 0;
+                if (treeLow != null) {
+                    treeLow[root] = counter;
+                }
+                stack[depth++] = root;
+                while (depth > 0) {
+                    int u = stack[depth - 1];
+                    int degree = offsets[u + 1] - offsets[u];
+                    if (cursor[u] < degree) {
+                        int e = reversed ? offsets[u + 1] - 1 - cursor[u] : offsets[u] + cursor[u];
+                        cursor[u]++;
+                        int v = targets[e];
+                        if (!visited.isMarked(v)) {
+                            visited.mark(v);
+                            cursor[v] = 0;
+                            if (treeLow != null) {
+                                treeLow[v] = counter;
+                            }
+                            stack[depth++] = v;
+                        }
+                        continue;
+                    }
+                    depth--;
+                    // Acyclic, so every child has finished by now
+                    int min = counter;
+                    for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                        min = Math.min(min, low[targets[e]]);
+                    }
+                    low[u] = min;
+                    post[u] = counter;
+                    byPost[counter++] = u;
+                }
+            }
+        }
+        return byPost;
+    }
+
+    /** Longest distance in edges from any source; reverse post order is a topological order. */
+    private int[] levels(int[] byPost) {
+        int[] result = new int[k];
+        for (int i = k - 1; i >= 0; i--) {
+            int u = byPost[i];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                result[targets[e]] = Math.max(result[targets[e]], result[u] + 1);
+            }
+        }
+        return result;
+    }
+
+    /** Children finish before parents, so rows are built in post order. */
+    private long[] buildClosure(int[] byPost) {
+        long[] rows = new long[words * k];
+        for (int u : byPost) {
+            int row = u * words;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                rows[row + (v >>> 6)] |= 1L << v;
+                int child = v * words;
+                for (int w = 0; w < words; w++) {
+                    rows[row + w] |= rows[child + w];
+                }
+            }
+        }
+        return rows;
+    }
+
+    /** True if {@code v} is reachable from {@code u}; every vertex reaches itself. */
+    public boolean reaches(int u, int v) {
+        return componentReaches(componentOf[u], componentOf[v]);
+    }
+
+    /** True if component {@code b} is reachable from component {@code a} in the condensation. */
+    public boolean componentReaches(int a, int b) {
+        queries.increment();
+        if (a == b) {
+            return true;
+        }
+        if (closure != null) {
+            return (closure[a * words + (b >>> 6)] & (1L << b)) != 0;
+        }
+        if (!mayReach(a, b)) {
+            return false;
+        }
+        if (inDfsTree(a, b)) {
+            return true;
+        }
+        return search(a, b);
+    }
+
+    /** Necessary for {@code a} to reach {@code b}. */
+    private boolean mayReach(int a, int b) {
+        return level[a] < level[b]
+                && low[a] <= low[b] && post[b] <= post[a]
+                && low2[a] <= low2[b] && post2[b] <= post2[a];
+    }
+
+    /** Sufficient for {@code a} to reach {@code b}: {@code b} is under {@code a} in a DFS tree. */
+    private boolean inDfsTree(int a, int b) {
+        return (treeLow[a] <= post[b] && post[b] <= post[a])
+                || (treeLow2[a] <= post2[b] && post2[b] <= post2[a]);
+    }
+
+    private boolean search(int a, int b) {
+        fallbacks.increment();
+        try (Workspace.Scope scope = Workspace.open()) {
+            Workspace.Marks visited = scope.marks(k);
+            int[] stack = scope.ints(k);
+            int depth = 0;
+            visited.mark(a);
+            stack[depth++] = a;
+            while (depth > 0) {
+                int u = stack[--depth];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = targets[e];
+                    if (v == b || inDfsTree(v, b)) {
+                        return true;
+                    }
+                    if (!visited.isMarked(v) && mayReach(v, b)) {
+                        visited.mark(v);
+                        stack[depth++] = v;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    public boolean usesClosure() {
+        return closure != null;
+    }
+
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /** Heap held by the index, including the component map and, in label mode, the adjacency. */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Times {@code count} queries between uniformly random vertex pairs and returns queries per
+     * second, which also replaces {@code reach_queries_per_second}.
+     */
+    public double measureQueryThroughput(int count, long seed) {
+        Random random = new Random(seed);
+        int n = componentOf.length;
+        int[] pairs = new int[2 * count];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = random.nextInt(n);
+        }
+        int positives = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            if (reaches(pairs[2 * i], pairs[2 * i + 1])) {
+                positives++;
+            }
+        }
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        double perSecond = count * 1e9 / elapsed;
+        metrics.setCounter("reach_queries_per_second", Math.round(perSecond));
+        metrics.addCounter("reach_positive_answers", positives);
+        return perSecond;
+    }
+}
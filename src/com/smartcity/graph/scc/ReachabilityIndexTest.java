@@ -0,0 +1,108 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.fixture.RandomGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReachabilityIndexTest {
+
+    private static boolean[] bfs(Graph graph, int source) {
+        boolean[] seen = new boolean[graph.getN()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        seen[source] = true;
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (int i = 0; i < graph.outDegree(u); i++) {
+                int v = graph.target(u, i);
+                if (!seen[v]) {
+                    seen[v] = true;
+                    queue.add(v);
+                }
+            }
+        }
+        return seen;
+    }
+
+    private static void assertMatchesBfs(Graph graph, ReachabilityIndex index) {
+        for (int u = 0; u < graph.getN(); u++) {
+            boolean[] expected = bfs(graph, u);
+            for (int v = 0; v < graph.getN(); v++) {
+                assertEquals(expected[v], index.reaches(u, v), u + " -> " + v);
+            }
+        }
+    }
+
+    @Test
+    public void testSmallGraphWithCycle() {
+        // 0 -> {1, 2} cycle -> 3, plus independent 4
+        Graph graph = new Graph(5, true, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 1, 1);
+        graph.addEdge(2, 3, 1);
+        CondensationGraph condensation = new CondensationGraph(graph, new TarjanSCC(graph).findSCCs());
+
+        ReachabilityIndex index = new ReachabilityIndex(condensation);
+
+        assertTrue(index.usesClosure());
+        assertTrue(index.reaches(0, 3));
+        assertTrue(index.reaches(2, 1));
+        assertFalse(index.reaches(3, 0));
+        assertFalse(index.reaches(0, 4));
+    }
+
+    @Test
+    public void testClosureMatchesBfs() {
+        Graph graph = RandomGraphs.builder(300, 600).forwardFraction(0.9).build(2);
+        CondensationGraph condensation = new CondensationGraph(graph, new TarjanSCC(graph).findSCCs());
+
+        ReachabilityIndex index = new ReachabilityIndex(condensation);
+
+        assertTrue(index.usesClosure());
+        assertMatchesBfs(graph, index);
+    }
+
+    @Test
+    public void testLabelsMatchBfs() {
+        for (long seed = 0; seed < 5; seed++) {
+            Graph graph = RandomGraphs.builder(300, 500).forwardFraction(0.9).build(seed);
+            CondensationGraph condensation = new CondensationGraph(graph, new TarjanSCC(graph).findSCCs());
+            Metrics metrics = new MetricsImpl();
+
+            ReachabilityIndex index = new ReachabilityIndex(condensation.getCondensationCSR(),
+                    condensation.getComponentMap(), 0, metrics);
+
+            assertFalse(index.usesClosure());
+            assertMatchesBfs(graph, index);
+            assertTrue(metrics.getCounter("reach_fallback_searches") < metrics.getCounter("reach_queries"));
+        }
+    }
+
+    @Test
+    public void testReportsSizeBuildTimeAndThroughput() {
+        Graph graph = RandomGraphs.builder(20000, 40000).forwardFraction(0.9).build(8);
+        CondensationGraph condensation = new CondensationGraph(graph, new TarjanSCC(graph).findSCCs());
+        Metrics metrics = new MetricsImpl();
+
+        ReachabilityIndex index = new ReachabilityIndex(condensation.getCondensationCSR(),
+                condensation.getComponentMap(), 1 << 20, metrics);
+        double perSecond = index.measureQueryThroughput(10000, 1);
+
+        assertFalse(index.usesClosure());
+        assertTrue(index.getSizeBytes() > 0);
+        assertTrue(index.getBuildNanos() > 0);
+        assertTrue(perSecond > 0);
+        assertEquals(index.getSizeBytes(), metrics.getCounter("index_bytes"));
+        assertEquals(10000, metrics.getCounter("reach_queries"));
+
+        double again = index.measureQueryThroughput(10000, 2);
+        assertEquals(Math.round(again), metrics.getCounter("reach_queries_per_second"));
+    }
+}
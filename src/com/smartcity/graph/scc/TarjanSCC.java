@@ -1,78 +1,155 @@
 package com.smartcity.graph.scc;
 
-import com.smartcity.common.Graph;
+import com.smartcity.common.GraphView;
 import com.smartcity.common.Metrics;
 import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.Tracer;
+import com.smartcity.common.Workspace;
 import java.util.*;
 
 public class TarjanSCC {
-    private final Graph graph;
+    private final GraphView graph;
     private final Metrics metrics;
 
     private int[] ids;
     private int[] low;
-    private boolean[] onStack;
-    private Stack<Integer> stack;
+    private Workspace.Marks visited;
+    private Workspace.Marks onStack;
+    private int[] stack;        // Tarjan component stack
+    private int stackSize;
+    private int[] callStack;    // explicit DFS call stack
+    private GraphView.EdgeCursors cursors;  // where each vertex's edge scan resumes
     private int id;
     private List<List<Integer>> sacs;
-    public TarjanSCC(Graph graph) {
+    private int[] componentOf;  // set instead of sacs by findComponents
+    private int componentCount;
+    private Metrics.Counter dfsVisits;
+    private Metrics.Counter edgesExplored;
+    private Metrics.Counter stackPops;
+    public TarjanSCC(GraphView graph) {
         this(graph, new MetricsImpl());
     }
-    public TarjanSCC(Graph graph, Metrics metrics) {
+    public TarjanSCC(GraphView graph, Metrics metrics) {
         this.graph = graph;
         this.metrics = metrics;
     }
 
     public List<List<Integer>> findSCCs() {
-        int n = graph.getN();
-        ids = new int[n];
-        low = new int[n];
-        onStack = new boolean[n];
-        stack = new Stack<>();
         sacs = new ArrayList<>();
+        componentOf = null;
+        run();
+        return sacs;
+    }
+
+    /**
+     * Writes the component of every vertex into {@code componentOf}, numbered in the order
+     * {@link #findSCCs()} would list them, and returns the component count. Allocates nothing
+     * once the thread's {@link Workspace} has grown to the graph size.
+     */
+    public int findComponents(int[] componentOf) {
+        if (componentOf.length < graph.getN()) {
+            throw new IllegalArgumentException("componentOf needs " + graph.getN() + " entries");
+        }
+        sacs = null;
+        this.componentOf = componentOf;
+        run();
+        this.componentOf = null;
+        return componentCount;
+    }
+
+    private void run() {
+        int n = graph.getN();
+        stackSize = 0;
+        componentCount = 0;
         id = 0;
+        dfsVisits = metrics.counter("dfs_visits");
+        edgesExplored = metrics.counter("edges_explored");
+        stackPops = metrics.counter("stack_pops");
 
-        Arrays.fill(ids, -1);
+        try (Tracer.Span span = Tracer.global().span("tarjan_scc").graph(graph).counters(metrics);
+             Workspace.Scope scope = Workspace.open()) {
+            ids = scope.ints(n);
+            low = scope.ints(n);
+            stack = scope.ints(n);
+            callStack = scope.ints(n);
+            visited = scope.marks(n);
+            onStack = scope.marks(n);
+            cursors = graph.cursors(scope);
 
-        metrics.startTimer();
+            metrics.startTimer();
 
-        for (int u = 0; u < n; u++) {
-            if (ids[u] == -1) {
-                dfs(u);
+            for (int u = 0; u < n; u++) {
+                if (!visited.isMarked(u)) {
+                    dfs(u);
+                }
             }
+            metrics.stopTimer();
+        } finally {
+            ids = low = stack = callStack = null;
+            visited = onStack = null;
+            cursors = null;
         }
-        metrics.stopTimer();
-
-        return sacs;
     }
-    private void dfs(int u) {
-        metrics.incrementCounter("dfs_visits");
-        ids[u] = low[u] = id++;
-        stack.push(u);
-        onStack[u] = true;
-        for (Graph.Edge edge : graph.getNeighbors(u)) {
-            int v = edge.to();
-            metrics.incrementCounter("edges_explored");
-
-            if (ids[v] == -1) {
-                dfs(v);
-                low[u] = Math.min(low[u], low[v]);
-            } else if (onStack[v]) {
-                low[u] = Math.min(low[u], ids[v]);
+
+    /** Iterative DFS from {@code root}; native stack depth stays constant regardless of graph depth. */
+    private void dfs(int root) {
+        int depth = 0;
+        visit(root);
+        callStack[depth++] = root;
+
+        while (depth > 0) {
+            int u = callStack[depth - 1];
+            if (cursors.hasNext(u)) {
+                int v = cursors.next(u);
+                edgesExplored.increment();
+
+                if (!visited.isMarked(v)) {
+                    visit(v);
+                    callStack[depth++] = v;
+                } else if (onStack.isMarked(v)) {
+                    low[u] = Math.min(low[u], ids[v]);
+                }
+                continue;
+            }
+
+            depth--;
+            if (ids[u] == low[u]) {
+                popComponent(u);
+            }
+            if (depth > 0) {
+                int parent = callStack[depth - 1];
+                low[parent] = Math.min(low[parent], low[u]);
             }
         }
-        if (ids[u] == low[u]) {
-            List<Integer> scc = new ArrayList<>();
-            int v;
-            do {
-                v = stack.pop();
-                onStack[v] = false;
+    }
+
+    private void visit(int u) {
+        dfsVisits.increment();
+        visited.mark(u);
+        ids[u] = low[u] = id++;
+        cursors.reset(u);
+        stack[stackSize++] = u;
+        onStack.mark(u);
+    }
+
+    private void popComponent(int u) {
+        List<Integer> scc = sacs != null ? new ArrayList<>() : null;
+        int v;
+        do {
+            v = stack[--stackSize];
+            onStack.unmark(v);
+            if (scc != null) {
                 scc.add(v);
-                metrics.incrementCounter("stack_pops");
-            } while (v != u);
+            } else {
+                componentOf[v] = componentCount;
+            }
+            stackPops.increment();
+        } while (v != u);
 
+        if (scc != null) {
             sacs.add(scc);
         }
+        componentCount++;
     }
     public Metrics getMetrics() {
         return metrics;
@@ -1,22 +1,29 @@
 package com.smartcity.graph.topo;
 
-import com.smartcity.common.Graph;
+import com.smartcity.common.GraphView;
 import java.util.*;
 
 public class ComponentTopologicalSort {
 
-    private static Graph condensation;
+    private static GraphView condensation;
     private static List<List<Integer>> sacs;
 
     public record TopoResult(List<Integer> componentOrder, List<Integer> taskOrder) {
     }
 
-    public static TopoResult sortWithTasks(Graph condensation, List<List<Integer>> sacs) {
+    public static TopoResult sortWithTasks(GraphView condensation, List<List<Integer>> sacs) {
         ComponentTopologicalSort.condensation = condensation;
         ComponentTopologicalSort.sacs = sacs;
         KahnTopologicalSort kahnSort = new KahnTopologicalSort(condensation);
-        List<Integer> componentOrder = kahnSort.sort();
+        return withTasks(kahnSort.sort(), sacs);
+    }
+
+    /** Uses the order an {@link OnlineTopologicalOrder} already maintains over the condensation instead of re-sorting. */
+    public static TopoResult sortWithTasks(OnlineTopologicalOrder condensationOrder, List<List<Integer>> sacs) {
+        return withTasks(condensationOrder.getOrder(), sacs);
+    }
 
+    private static TopoResult withTasks(List<Integer> componentOrder, List<List<Integer>> sacs) {
         if (componentOrder == null) {
             return null;
         }
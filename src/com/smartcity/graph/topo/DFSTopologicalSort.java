@@ -1,78 +1,134 @@
 package com.smartcity.graph.topo;
 
-import com.smartcity.common.Graph;
+import com.smartcity.common.GraphView;
 import com.smartcity.common.Metrics;
 import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.Tracer;
+import com.smartcity.common.Workspace;
 import java.util.*;
 
 public class DFSTopologicalSort {
-    private final Graph graph;
+    private final GraphView graph;
     private final Metrics metrics;
-    private boolean[] visited;
-    private boolean[] recStack;
-    private Stack<Integer> stack;
+    private Workspace.Marks visited;
+    private Workspace.Marks recStack;
+    private int[] postOrder;
+    private int postOrderSize;
+    private int[] callStack;
+    private GraphView.EdgeCursors cursors;  // where each vertex's edge scan resumes
     private boolean hasCycle;
+    private Metrics.Counter dfsVisits;
+    private Metrics.Counter edgesExplored;
+    private Metrics.Counter stackPushes;
 
-    public DFSTopologicalSort(Graph graph) {
+    public DFSTopologicalSort(GraphView graph) {
         this(graph, new MetricsImpl());
     }
 
-    public DFSTopologicalSort(Graph graph, Metrics metrics) {
+    public DFSTopologicalSort(GraphView graph, Metrics metrics) {
         this.graph = graph;
         this.metrics = metrics;
     }
 
     public List<Integer> sort() {
+        try (Workspace.Scope scope = Workspace.open()) {
+            int n = graph.getN();
+            int[] order = scope.ints(n);
+            if (!sortInto(order)) {
+                return null;
+            }
+            List<Integer> result = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                result.add(order[i]);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Writes a topological order into the first {@code n} entries of {@code order}.
+     *
+     * @return false if the graph has a cycle, in which case {@code order} holds garbage
+     */
+    public boolean sortInto(int[] order) {
         int n = graph.getN();
-        visited = new boolean[n];
-        recStack = new boolean[n];
-        stack = new Stack<>();
+        if (order.length < n) {
+            throw new IllegalArgumentException("order needs " + n + " entries");
+        }
+        postOrderSize = 0;
         hasCycle = false;
-
-        metrics.startTimer();
-
-        for (int u= 0; u < n; u++)
-            if (!visited[u]) {
-                dfs(u);
-                if (hasCycle) {
-                    metrics.stopTimer();
-                    return null;
+        dfsVisits = metrics.counter("dfs_visits");
+        edgesExplored = metrics.counter("edges_explored");
+        stackPushes = metrics.counter("stack_pushes");
+
+        try (Tracer.Span span = Tracer.global().span("dfs_topological_sort").graph(graph).counters(metrics);
+             Workspace.Scope scope = Workspace.open()) {
+            visited = scope.marks(n);
+            recStack = scope.marks(n);
+            postOrder = scope.ints(n);
+            callStack = scope.ints(n);
+            cursors = graph.cursors(scope);
+
+            metrics.startTimer();
+
+            for (int u= 0; u < n; u++)
+                if (!visited.isMarked(u)) {
+                    dfs(u);
+                    if (hasCycle) {
+                        metrics.stopTimer();
+                        return false;
+                    }
                 }
-            }
 
-        metrics.stopTimer();
+            metrics.stopTimer();
 
-        List<Integer> result = new ArrayList<>();
-        while (!stack.isEmpty()) {
-            result.add(stack.pop());
+            for (int i = 0; i < n; i++) {
+                order[i] = postOrder[n - 1 - i];
+            }
+            return true;
+        } finally {
+            visited = recStack = null;
+            postOrder = callStack = null;
+            cursors = null;
         }
-
-        return result;
     }
 
-    private void dfs(int u) {
-        visited[u] = true;
-        recStack[u] = true;
-        metrics.incrementCounter("dfs_visits");
-
-        for (Graph.Edge edge : graph.getNeighbors(u)) {
-            int v = edge.to();
-            metrics.incrementCounter("edges_explored");
+    /** Iterative post-order DFS; uses explicit int stacks so deep chains cannot overflow. */
+    private void dfs(int root) {
+        int depth = 0;
+        visit(root);
+        callStack[depth++] = root;
+
+        while (depth > 0) {
+            int u = callStack[depth - 1];
+            if (cursors.hasNext(u)) {
+                int v = cursors.next(u);
+                edgesExplored.increment();
+
+                if (recStack.isMarked(v)) {
+                    hasCycle = true;
+                    return;
+                }
 
-            if (recStack[v]) {
-                hasCycle = true;
-                return;
+                if (!visited.isMarked(v)) {
+                    visit(v);
+                    callStack[depth++] = v;
+                }
+                continue;
             }
 
-            if (!visited[v]) {
-                dfs(v);
-                if (hasCycle) return;
-            }
+            depth--;
+            recStack.unmark(u);
+            postOrder[postOrderSize++] = u;
+            stackPushes.increment();
         }
+    }
 
-        recStack[u] = false;
-        stack.push(u);
-        metrics.incrementCounter("stack_pushes");
+    private void visit(int u) {
+        visited.mark(u);
+        recStack.mark(u);
+        cursors.reset(u);
+        dfsVisits.increment();
     }
 
     public Metrics getMetrics() {
@@ -1,60 +1,88 @@
 package com.smartcity.graph.topo;
 
-import com.smartcity.common.Graph;
+import com.smartcity.common.GraphView;
 import com.smartcity.common.Metrics;
 import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.Tracer;
+import com.smartcity.common.Workspace;
 import java.util.*;
 
-public record KahnTopologicalSort(Graph graph, Metrics metrics) {
-    public KahnTopologicalSort(Graph graph) {
+public record KahnTopologicalSort(GraphView graph, Metrics metrics) {
+    public KahnTopologicalSort(GraphView graph) {
         this(graph, new MetricsImpl());
     }
 
     public List<Integer> sort() {
-        int n = graph.getN();
-        int[] inDegree = new int[n];
-
-        for (int u = 0; u < n; u++) {
-            for (Graph.Edge edge : graph.getNeighbors(u)) {
-                inDegree[edge.to()]++;
+        try (Workspace.Scope scope = Workspace.open()) {
+            int n = graph.getN();
+            int[] order = scope.ints(n);
+            if (!sortInto(order)) {
+                return null;
             }
+            List<Integer> topoOrder = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                topoOrder.add(order[i]);
+            }
+            return topoOrder;
         }
+    }
 
-        Queue<Integer> queue = new LinkedList<>();
-        for (int u = 0; u < n; u++) {
-            if (inDegree[u] == 0) {
-                queue.offer(u);
-                metrics.incrementCounter("queue_pushes");
-            }
+    /**
+     * Writes a topological order into the first {@code n} entries of {@code order}, which also
+     * serves as the FIFO queue.
+     *
+     * @return false if the graph has a cycle, in which case {@code order} holds garbage
+     */
+    public boolean sortInto(int[] order) {
+        int n = graph.getN();
+        if (order.length < n) {
+            throw new IllegalArgumentException("order needs " + n + " entries");
         }
+        Metrics.Counter queuePushes = metrics.counter("queue_pushes");
+        Metrics.Counter queuePops = metrics.counter("queue_pops");
+        Metrics.Counter edgeRelaxations = metrics.counter("edge_relaxations");
+
+        try (Tracer.Span span = Tracer.global().span("kahn_topological_sort").graph(graph).counters(metrics);
+             Workspace.Scope scope = Workspace.open()) {
+            int[] inDegree = scope.filled(n, 0);
+            GraphView.EdgeCursor cursor = graph.cursor();
 
-        List<Integer> topoOrder = new ArrayList<>();
+            // Timed from the in-degree pass on, so the wall clock covers the whole sort
+            metrics.startTimer();
 
-        metrics.startTimer();
+            for (int u = 0; u < n; u++) {
+                for (cursor.reset(u); cursor.hasNext(); ) {
+                    inDegree[cursor.next()]++;
+                }
+            }
 
-        while (!queue.isEmpty()) {
-            int u = queue.poll();
-            metrics.incrementCounter("queue_pops");
-            topoOrder.add(u);
+            int tail = 0;
+            for (int u = 0; u < n; u++) {
+                if (inDegree[u] == 0) {
+                    order[tail++] = u;
+                    queuePushes.increment();
+                }
+            }
 
-            for (Graph.Edge edge : graph.getNeighbors(u)) {
-                int v = edge.to();
-                inDegree[v]--;
-                metrics.incrementCounter("edge_relaxations");
+            for (int head = 0; head < tail; head++) {
+                int u = order[head];
+                queuePops.increment();
 
-                if (inDegree[v] == 0) {
-                    queue.offer(v);
-                    metrics.incrementCounter("queue_pushes");
+                for (cursor.reset(u); cursor.hasNext(); ) {
+                    int v = cursor.next();
+                    inDegree[v]--;
+                    edgeRelaxations.increment();
+
+                    if (inDegree[v] == 0) {
+                        order[tail++] = v;
+                        queuePushes.increment();
+                    }
                 }
             }
-        }
 
-        metrics.stopTimer();
+            metrics.stopTimer();
 
-        if (topoOrder.size() != n) {
-            return null;
+            return tail == n;
         }
-
-        return topoOrder;
     }
-}
\ No newline at end of file
+}
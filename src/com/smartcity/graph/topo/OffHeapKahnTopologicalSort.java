@@ -0,0 +1,88 @@
+package com.smartcity.graph.topo;
+
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.NativeArray;
+import com.smartcity.common.OffHeapGraph;
+
+/**
+ * {@link KahnTopologicalSort} over an {@link OffHeapGraph}. The in-degree array is native, the
+ * order doubles as the FIFO queue as in the heap version, and the caller owns it. The in-degree
+ * array is kept for reuse until {@link #close()}.
+ */
+public final class OffHeapKahnTopologicalSort implements AutoCloseable {
+    private final OffHeapGraph graph;
+    private final Metrics metrics;
+    private NativeArray inDegree;
+
+    public OffHeapKahnTopologicalSort(OffHeapGraph graph) {
+        this(graph, new MetricsImpl());
+    }
+
+    public OffHeapKahnTopologicalSort(OffHeapGraph graph, Metrics metrics) {
+        this.graph = graph;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Writes a topological order into the first {@code n} entries of {@code order}.
+     *
+     * @return false if the graph has a cycle, in which case {@code order} holds garbage
+     */
+    public boolean sortInto(NativeArray order) {
+        int n = graph.getN();
+        if (order.length() < n) {
+            throw new IllegalArgumentException("order needs " + n + " entries");
+        }
+        if (inDegree == null) {
+            inDegree = NativeArray.ints(n);
+        }
+        inDegree.fill(0);
+
+        metrics.startTimer();
+        long m = graph.getEdgeCount();
+        for (long e = 0; e < m; e++) {
+            int v = graph.edgeTarget(e);
+            inDegree.setInt(v, inDegree.getInt(v) + 1);
+        }
+
+        int tail = 0;
+        long relaxations = 0;
+        for (int u = 0; u < n; u++) {
+            if (inDegree.getInt(u) == 0) {
+                order.setInt(tail++, u);
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int u = order.getInt(head);
+            long end = graph.edgeEnd(u);
+            relaxations += end - graph.edgeStart(u);
+            for (long e = graph.edgeStart(u); e < end; e++) {
+                int v = graph.edgeTarget(e);
+                int degree = inDegree.getInt(v) - 1;
+                inDegree.setInt(v, degree);
+                if (degree == 0) {
+                    order.setInt(tail++, v);
+                }
+            }
+        }
+        metrics.stopTimer();
+
+        metrics.addCounter("queue_pushes", tail);
+        metrics.addCounter("queue_pops", tail);
+        metrics.addCounter("edge_relaxations", relaxations);
+        return tail == n;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        if (inDegree != null) {
+            inDegree.close();
+            inDegree = null;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.smartcity.graph.topo;
+
+import com.smartcity.common.DynamicGraph;
+import com.smartcity.common.GraphView;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import java.util.*;
+
+/**
+ * Topological order of a DAG maintained under edge insertions (Pearce–Kelly).
+ *
+ * Each vertex holds a position {@code ord[v]} in {@code [0, n)}. Inserting {@code u -> v} with
+ * {@code ord[u] < ord[v]} costs O(1). Otherwise only the affected region is touched: a forward
+ * DFS from {@code v} over positions up to {@code ord[u]} and a backward DFS from {@code u} over
+ * positions from {@code ord[v]}. If the forward search reaches {@code u} the edge would close a
+ * cycle; it is rejected and the cycle is kept for {@link #getLastCycle()}. Otherwise the two
+ * regions swap sides and reuse their own positions, so nothing outside them moves.
+ * Deletions never invalidate the order.
+ */
+public class OnlineTopologicalOrder implements GraphView {
+    private final DynamicGraph graph;
+    private final Metrics metrics;
+    private final int[] ord;     // vertex -> position
+    private final int[] vertex;  // position -> vertex
+
+    // Search scratch, stamped so nothing is cleared between inserts
+    private final int[] forwardMark;
+    private final int[] backwardMark;
+    private final int[] parent;
+    private final int[] forward;
+    private final int[] backward;
+    private final int[] stack;
+    private int epoch;
+    private List<Integer> lastCycle;
+
+    private final Metrics.Counter edgesInserted;
+    private final Metrics.Counter reorders;
+    private final Metrics.Counter verticesSearched;
+    private final Metrics.Counter cyclesRejected;
+
+    /** Starts from an edgeless graph, ordered by vertex id. */
+    public OnlineTopologicalOrder(int n, String weightModel) {
+        this(new DynamicGraph(n, weightModel), null, new MetricsImpl());
+    }
+
+    public OnlineTopologicalOrder(GraphView dag) {
+        this(dag, new MetricsImpl());
+    }
+
+    /**
+     * Copies {@code dag} and orders it once with Kahn's algorithm.
+     *
+     * @throws IllegalArgumentException if {@code dag} has a cycle
+     */
+    public OnlineTopologicalOrder(GraphView dag, Metrics metrics) {
+        this(new DynamicGraph(dag), new KahnTopologicalSort(dag, new MetricsImpl()).sort(), metrics);
+    }
+
+    private OnlineTopologicalOrder(DynamicGraph graph, List<Integer> initialOrder, Metrics metrics) {
+        int n = graph.getN();
+        if (initialOrder == null && graph.getEdgeCount() > 0) {
+            throw new IllegalArgumentException("Graph has a cycle; no topological order exists");
+        }
+        this.graph = graph;
+        this.metrics = metrics;
+        ord = new int[n];
+        vertex = new int[n];
+        for (int i = 0; i < n; i++) {
+            vertex[i] = initialOrder == null ? i : initialOrder.get(i);
+            ord[vertex[i]] = i;
+        }
+        forwardMark = new int[n];
+        backwardMark = new int[n];
+        parent = new int[n];
+        forward = new int[n];
+        backward = new int[n];
+        stack = new int[n];
+
+        edgesInserted = metrics.counter("edges_inserted");
+        reorders = metrics.counter("reorders");
+        verticesSearched = metrics.counter("vertices_searched");
+        cyclesRejected = metrics.counter("cycles_rejected");
+    }
+
+    /**
+     * Inserts {@code u -> v} unless it would close a cycle.
+     *
+     * @return false if the edge was rejected; {@link #getLastCycle()} then holds the cycle
+     */
+    public boolean addEdge(int u, int v, int weight) {
+        if (u == v) {
+            return reject(List.of(u, u));
+        }
+        int lower = ord[v];
+        int upper = ord[u];
+        if (lower > upper) {
+            graph.addEdge(u, v, weight);
+            edgesInserted.increment();
+            return true;
+        }
+
+        int mark = ++epoch;
+        int forwardSize = searchForward(v, u, upper, mark);
+        if (forwardMark[u] == mark) {
+            List<Integer> cycle = new ArrayList<>();
+            for (int x = u; x != v; x = parent[x]) {
+                cycle.add(x);
+            }
+            cycle.add(v);
+            cycle.add(u);
+            Collections.reverse(cycle);
+            return reject(cycle);
+        }
+        int backwardSize = searchBackward(u, lower, mark);
+        reorder(forwardSize, backwardSize);
+
+        graph.addEdge(u, v, weight);
+        edgesInserted.increment();
+        return true;
+    }
+
+    /** Removes one occurrence of {@code u -> v}; the current order stays valid. */
+    public boolean removeEdge(int u, int v) {
+        return graph.removeEdge(u, v);
+    }
+
+    private boolean reject(List<Integer> cycle) {
+        lastCycle = cycle;
+        cyclesRejected.increment();
+        return false;
+    }
+
+    /** DFS from {@code start} over positions at most {@code upper}; stops early once {@code goal} is found. */
+    private int searchForward(int start, int goal, int upper, int mark) {
+        int size = 0;
+        int top = 0;
+        forwardMark[start] = mark;
+        forward[size++] = start;
+        stack[top++] = start;
+        while (top > 0) {
+            int x = stack[--top];
+            verticesSearched.increment();
+            int degree = graph.outDegree(x);
+            for (int i = 0; i < degree; i++) {
+                int y = graph.target(x, i);
+                if (forwardMark[y] == mark || ord[y] > upper) {
+                    continue;
+                }
+                forwardMark[y] = mark;
+                parent[y] = x;
+                if (y == goal) {
+                    return size;
+                }
+                forward[size++] = y;
+                stack[top++] = y;
+            }
+        }
+        return size;
+    }
+
+    private int searchBackward(int start, int lower, int mark) {
+        int size = 0;
+        int top = 0;
+        backwardMark[start] = mark;
+        backward[size++] = start;
+        stack[top++] = start;
+        while (top > 0) {
+            int x = stack[--top];
+            verticesSearched.increment();
+            int degree = graph.inDegree(x);
+            for (int i = 0; i < degree; i++) {
+                int y = graph.source(x, i);
+                if (backwardMark[y] == mark || ord[y] < lower) {
+                    continue;
+                }
+                backwardMark[y] = mark;
+                backward[size++] = y;
+                stack[top++] = y;
+            }
+        }
+        return size;
+    }
+
+    /** Places the backward region before the forward region, using only their own positions. */
+    private void reorder(int forwardSize, int backwardSize) {
+        sortByPosition(backward, backwardSize);
+        sortByPosition(forward, forwardSize);
+        int total = backwardSize + forwardSize;
+        int[] positions = new int[total];
+        for (int i = 0; i < backwardSize; i++) {
+            positions[i] = ord[backward[i]];
+        }
+        for (int i = 0; i < forwardSize; i++) {
+            positions[backwardSize + i] = ord[forward[i]];
+        }
+        Arrays.sort(positions);
+        for (int i = 0; i < total; i++) {
+            int x = i < backwardSize ? backward[i] : forward[i - backwardSize];
+            ord[x] = positions[i];
+            vertex[positions[i]] = x;
+        }
+        reorders.increment();
+    }
+
+    private void sortByPosition(int[] vertices, int size) {
+        for (int i = 0; i < size; i++) {
+            vertices[i] = ord[vertices[i]];
+        }
+        Arrays.sort(vertices, 0, size);
+        for (int i = 0; i < size; i++) {
+            vertices[i] = vertex[vertices[i]];
+        }
+    }
+
+    /** The cycle {@code [u, v, ..., u]} that made the last rejected insert fail, or null. */
+    public List<Integer> getLastCycle() {
+        return lastCycle;
+    }
+
+    public int position(int v) {
+        return ord[v];
+    }
+
+    public boolean precedes(int u, int v) {
+        return ord[u] < ord[v];
+    }
+
+    /** The current order; O(n), so prefer {@link #position(int)} for single queries. */
+    public List<Integer> getOrder() {
+        List<Integer> order = new ArrayList<>(vertex.length);
+        for (int v : vertex) {
+            order.add(v);
+        }
+        return order;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public int getN() {
+        return graph.getN();
+    }
+
+    @Override
+    public boolean isDirected() {
+        return true;
+    }
+
+    @Override
+    public String getWeightModel() {
+        return graph.getWeightModel();
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return graph.getEdgeCount();
+    }
+
+    @Override
+    public long getVersion() {
+        return graph.getVersion();
+    }
+
+    @Override
+    public int outDegree(int u) {
+        return graph.outDegree(u);
+    }
+
+    @Override
+    public int target(int u, int i) {
+        return graph.target(u, i);
+    }
+
+    @Override
+    public int weight(int u, int i) {
+        return graph.weight(u, i);
+    }
+}
@@ -0,0 +1,144 @@
+package com.smartcity.graph.topo;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OnlineTopologicalOrderTest {
+
+    private static void assertValidOrder(OnlineTopologicalOrder order) {
+        List<Integer> vertices = order.getOrder();
+        for (int i = 0; i < vertices.size(); i++) {
+            assertEquals(i, order.position(vertices.get(i)));
+        }
+        for (int u = 0; u < order.getN(); u++) {
+            for (int i = 0; i < order.outDegree(u); i++) {
+                assertTrue(order.precedes(u, order.target(u, i)));
+            }
+        }
+    }
+
+    @Test
+    public void testBackwardInsertReordersOnlyAffectedRegion() {
+        OnlineTopologicalOrder order = new OnlineTopologicalOrder(6, "edge");
+        order.addEdge(4, 5, 1);
+        order.addEdge(1, 2, 1);
+
+        assertTrue(order.addEdge(5, 1, 1));
+
+        assertValidOrder(order);
+        assertEquals(0, order.position(0));
+        assertEquals(3, order.position(3));
+    }
+
+    @Test
+    public void testForwardInsertDoesNotSearch() {
+        Metrics metrics = new MetricsImpl();
+        Graph graph = new Graph(4, true, "edge");
+        graph.addEdge(0, 1, 1);
+        OnlineTopologicalOrder order = new OnlineTopologicalOrder(graph, metrics);
+
+        assertTrue(order.addEdge(order.getOrder().get(0), order.getOrder().get(3), 1));
+
+        assertEquals(0, metrics.getCounter("vertices_searched"));
+        assertEquals(0, metrics.getCounter("reorders"));
+        assertValidOrder(order);
+    }
+
+    @Test
+    public void testCycleIsRejectedAndReported() {
+        Graph graph = new Graph(4, true, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 3, 1);
+        OnlineTopologicalOrder order = new OnlineTopologicalOrder(graph);
+
+        assertFalse(order.addEdge(3, 1, 1));
+
+        assertEquals(List.of(3, 1, 2, 3), order.getLastCycle());
+        assertEquals(3, order.getEdgeCount());
+        assertValidOrder(order);
+
+        assertFalse(order.addEdge(2, 2, 1));
+        assertEquals(List.of(2, 2), order.getLastCycle());
+    }
+
+    @Test
+    public void testCyclicInputIsRejected() {
+        Graph graph = new Graph(2, true, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> new OnlineTopologicalOrder(graph));
+    }
+
+    @Test
+    public void testRandomInsertsMatchOfflineCycleCheck() {
+        Random random = new Random(11);
+        int n = 200;
+        OnlineTopologicalOrder order = new OnlineTopologicalOrder(n, "edge");
+        Graph accepted = new Graph(n, true, "edge");
+
+        for (int step = 0; step < 3000; step++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            boolean added = order.addEdge(u, v, 1);
+
+            Graph candidate = new Graph(n, true, "edge");
+            for (int x = 0; x < n; x++) {
+                for (Graph.Edge edge : accepted.getNeighbors(x)) {
+                    candidate.addEdge(x, edge.to(), edge.weight());
+                }
+            }
+            candidate.addEdge(u, v, 1);
+            boolean acyclic = new KahnTopologicalSort(candidate).sort() != null;
+
+            assertEquals(acyclic, added);
+            if (added) {
+                accepted.addEdge(u, v, 1);
+            }
+            if (step % 100 == 0) {
+                order.removeEdge(u, v);
+                if (added) {
+                    accepted = copyWithout(accepted, u, v);
+                }
+                assertValidOrder(order);
+            }
+        }
+        assertValidOrder(order);
+    }
+
+    private static Graph copyWithout(Graph graph, int u, int v) {
+        Graph copy = new Graph(graph.getN(), true, "edge");
+        boolean skipped = false;
+        for (int x = 0; x < graph.getN(); x++) {
+            for (Graph.Edge edge : graph.getNeighbors(x)) {
+                if (!skipped && x == u && edge.to() == v) {
+                    skipped = true;
+                    continue;
+                }
+                copy.addEdge(x, edge.to(), edge.weight());
+            }
+        }
+        return copy;
+    }
+
+    @Test
+    public void testComponentSortUsesMaintainedOrder() {
+        Graph dag = new Graph(3, true, "edge");
+        dag.addEdge(2, 1, 1);
+        dag.addEdge(1, 0, 1);
+        OnlineTopologicalOrder order = new OnlineTopologicalOrder(dag);
+        List<List<Integer>> sccs = List.of(List.of(5), List.of(3, 4), List.of(0, 1, 2));
+
+        ComponentTopologicalSort.TopoResult result = ComponentTopologicalSort.sortWithTasks(order, sccs);
+
+        assertEquals(List.of(2, 1, 0), result.componentOrder());
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), result.taskOrder());
+    }
+}
@@ -0,0 +1,257 @@
+package com.smartcity.graph.topo;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.GraphView;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Level-synchronous Kahn sort. Level 0 holds every vertex without predecessors; level
+ * {@code k + 1} holds the vertices whose last predecessor is in level {@code k}. All vertices
+ * of one level are independent of each other, so each level is a wave of tasks that can run
+ * together.
+ *
+ * Frontiers of at least {@link #PARALLEL_FRONTIER} vertices are split into chunks on a
+ * fork/join pool. Chunks decrement the shared {@code int[]} in-degrees atomically, and the chunk
+ * that takes a vertex to zero adds it to the next frontier. Each level is sorted ascending, so
+ * the result does not depend on scheduling.
+ */
+public class ParallelKahnTopologicalSort {
+    static final int PARALLEL_FRONTIER = 2048;
+    private static final VarHandle INT_ARRAY = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final GraphView graph;
+    private final Metrics metrics;
+    private final int parallelism;
+
+    public ParallelKahnTopologicalSort(GraphView graph) {
+        this(graph, new MetricsImpl());
+    }
+
+    public ParallelKahnTopologicalSort(GraphView graph, Metrics metrics) {
+        this(graph, metrics, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelKahnTopologicalSort(GraphView graph, Metrics metrics, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be >= 1");
+        }
+        this.graph = graph;
+        this.metrics = metrics;
+        this.parallelism = parallelism;
+    }
+
+    /** Flat order, level by level; null if the graph has a cycle. */
+    public List<Integer> sort() {
+        List<List<Integer>> levels = sortLevels();
+        if (levels == null) {
+            return null;
+        }
+        List<Integer> order = new ArrayList<>(graph.getN());
+        for (List<Integer> level : levels) {
+            order.addAll(level);
+        }
+        return order;
+    }
+
+    /** Dependency waves in execution order; null if the graph has a cycle. */
+    public List<List<Integer>> sortLevels() {
+        int[][] levels = sortLevelArrays();
+        if (levels == null) {
+            return null;
+        }
+        List<List<Integer>> result = new ArrayList<>(levels.length);
+        for (int[] level : levels) {
+            List<Integer> wave = new ArrayList<>(level.length);
+            for (int v : level) {
+                wave.add(v);
+            }
+            result.add(wave);
+        }
+        return result;
+    }
+
+    /** Same as {@link #sortLevels()} without boxing. */
+    public int[][] sortLevelArrays() {
+        int n = graph.getN();
+        CSRGraph csr = CSRGraph.fromGraph(graph);
+        int[] offsets = csr.getOffsets();
+        int[] targets = csr.getTargets();
+        int[] inDegree = new int[n];
+        Metrics.Counter edgeRelaxations = metrics.counter("edge_relaxations");
+        Metrics.Counter parallelLevels = metrics.counter("parallel_levels");
+
+        metrics.startTimer();
+        ForkJoinPool pool = parallelism > 1 && n >= PARALLEL_FRONTIER ? new ForkJoinPool(parallelism) : null;
+        try {
+            if (pool != null) {
+                pool.invoke(new InDegreeTask(offsets, targets, inDegree, 0, n));
+            } else {
+                for (int e = 0; e < targets.length; e++) {
+                    inDegree[targets[e]]++;
+                }
+            }
+
+            int[] frontier = new int[n];
+            int size = 0;
+            for (int v = 0; v < n; v++) {
+                if (inDegree[v] == 0) {
+                    frontier[size++] = v;
+                }
+            }
+
+            List<int[]> levels = new ArrayList<>();
+            int emitted = 0;
+            int widest = 0;
+            while (size > 0) {
+                int[] level = Arrays.copyOf(frontier, size);
+                levels.add(level);
+                emitted += size;
+                widest = Math.max(widest, size);
+
+                if (pool != null && size >= PARALLEL_FRONTIER) {
+                    size = expandParallel(pool, level, offsets, targets, inDegree, frontier);
+                    parallelLevels.increment();
+                } else {
+                    size = 0;
+                    for (int u : level) {
+                        for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                            if (--inDegree[targets[e]] == 0) {
+                                frontier[size++] = targets[e];
+                            }
+                        }
+                    }
+                }
+                edgeRelaxations.add(countEdges(level, offsets));
+                Arrays.sort(frontier, 0, size);
+            }
+            metrics.stopTimer();
+            metrics.addCounter("levels", levels.size());
+            metrics.addCounter("max_level_width", widest);
+
+            if (emitted != n) {
+                return null;
+            }
+            return levels.toArray(new int[0][]);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static long countEdges(int[] level, int[] offsets) {
+        long edges = 0;
+        for (int u : level) {
+            edges += offsets[u + 1] - offsets[u];
+        }
+        return edges;
+    }
+
+    private int expandParallel(ForkJoinPool pool, int[] level, int[] offsets, int[] targets,
+                               int[] inDegree, int[] next) {
+        int chunks = Math.min(parallelism * 4, (level.length + PARALLEL_FRONTIER / 4 - 1) / (PARALLEL_FRONTIER / 4));
+        int[][] ready = new int[chunks][];
+        int[] readyCount = new int[chunks];
+        List<ExpandTask> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            int from = (int) ((long) c * level.length / chunks);
+            int to = (int) ((long) (c + 1) * level.length / chunks);
+            tasks.add(new ExpandTask(level, from, to, offsets, targets, inDegree, ready, readyCount, c));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        int size = 0;
+        for (int c = 0; c < chunks; c++) {
+            System.arraycopy(ready[c], 0, next, size, readyCount[c]);
+            size += readyCount[c];
+        }
+        return size;
+    }
+
+    /** Expands {@code level[from, to)}; vertices it takes to in-degree zero go to {@code ready[chunk]}. */
+    private static final class ExpandTask extends RecursiveAction {
+        private final int[] level;
+        private final int from;
+        private final int to;
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] inDegree;
+        private final int[][] ready;
+        private final int[] readyCount;
+        private final int chunk;
+
+        ExpandTask(int[] level, int from, int to, int[] offsets, int[] targets, int[] inDegree,
+                   int[][] ready, int[] readyCount, int chunk) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.inDegree = inDegree;
+            this.ready = ready;
+            this.readyCount = readyCount;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            int[] found = new int[64];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                int u = level[i];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = targets[e];
+                    if ((int) INT_ARRAY.getAndAdd(inDegree, v, -1) == 1) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = v;
+                    }
+                }
+            }
+            ready[chunk] = found;
+            readyCount[chunk] = count;
+        }
+    }
+
+    private static final class InDegreeTask extends RecursiveAction {
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] inDegree;
+        private final int from;
+        private final int to;
+
+        InDegreeTask(int[] offsets, int[] targets, int[] inDegree, int from, int to) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.inDegree = inDegree;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_FRONTIER * 4) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new InDegreeTask(offsets, targets, inDegree, from, mid),
+                          new InDegreeTask(offsets, targets, inDegree, mid, to));
+                return;
+            }
+            for (int e = offsets[from]; e < offsets[to]; e++) {
+                INT_ARRAY.getAndAdd(inDegree, targets[e], 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.smartcity.graph.topo;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.fixture.RandomGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelKahnTopologicalSortTest {
+
+    /** Expected level of each vertex: longest path length from any source, in edges. */
+    private static int[] levels(Graph dag) {
+        int[] level = new int[dag.getN()];
+        for (int u : new KahnTopologicalSort(dag).sort()) {
+            for (int i = 0; i < dag.outDegree(u); i++) {
+                int v = dag.target(u, i);
+                level[v] = Math.max(level[v], level[u] + 1);
+            }
+        }
+        return level;
+    }
+
+    @Test
+    public void testDiamondLevels() {
+        Graph graph = new Graph(5, true, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 1);
+        graph.addEdge(1, 3, 1);
+        graph.addEdge(2, 3, 1);
+
+        ParallelKahnTopologicalSort sort = new ParallelKahnTopologicalSort(graph);
+
+        assertEquals(List.of(List.of(0, 4), List.of(1, 2), List.of(3)), sort.sortLevels());
+        assertEquals(List.of(0, 4, 1, 2, 3), sort.sort());
+    }
+
+    @Test
+    public void testCycleReturnsNull() {
+        Graph graph = new Graph(3, true, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 1, 1);
+
+        assertNull(new ParallelKahnTopologicalSort(graph).sortLevels());
+        assertNull(new ParallelKahnTopologicalSort(graph).sort());
+    }
+
+    @Test
+    public void testParallelMatchesSequentialOnWideGraph() {
+        Graph graph = RandomGraphs.builder(60000, 240000).acyclic().build(5);
+        int[] expected = levels(graph);
+
+        Metrics metrics = new MetricsImpl();
+        int[][] parallel = new ParallelKahnTopologicalSort(graph, metrics, 4).sortLevelArrays();
+        int[][] sequential = new ParallelKahnTopologicalSort(graph, new MetricsImpl(), 1).sortLevelArrays();
+
+        assertEquals(sequential.length, parallel.length);
+        for (int k = 0; k < parallel.length; k++) {
+            assertArrayEquals(sequential[k], parallel[k]);
+            for (int v : parallel[k]) {
+                assertEquals(expected[v], k);
+            }
+        }
+        assertTrue(metrics.getCounter("parallel_levels") > 0);
+        assertEquals(graph.getEdgeCount(), metrics.getCounter("edge_relaxations"));
+    }
+}
@@ -100,4 +100,22 @@ public class TopologicalSortTest {
         assertTrue(order.indexOf(0) < order.indexOf(1));
         assertTrue(order.indexOf(2) < order.indexOf(3));
     }
+
+    @Test
+    public void testDFSLongChainDoesNotOverflow() {
+        int n = 500_000;
+        Graph graph = new Graph(n, true, "edge");
+        for (int i = 0; i + 1 < n; i++) {
+            graph.addEdge(i, i + 1, 1);
+        }
+
+        DFSTopologicalSort dfs = new DFSTopologicalSort(graph);
+        List<Integer> order = dfs.sort();
+
+        assertNotNull(order);
+        assertEquals(n, order.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
 }
@@ -0,0 +1,257 @@
+package path.testing;
+
+import com.smartcity.common.CSRGraph;
+import com.smartcity.common.GraphView;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import java.util.*;
+
+/**
+ * Critical path method over a DAG: earliest/latest start and finish, slack, and the zero-slack
+ * critical tasks, from one forward and one backward pass.
+ *
+ * A task {@code v} may start once every predecessor {@code u} has finished plus the lag of the
+ * edge {@code u -> v}. Under the "edge" weight model the edge weight is that lag, and task
+ * durations default to 0, so earliest starts equal longest-path distances. Under the "node"
+ * model edges carry no lag and the durations passed to {@link #schedule(int[])} are used. The
+ * topological order and CSR adjacency are computed once and cached, so rescheduling with new
+ * durations costs O(n + m) over primitive arrays only.
+ */
+public final class CriticalPathMethod {
+    private final Metrics metrics;
+    private final boolean nodeModel;
+    private final int[] order;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] lags;
+
+    public CriticalPathMethod(GraphView dag) {
+        this(dag, new MetricsImpl());
+    }
+
+    /** @throws IllegalArgumentException if {@code dag} has a cycle */
+    public CriticalPathMethod(GraphView dag, Metrics metrics) {
+        this.metrics = metrics;
+        this.nodeModel = "node".equals(dag.getWeightModel());
+        CSRGraph csr = CSRGraph.fromGraph(dag);
+        this.offsets = csr.getOffsets();
+        this.targets = csr.getTargets();
+        this.lags = nodeModel ? new int[targets.length] : csr.getWeights();
+        this.order = topologicalOrder(dag.getN(), offsets, targets);
+    }
+
+    private static int[] topologicalOrder(int n, int[] offsets, int[] targets) {
+        int[] inDegree = new int[n];
+        for (int v : targets) {
+            inDegree[v]++;
+        }
+        int[] order = new int[n];
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            if (inDegree[v] == 0) {
+                order[tail++] = v;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int u = order[head];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                if (--inDegree[targets[e]] == 0) {
+                    order[tail++] = targets[e];
+                }
+            }
+        }
+        if (tail != n) {
+            throw new IllegalArgumentException("Graph contains a cycle not a DAG");
+        }
+        return order;
+    }
+
+    /**
+     * Schedule with zero task durations, i.e. edge lags only.
+     *
+     * @throws IllegalArgumentException under the "node" model, which needs durations
+     */
+    public Schedule schedule() {
+        if (nodeModel) {
+            throw new IllegalArgumentException("Node weight model needs task durations");
+        }
+        return schedule(new int[order.length]);
+    }
+
+    /** Schedule with {@code durations[v]} as the duration of task {@code v}. */
+    public Schedule schedule(int[] durations) {
+        int n = order.length;
+        if (durations.length != n) {
+            throw new IllegalArgumentException("Expected " + n + " durations, got " + durations.length);
+        }
+        long[] earliestStart = new long[n];
+        long[] latestFinish = new long[n];
+
+        metrics.startTimer();
+        long project = 0;
+        for (int u : order) {
+            long finish = earliestStart[u] + durations[u];
+            project = Math.max(project, finish);
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                earliestStart[v] = Math.max(earliestStart[v], finish + lags[e]);
+            }
+        }
+
+        Arrays.fill(latestFinish, project);
+        for (int i = n - 1; i >= 0; i--) {
+            int u = order[i];
+            long finish = latestFinish[u];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                finish = Math.min(finish, latestFinish[v] - durations[v] - lags[e]);
+            }
+            latestFinish[u] = finish;
+        }
+        metrics.stopTimer();
+        metrics.incrementCounter("cpm_schedules");
+        metrics.addCounter("edges_scanned", 2L * targets.length);
+
+        long[] duration = new long[n];
+        for (int v = 0; v < n; v++) {
+            duration[v] = durations[v];
+        }
+        return new Schedule(earliestStart, latestFinish, duration, project, this);
+    }
+
+    /**
+     * Task-level schedule when this instance runs over a condensation. Tasks of one component run
+     * one after another in component order, so a component lasts as long as its tasks together.
+     * Every task shares its component's slack. For edge lags, build the condensation with
+     * {@code WeightMerge.MAX} so that merged edges keep their strictest lag.
+     */
+    public Schedule scheduleTasks(List<List<Integer>> components, int[] taskDurations) {
+        if (components.size() != order.length) {
+            throw new IllegalArgumentException("Expected " + order.length + " components, got " + components.size());
+        }
+        int[] componentDurations = new int[components.size()];
+        for (int c = 0; c < components.size(); c++) {
+            long total = 0;
+            for (int v : components.get(c)) {
+                total += taskDurations[v];
+            }
+            componentDurations[c] = Math.toIntExact(total);
+        }
+        Schedule byComponent = schedule(componentDurations);
+
+        int tasks = taskDurations.length;
+        long[] earliestStart = new long[tasks];
+        long[] latestFinish = new long[tasks];
+        long[] duration = new long[tasks];
+        for (int c = 0; c < components.size(); c++) {
+            long offset = 0;
+            for (int v : components.get(c)) {
+                earliestStart[v] = byComponent.earliestStart(c) + offset;
+                offset += taskDurations[v];
+                latestFinish[v] = byComponent.latestStart(c) + offset;
+                duration[v] = taskDurations[v];
+            }
+        }
+        return new Schedule(earliestStart, latestFinish, duration, byComponent.projectDuration(), null);
+    }
+
+    /** Per-task times; arrays are indexed by task and owned by this schedule. */
+    public static final class Schedule {
+        private final long[] earliestStart;
+        private final long[] latestFinish;
+        private final long[] duration;
+        private final long projectDuration;
+        private final CriticalPathMethod dag;  // null for expanded task schedules
+
+        Schedule(long[] earliestStart, long[] latestFinish, long[] duration, long projectDuration,
+                 CriticalPathMethod dag) {
+            this.earliestStart = earliestStart;
+            this.latestFinish = latestFinish;
+            this.duration = duration;
+            this.projectDuration = projectDuration;
+            this.dag = dag;
+        }
+
+        public long projectDuration() {
+            return projectDuration;
+        }
+
+        public int size() {
+            return earliestStart.length;
+        }
+
+        public long earliestStart(int v) {
+            return earliestStart[v];
+        }
+
+        public long earliestFinish(int v) {
+            return earliestStart[v] + duration[v];
+        }
+
+        public long latestStart(int v) {
+            return latestFinish[v] - duration[v];
+        }
+
+        public long latestFinish(int v) {
+            return latestFinish[v];
+        }
+
+        public long slack(int v) {
+            return latestFinish[v] - duration[v] - earliestStart[v];
+        }
+
+        public boolean isCritical(int v) {
+            return slack(v) == 0;
+        }
+
+        /** All zero-slack tasks, ascending. */
+        public int[] criticalTasks() {
+            int count = 0;
+            for (int v = 0; v < size(); v++) {
+                if (isCritical(v)) {
+                    count++;
+                }
+            }
+            int[] critical = new int[count];
+            count = 0;
+            for (int v = 0; v < size(); v++) {
+                if (isCritical(v)) {
+                    critical[count++] = v;
+                }
+            }
+            return critical;
+        }
+
+        /**
+         * One critical chain from a task starting at 0 to a task finishing at the project end,
+         * following edges without slack; null for task schedules expanded from components.
+         */
+        public List<Integer> criticalPath() {
+            if (dag == null) {
+                return null;
+            }
+            int current = -1;
+            for (int v : dag.order) {
+                if (earliestStart[v] == 0 && isCritical(v)) {
+                    current = v;
+                    break;
+                }
+            }
+            List<Integer> path = new ArrayList<>();
+            while (current != -1) {
+                path.add(current);
+                int next = -1;
+                long finish = earliestFinish(current);
+                for (int e = dag.offsets[current]; e < dag.offsets[current + 1]; e++) {
+                    int v = dag.targets[e];
+                    if (isCritical(v) && earliestStart[v] == finish + dag.lags[e]) {
+                        next = v;
+                        break;
+                    }
+                }
+                current = next;
+            }
+            return path;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package path.testing;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.TarjanSCC;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CriticalPathMethodTest {
+
+    // 0 -> {1, 2} -> 3, with 4 independent
+    private static Graph nodeDiamond() {
+        Graph graph = new Graph(5, true, "node");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 1);
+        graph.addEdge(1, 3, 1);
+        graph.addEdge(2, 3, 1);
+        return graph;
+    }
+
+    @Test
+    public void testNodeDurations() {
+        CriticalPathMethod cpm = new CriticalPathMethod(nodeDiamond());
+        CriticalPathMethod.Schedule schedule = cpm.schedule(new int[]{2, 3, 1, 4, 5});
+
+        assertEquals(9, schedule.projectDuration());
+        assertEquals(2, schedule.earliestStart(1));
+        assertEquals(2, schedule.earliestStart(2));
+        assertEquals(5, schedule.earliestStart(3));
+        assertEquals(4, schedule.latestStart(2));
+        assertEquals(2, schedule.slack(2));
+        assertEquals(4, schedule.slack(4));
+        assertEquals(9, schedule.latestFinish(4));
+        assertArrayEquals(new int[]{0, 1, 3}, schedule.criticalTasks());
+        assertEquals(List.of(0, 1, 3), schedule.criticalPath());
+    }
+
+    @Test
+    public void testAllCriticalTasksOnTies() {
+        CriticalPathMethod.Schedule schedule = new CriticalPathMethod(nodeDiamond()).schedule(new int[]{1, 2, 2, 1, 4});
+
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, schedule.criticalTasks());
+    }
+
+    @Test
+    public void testEdgeLagsMatchLongestPaths() {
+        Graph graph = new Graph(4, true, "edge");
+        graph.addEdge(0, 1, 5);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 3, 1);
+        graph.addEdge(2, 3, 7);
+        Metrics metrics = new MetricsImpl();
+
+        CriticalPathMethod.Schedule schedule = new CriticalPathMethod(graph, metrics).schedule();
+
+        assertEquals(9, schedule.projectDuration());
+        assertEquals(5, schedule.earliestStart(1));
+        assertEquals(3, schedule.slack(1));
+        assertEquals(List.of(0, 2, 3), schedule.criticalPath());
+        assertEquals(1, metrics.getCounter("cpm_schedules"));
+        assertEquals(8, metrics.getCounter("edges_scanned"));
+    }
+
+    @Test
+    public void testNodeModelRequiresDurations() {
+        assertThrows(IllegalArgumentException.class, () -> new CriticalPathMethod(nodeDiamond()).schedule());
+        assertThrows(IllegalArgumentException.class, () -> new CriticalPathMethod(nodeDiamond()).schedule(new int[2]));
+    }
+
+    @Test
+    public void testRejectsCycle() {
+        Graph graph = new Graph(2, true, "node");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> new CriticalPathMethod(graph));
+    }
+
+    @Test
+    public void testTaskScheduleOverCondensation() {
+        // 0 -> {1, 2} cycle -> 3, with 4 independent
+        Graph graph = new Graph(5, true, "node");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 1, 1);
+        graph.addEdge(2, 3, 1);
+        List<List<Integer>> sccs = new TarjanSCC(graph).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, sccs);
+        int[] durations = {1, 2, 3, 4, 6};
+
+        CriticalPathMethod cpm = new CriticalPathMethod(condensation.getCondensationCSR());
+        CriticalPathMethod.Schedule tasks = cpm.scheduleTasks(sccs, durations);
+
+        assertEquals(10, tasks.projectDuration());
+        List<Integer> cycle = sccs.get(condensation.getComponent(1));
+        assertEquals(1, tasks.earliestStart(cycle.get(0)));
+        assertEquals(1 + durations[cycle.get(0)], tasks.earliestStart(cycle.get(1)));
+        assertEquals(6, tasks.earliestStart(3));
+        assertEquals(4, tasks.slack(4));
+        assertArrayEquals(new int[]{0, 1, 2, 3}, tasks.criticalTasks());
+    }
+
+    @Test
+    public void testRescheduleLargeChain() {
+        int n = 1_000_000;
+        Graph graph = new Graph(n, true, "node");
+        for (int v = 1; v < n; v++) {
+            graph.addEdge(v - 1, v, 1);
+        }
+        int[] durations = new int[n];
+        Arrays.fill(durations, 3);
+        CriticalPathMethod cpm = new CriticalPathMethod(graph);
+
+        assertEquals(3L * n, cpm.schedule(durations).projectDuration());
+        durations[n / 2] = 10;
+        CriticalPathMethod.Schedule schedule = cpm.schedule(durations);
+        assertEquals(3L * n + 7, schedule.projectDuration());
+        assertEquals(n, schedule.criticalTasks().length);
+    }
+}
@@ -1,64 +1,363 @@
 package path.testing;
 
-import com.smartcity.common.Graph;
+import com.smartcity.common.GraphView;
 import com.smartcity.common.Metrics;
 import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.Tracer;
 import com.smartcity.graph.topo.DFSTopologicalSort;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
 
-public record DAGShortestPath(Graph graph, Metrics metrics) {
-    public DAGShortestPath(Graph graph) {
+/**
+ * Single- and multi-source shortest/longest paths on a DAG.
+ *
+ * The topological order is computed once per instance, on first use, and cached together with a
+ * copy of the adjacency laid out in that order; later queries only relax. A source can only reach
+ * vertices after it in the order, so each pass starts at the source's position. The cache is not
+ * invalidated, so create a new instance after modifying the graph.
+ */
+public final class DAGShortestPath {
+    private final GraphView graph;
+    private final Metrics metrics;
+    private final PlanHolder holder;
+
+    public DAGShortestPath(GraphView graph) {
         this(graph, new MetricsImpl());
     }
+
+    public DAGShortestPath(GraphView graph, Metrics metrics) {
+        this(graph, metrics, new PlanHolder());
+    }
+
+    private DAGShortestPath(GraphView graph, Metrics metrics, PlanHolder holder) {
+        this.graph = graph;
+        this.metrics = metrics;
+        this.holder = holder;
+    }
+
+    /**
+     * For a DAG whose topological order is already known, such as a condensation numbered in
+     * topological order; {@code order} is trusted as is and no sort runs.
+     */
+    public static DAGShortestPath inOrder(GraphView graph, int[] order, Metrics metrics) {
+        if (order.length != graph.getN()) {
+            throw new IllegalArgumentException("Order must list all " + graph.getN() + " vertices");
+        }
+        PlanHolder holder = new PlanHolder();
+        holder.plan = new Plan(graph, order);
+        return new DAGShortestPath(graph, metrics, holder);
+    }
+
+    /** Same graph and cached order, reporting to different metrics. */
+    public DAGShortestPath withMetrics(Metrics metrics) {
+        return new DAGShortestPath(graph, metrics, holder);
+    }
+
+    public GraphView graph() {
+        return graph;
+    }
+
+    public Metrics metrics() {
+        return metrics;
+    }
+
     public PathResult shortestPaths(int source) {
         return computePaths(source, false);
     }
+
     public PathResult longestPaths(int source) {
         return computePaths(source, true);
     }
+
+    /**
+     * Same as {@link #shortestPaths(int)} but fills caller-owned arrays of exactly {@code n}
+     * entries, so repeated queries can reuse them instead of allocating.
+     */
+    public PathResult shortestPaths(int source, int[] distances, int[] predecessors) {
+        return computePaths(source, false, distances, predecessors);
+    }
+
+    public PathResult longestPaths(int source, int[] distances, int[] predecessors) {
+        return computePaths(source, true, distances, predecessors);
+    }
+
+    public DistanceMatrix shortestPaths(int[] sources) {
+        return computeDistances(sources, false, 1);
+    }
+
+    public DistanceMatrix longestPaths(int[] sources) {
+        return computeDistances(sources, true, 1);
+    }
+
+    /** Batch query with sources split across {@code threads} fork/join workers. */
+    public DistanceMatrix shortestPaths(int[] sources, int threads) {
+        return computeDistances(sources, false, threads);
+    }
+
+    public DistanceMatrix longestPaths(int[] sources, int threads) {
+        return computeDistances(sources, true, threads);
+    }
+
+    /**
+     * The {@code k} longest source-to-sink chains over all sources, longest first. Lengths tied
+     * with the k-th chain may be cut off arbitrarily.
+     */
+    public List<CriticalPath> kLongestPaths(int k) {
+        return kPaths(-1, k, true);
+    }
+
+    /** The {@code k} longest chains from {@code source} to any sink, longest first. */
+    public List<CriticalPath> kLongestPaths(int source, int k) {
+        return kPaths(source, k, true);
+    }
+
+    /** The {@code k} shortest source-to-sink chains over all sources, shortest first. */
+    public List<CriticalPath> kShortestPaths(int k) {
+        return kPaths(-1, k, false);
+    }
+
+    /** The {@code k} shortest chains from {@code source} to any sink, shortest first. */
+    public List<CriticalPath> kShortestPaths(int source, int k) {
+        return kPaths(source, k, false);
+    }
+
+    private List<CriticalPath> kPaths(int source, int k, boolean longest) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be >= 0");
+        }
+        Plan plan = plan();
+        metrics.startTimer();
+        List<CriticalPath> paths = plan.chains(longest).find(source, k, metrics);
+        metrics.stopTimer();
+        return paths;
+    }
+
+    Plan plan() {
+        synchronized (holder) {
+            if (holder.plan == null) {
+                int[] order = new int[graph.getN()];
+                if (!new DFSTopologicalSort(graph).sortInto(order)) {
+                    throw new IllegalArgumentException("Graph contains a cycle not a DAG");
+                }
+                holder.plan = new Plan(graph, order);
+                metrics.incrementCounter("topo_sorts");
+            }
+            return holder.plan;
+        }
+    }
+
     private PathResult computePaths(int source, boolean longest) {
         int n = graph.getN();
-        DFSTopologicalSort topoSort = new DFSTopologicalSort(graph);
-        List<Integer> topoOrder = topoSort.sort();
+        return computePaths(source, longest, new int[n], new int[n]);
+    }
+
+    private PathResult computePaths(int source, boolean longest, int[] dist, int[] pred) {
+        try (Tracer.Span span = Tracer.global().span(longest ? "dag_longest_paths" : "dag_shortest_paths")
+                .graph(graph).counters(metrics)) {
+            Plan plan = plan();
+            int n = graph.getN();
+            if (dist.length != n || pred.length != n) {
+                throw new IllegalArgumentException("Result arrays must have exactly " + n + " entries");
+            }
+            int unreachable = longest ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            Arrays.fill(dist, 0, n, unreachable);
+            Arrays.fill(pred, 0, n, -1);
+            dist[source] = 0;
+            Metrics.Counter relaxations = metrics.counter("Relaxations");
+            Metrics.Counter distanceUpdates = metrics.counter("distance_updates");
 
-        if (topoOrder == null) {
-            throw new IllegalArgumentException("Graph contains a cycle not a DAG");
+            metrics.startTimer();
+            for (int i = plan.position[source]; i < n; i++) {
+                int u = plan.order[i];
+                if (dist[u] == unreachable) {
+                    continue; // Unreachable vertex
+                }
+                for (int e = plan.offsets[i]; e < plan.offsets[i + 1]; e++) {
+                    int v = plan.targets[e];
+                    int newDist = dist[u] + plan.weights[e];
+                    relaxations.increment();
+
+                    boolean improved;
+                    if (longest) {
+                        improved = newDist > dist[v];
+                    } else {
+                        improved = newDist < dist[v];
+                    }
+
+                    if (improved) {
+                        dist[v] = newDist;
+                        pred[v] = u;
+                        distanceUpdates.increment();
+                    }
+                }
+            }
+
+            metrics.stopTimer();
+
+            return new PathResult(dist, pred, source);
         }
+    }
 
-        int[] dist = new int[n];
-        int[] pred = new int[n];
-        Arrays.fill(dist, longest ? Integer.MIN_VALUE : Integer.MAX_VALUE);
-        Arrays.fill(pred, -1);
-        dist[source] = 0;
+    private DistanceMatrix computeDistances(int[] sources, boolean longest, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be >= 1");
+        }
+        try (Tracer.Span span = Tracer.global().span(longest ? "dag_longest_paths" : "dag_shortest_paths")
+                .graph(graph).counters(metrics)) {
+            Plan plan = plan();
+            int[][] distances = new int[sources.length][];
+            LongAdder relaxations = new LongAdder();
 
-        metrics.startTimer();
-        for (int u : topoOrder) {
-            if (dist[u] == (longest ? Integer.MIN_VALUE : Integer.MAX_VALUE)) {
-                continue; // Unreachable vertex
-            }
-            for (Graph.Edge edge : graph.getNeighbors(u)) {
-                int v = edge.to();
-                int newDist = dist[u] + edge.weight();
-                metrics.incrementCounter("Relaxations");
-
-                boolean improved;
-                if (longest) {
-                    improved = newDist > dist[v];
-                } else {
-                    improved = newDist < dist[v];
+            metrics.startTimer();
+            if (threads == 1 || sources.length < 2) {
+                for (int s = 0; s < sources.length; s++) {
+                    distances[s] = new int[graph.getN()];
+                    relaxations.add(plan.relax(sources[s], longest, distances[s]));
                 }
+            } else {
+                pool(threads).invoke(new SourceTask(plan, sources, 0, sources.length, longest, distances, relaxations));
+            }
+            metrics.stopTimer();
+
+            metrics.addCounter("Relaxations", relaxations.sum());
+            metrics.addCounter("sources", sources.length);
+            return new DistanceMatrix(sources.clone(), distances, longest);
+        }
+    }
+
+    /**
+     * The common pool when its parallelism matches, otherwise one pool per thread count, shared
+     * with the cached order. Idle fork/join workers exit on their own, so these pools are kept
+     * rather than created and shut down per batch.
+     */
+    ForkJoinPool pool(int threads) {
+        if (threads == ForkJoinPool.getCommonPoolParallelism()) {
+            return ForkJoinPool.commonPool();
+        }
+        synchronized (holder) {
+            return holder.pools.computeIfAbsent(threads, ForkJoinPool::new);
+        }
+    }
+
+    private static final class SourceTask extends RecursiveAction {
+        private final Plan plan;
+        private final int[] sources;
+        private final int from;
+        private final int to;
+        private final boolean longest;
+        private final int[][] distances;
+        private final LongAdder relaxations;
 
-                if (improved) {
-                    dist[v] = newDist;
-                    pred[v] = u;
-                    metrics.incrementCounter("distance_updates");
+        SourceTask(Plan plan, int[] sources, int from, int to, boolean longest,
+                   int[][] distances, LongAdder relaxations) {
+            this.plan = plan;
+            this.sources = sources;
+            this.from = from;
+            this.to = to;
+            this.longest = longest;
+            this.distances = distances;
+            this.relaxations = relaxations;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SourceTask(plan, sources, from, mid, longest, distances, relaxations),
+                          new SourceTask(plan, sources, mid, to, longest, distances, relaxations));
+                return;
+            }
+            distances[from] = new int[plan.order.length];
+            relaxations.add(plan.relax(sources[from], longest, distances[from]));
+        }
+    }
+
+    private static final class PlanHolder {
+        private Plan plan;
+        private final Map<Integer, ForkJoinPool> pools = new HashMap<>();
+    }
+
+    /** Topological order plus the adjacency re-laid out by position in it. */
+    static final class Plan {
+        final int[] order;
+        final int[] position;
+        final int[] offsets;
+        final int[] targets;
+        final int[] weights;
+        private KBestPaths longestChains;
+        private KBestPaths shortestChains;
+
+        Plan(GraphView graph, int[] order) {
+            int n = graph.getN();
+            this.order = order;
+            position = new int[n];
+            offsets = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                position[order[i]] = i;
+                offsets[i + 1] = offsets[i] + graph.outDegree(order[i]);
+            }
+            targets = new int[offsets[n]];
+            weights = new int[offsets[n]];
+            for (int i = 0; i < n; i++) {
+                graph.copyEdges(order[i], targets, weights, offsets[i]);
+            }
+        }
+
+        /** Best completions to a sink, computed on first use and kept with the plan. */
+        synchronized KBestPaths chains(boolean longest) {
+            if (longest) {
+                if (longestChains == null) {
+                    longestChains = new KBestPaths(this, true);
                 }
+                return longestChains;
+            }
+            if (shortestChains == null) {
+                shortestChains = new KBestPaths(this, false);
             }
+            return shortestChains;
         }
 
-        metrics.stopTimer();
+        /** Distances only, no predecessors; returns the number of relaxations. */
+        long relax(int source, boolean longest, int[] dist) {
+            int unreachable = longest ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            Arrays.fill(dist, unreachable);
+            dist[source] = 0;
+            long relaxed = 0;
+            for (int i = position[source]; i < order.length; i++) {
+                int du = dist[order[i]];
+                if (du == unreachable) {
+                    continue;
+                }
+                int end = offsets[i + 1];
+                relaxed += end - offsets[i];
+                for (int e = offsets[i]; e < end; e++) {
+                    int v = targets[e];
+                    int newDist = du + weights[e];
+                    if (longest ? newDist > dist[v] : newDist < dist[v]) {
+                        dist[v] = newDist;
+                    }
+                }
+            }
+            return relaxed;
+        }
+    }
 
-        return new PathResult(dist, pred, source);
+    /** Row {@code s} holds the distances from {@code sources[s]}; unreachable entries use the PathResult sentinels. */
+    public record DistanceMatrix(int[] sources, int[][] distances, boolean longest) {
+
+        public int getDistance(int sourceIndex, int dest) {
+            return distances[sourceIndex][dest];
+        }
+
+        public boolean isReachable(int sourceIndex, int dest) {
+            return distances[sourceIndex][dest] != (longest ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+        }
+
+        public int size() {
+            return sources.length;
+        }
     }
 
     public record PathResult(int[] distances, int[] predecessors, int source) {
@@ -2,8 +2,11 @@ package path.testing;
 
 
 import com.smartcity.common.Graph;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.fixture.RandomGraphs;
 import org.junit.jupiter.api.Test;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class DAGShortestPathTest {
@@ -119,4 +122,52 @@ public class DAGShortestPathTest {
         assertEquals(0, result.getDistance(0));
         assertEquals(List.of(0), result.getPath(0));
     }
+
+    @Test
+    public void testBatchMatchesSingleSource() {
+        int n = 500;
+        Graph graph = RandomGraphs.builder(n, 2000).acyclic().weights(1, 9).build(3);
+        MetricsImpl metrics = new MetricsImpl();
+        DAGShortestPath dag = new DAGShortestPath(graph, metrics);
+        int[] sources = {0, 7, 250, 499, 7};
+
+        DAGShortestPath.DistanceMatrix shortest = dag.shortestPaths(sources);
+        DAGShortestPath.DistanceMatrix longest = dag.longestPaths(sources, 3);
+
+        for (int s = 0; s < sources.length; s++) {
+            assertArrayEquals(dag.shortestPaths(sources[s]).distances(), shortest.distances()[s]);
+            assertArrayEquals(dag.longestPaths(sources[s]).distances(), longest.distances()[s]);
+        }
+        assertTrue(shortest.isReachable(0, 0));
+        assertEquals(1, metrics.getCounter("topo_sorts"));
+    }
+
+    @Test
+    public void testBatchPoolsAreReused() {
+        Graph graph = RandomGraphs.builder(100, 300).acyclic().build(4);
+        DAGShortestPath dag = new DAGShortestPath(graph);
+        int common = ForkJoinPool.getCommonPoolParallelism();
+
+        assertSame(ForkJoinPool.commonPool(), dag.pool(common));
+        assertSame(dag.pool(common + 1), dag.pool(common + 1));
+        assertSame(dag.pool(common + 1), dag.withMetrics(new MetricsImpl()).pool(common + 1));
+        assertEquals(common + 1, dag.pool(common + 1).getParallelism());
+    }
+
+    @Test
+    public void testWithMetricsSharesCachedOrder() {
+        Graph graph = new Graph(3, true, "edge");
+        graph.addEdge(0, 1, 2);
+        graph.addEdge(1, 2, 3);
+        MetricsImpl first = new MetricsImpl();
+        MetricsImpl second = new MetricsImpl();
+        DAGShortestPath dag = new DAGShortestPath(graph, first);
+
+        dag.shortestPaths(0);
+        DAGShortestPath.PathResult result = dag.withMetrics(second).longestPaths(0);
+
+        assertEquals(5, result.getDistance(2));
+        assertEquals(1, first.getCounter("topo_sorts"));
+        assertEquals(0, second.getCounter("topo_sorts"));
+    }
 }
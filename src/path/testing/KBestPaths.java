@@ -0,0 +1,186 @@
+package path.testing;
+
+import com.smartcity.common.Metrics;
+import java.util.*;
+
+/**
+ * K longest or shortest source-to-sink chains on a DAG by sidetrack enumeration.
+ *
+ * One backward pass over the cached topological order gives every vertex its best completion to
+ * a sink and the edge that achieves it. A chain is then described by where it leaves those best
+ * edges: a search state is a parent chain plus one sidetrack edge {@code x -> z}, followed by the
+ * best completion from {@code z}, and it costs exactly the parent's length minus the sidetrack's
+ * loss. States come off a heap in order of chain length, so after {@code k} pops the answer is
+ * complete; a popped state only adds sidetracks at or after its own, which keeps every chain
+ * unique. A query costs O(k * L * d * log(heap)) for chains of L vertices with out-degree d,
+ * independent of how many chains the DAG has.
+ */
+final class KBestPaths {
+    private final DAGShortestPath.Plan plan;
+    private final boolean longest;
+    private final long[] best;      // best completion from each vertex to a sink
+    private final int[] bestEdge;   // plan edge index achieving it, -1 at sinks
+    private final int[] roots;      // vertices without incoming edges
+
+    KBestPaths(DAGShortestPath.Plan plan, boolean longest) {
+        this.plan = plan;
+        this.longest = longest;
+        int n = plan.order.length;
+        best = new long[n];
+        bestEdge = new int[n];
+        boolean[] hasIncoming = new boolean[n];
+        for (int i = n - 1; i >= 0; i--) {
+            int u = plan.order[i];
+            bestEdge[u] = -1;
+            for (int e = plan.offsets[i]; e < plan.offsets[i + 1]; e++) {
+                int v = plan.targets[e];
+                hasIncoming[v] = true;
+                long length = plan.weights[e] + best[v];
+                if (bestEdge[u] == -1 || (longest ? length > best[u] : length < best[u])) {
+                    best[u] = length;
+                    bestEdge[u] = e;
+                }
+            }
+        }
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            if (!hasIncoming[v]) {
+                count++;
+            }
+        }
+        roots = new int[count];
+        count = 0;
+        for (int u : plan.order) {
+            if (!hasIncoming[u]) {
+                roots[count++] = u;
+            }
+        }
+    }
+
+    /** @param source start vertex, or -1 for every vertex without incoming edges */
+    List<DAGShortestPath.CriticalPath> find(int source, int k, Metrics metrics) {
+        States states = new States();
+        if (source >= 0) {
+            states.push(-1, -1, source, best[source]);
+        } else {
+            for (int root : roots) {
+                states.push(-1, -1, root, best[root]);
+            }
+        }
+
+        List<DAGShortestPath.CriticalPath> result = new ArrayList<>(Math.min(k, 1024));
+        while (result.size() < k && states.heapSize > 0) {
+            int s = states.pop();
+            result.add(new DAGShortestPath.CriticalPath(materialize(states, s), Math.toIntExact(states.key[s])));
+
+            // Sidetracks from every vertex of this state's best completion
+            for (int x = states.head[s]; ; ) {
+                int i = plan.position[x];
+                for (int e = plan.offsets[i]; e < plan.offsets[i + 1]; e++) {
+                    if (e == bestEdge[x]) {
+                        continue;
+                    }
+                    int z = plan.targets[e];
+                    long loss = best[x] - (plan.weights[e] + best[z]);
+                    states.push(s, x, z, states.key[s] - loss);
+                }
+                if (bestEdge[x] == -1) {
+                    break;
+                }
+                x = plan.targets[bestEdge[x]];
+            }
+        }
+        metrics.addCounter("kpaths_states", states.size);
+        metrics.addCounter("kpaths_found", result.size());
+        return result;
+    }
+
+    /** Rebuilds a chain from its root by replaying each sidetrack on top of the parent's chain. */
+    private List<Integer> materialize(States states, int s) {
+        int depth = 0;
+        for (int t = s; t != -1; t = states.parent[t]) {
+            depth++;
+        }
+        int[] chain = new int[depth];
+        for (int t = s; t != -1; t = states.parent[t]) {
+            chain[--depth] = t;
+        }
+        List<Integer> path = new ArrayList<>();
+        for (int t : chain) {
+            if (states.from[t] != -1) {
+                int cut = path.lastIndexOf(states.from[t]);
+                path.subList(cut + 1, path.size()).clear();
+            }
+            for (int x = states.head[t]; ; x = plan.targets[bestEdge[x]]) {
+                path.add(x);
+                if (bestEdge[x] == -1) {
+                    break;
+                }
+            }
+        }
+        return path;
+    }
+
+    /** Append-only state table with a binary heap over it, best chain first, ties in push order. */
+    private final class States {
+        int[] parent = new int[64];
+        int[] from = new int[64];
+        int[] head = new int[64];
+        long[] key = new long[64];
+        int size;
+        int[] heap = new int[64];
+        int heapSize;
+
+        void push(int parentState, int fromVertex, int headVertex, long length) {
+            if (size == parent.length) {
+                int grown = 2 * size;
+                parent = Arrays.copyOf(parent, grown);
+                from = Arrays.copyOf(from, grown);
+                head = Arrays.copyOf(head, grown);
+                key = Arrays.copyOf(key, grown);
+            }
+            parent[size] = parentState;
+            from[size] = fromVertex;
+            head[size] = headVertex;
+            key[size] = length;
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, 2 * heapSize);
+            }
+            int slot = heapSize++;
+            while (slot > 0 && before(size, heap[(slot - 1) >>> 1])) {
+                heap[slot] = heap[(slot - 1) >>> 1];
+                slot = (slot - 1) >>> 1;
+            }
+            heap[slot] = size++;
+        }
+
+        int pop() {
+            int top = heap[0];
+            int last = heap[--heapSize];
+            int slot = 0;
+            while (true) {
+                int child = 2 * slot + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], last)) {
+                    break;
+                }
+                heap[slot] = heap[child];
+                slot = child;
+            }
+            heap[slot] = last;
+            return top;
+        }
+
+        private boolean before(int a, int b) {
+            if (key[a] != key[b]) {
+                return longest ? key[a] > key[b] : key[a] < key[b];
+            }
+            return a < b;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package path.testing;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.fixture.RandomGraphs;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KBestPathsTest {
+
+    /** Lengths of every chain from {@code u} to a sink. */
+    private static void enumerate(Graph graph, int u, int length, List<Integer> lengths) {
+        if (graph.outDegree(u) == 0) {
+            lengths.add(length);
+            return;
+        }
+        for (int i = 0; i < graph.outDegree(u); i++) {
+            enumerate(graph, graph.target(u, i), length + graph.weight(u, i), lengths);
+        }
+    }
+
+    private static int chainLength(Graph graph, List<Integer> path) {
+        int length = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            int weight = -1;
+            for (int e = 0; e < graph.outDegree(path.get(i)); e++) {
+                if (graph.target(path.get(i), e) == path.get(i + 1)) {
+                    weight = graph.weight(path.get(i), e);
+                }
+            }
+            assertTrue(weight >= 0, "not an edge: " + path.get(i) + " -> " + path.get(i + 1));
+            length += weight;
+        }
+        return length;
+    }
+
+    @Test
+    public void testDiamondChains() {
+        Graph graph = new Graph(5, true, "edge");
+        graph.addEdge(0, 1, 5);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 3, 1);
+        graph.addEdge(2, 3, 7);
+        graph.addEdge(4, 3, 1);
+
+        DAGShortestPath dag = new DAGShortestPath(graph);
+        List<DAGShortestPath.CriticalPath> longest = dag.kLongestPaths(10);
+        List<DAGShortestPath.CriticalPath> shortest = dag.kShortestPaths(0, 10);
+
+        assertEquals(3, longest.size());
+        assertEquals(List.of(0, 2, 3), longest.get(0).path());
+        assertEquals(9, longest.get(0).length());
+        assertEquals(List.of(0, 1, 3), longest.get(1).path());
+        assertEquals(6, longest.get(1).length());
+        assertEquals(List.of(4, 3), longest.get(2).path());
+        assertEquals(List.of(0, 1, 3), shortest.get(0).path());
+        assertEquals(2, shortest.size());
+    }
+
+    @Test
+    public void testMatchesEnumeration() {
+        for (long seed = 0; seed < 10; seed++) {
+            Graph graph = RandomGraphs.builder(25, 60).acyclic().weights(1, 9).noParallelEdges().build(seed);
+            DAGShortestPath dag = new DAGShortestPath(graph);
+            List<Integer> all = new ArrayList<>();
+            for (int u = 0; u < graph.getN(); u++) {
+                boolean hasIncoming = false;
+                for (int v = 0; v < graph.getN() && !hasIncoming; v++) {
+                    for (int i = 0; i < graph.outDegree(v); i++) {
+                        hasIncoming |= graph.target(v, i) == u;
+                    }
+                }
+                if (!hasIncoming) {
+                    enumerate(graph, u, 0, all);
+                }
+            }
+            all.sort(Comparator.reverseOrder());
+            int k = Math.min(40, all.size());
+
+            List<DAGShortestPath.CriticalPath> longest = dag.kLongestPaths(k);
+            List<DAGShortestPath.CriticalPath> shortest = dag.kShortestPaths(k);
+
+            Set<List<Integer>> seen = new HashSet<>();
+            for (int i = 0; i < k; i++) {
+                assertEquals(all.get(i), longest.get(i).length());
+                assertEquals(all.get(all.size() - 1 - i), shortest.get(i).length());
+                assertTrue(seen.add(longest.get(i).path()));
+                assertEquals(longest.get(i).length(), chainLength(graph, longest.get(i).path()));
+            }
+        }
+    }
+
+    @Test
+    public void testFromSourceStartsThere() {
+        Graph graph = RandomGraphs.builder(40, 120).acyclic().weights(1, 9).noParallelEdges().build(3);
+        DAGShortestPath dag = new DAGShortestPath(graph);
+        List<Integer> all = new ArrayList<>();
+        enumerate(graph, 0, 0, all);
+        all.sort(Comparator.reverseOrder());
+
+        List<DAGShortestPath.CriticalPath> paths = dag.kLongestPaths(0, 15);
+
+        assertEquals(dag.longestPaths(0).findCriticalPath().length(), paths.get(0).length());
+        for (int i = 0; i < paths.size(); i++) {
+            assertEquals(0, paths.get(i).path().get(0));
+            assertEquals(all.get(i), paths.get(i).length());
+        }
+    }
+
+    @Test
+    public void testTopFiftyOnLargePlan() {
+        int n = 500_000;
+        Random random = new Random(1);
+        Graph graph = new Graph(n, true, "edge");
+        for (int v = 1; v < n; v++) {
+            graph.addEdge(v - 1, v, 1 + random.nextInt(5));
+            if (v > 10) {
+                graph.addEdge(v - 1 - random.nextInt(10), v, 1 + random.nextInt(5));
+            }
+        }
+        Metrics metrics = new MetricsImpl();
+
+        List<DAGShortestPath.CriticalPath> paths = new DAGShortestPath(graph, metrics).kLongestPaths(50);
+
+        assertEquals(50, paths.size());
+        for (int i = 1; i < paths.size(); i++) {
+            assertTrue(paths.get(i - 1).length() >= paths.get(i).length());
+        }
+        assertEquals(50, metrics.getCounter("kpaths_found"));
+    }
+}
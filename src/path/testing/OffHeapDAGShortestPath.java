@@ -0,0 +1,135 @@
+package path.testing;
+
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.NativeArray;
+import com.smartcity.common.OffHeapGraph;
+import com.smartcity.graph.topo.OffHeapKahnTopologicalSort;
+import java.util.*;
+
+/**
+ * {@link DAGShortestPath} over an {@link OffHeapGraph}. The topological order is computed on
+ * first use with {@link OffHeapKahnTopologicalSort} and kept in native memory until
+ * {@link #close()}; distances and predecessors go into caller-owned native arrays, with the
+ * same sentinels as {@link DAGShortestPath.PathResult}.
+ */
+public final class OffHeapDAGShortestPath implements AutoCloseable {
+    private final OffHeapGraph graph;
+    private final Metrics metrics;
+    private NativeArray order;
+
+    public OffHeapDAGShortestPath(OffHeapGraph graph) {
+        this(graph, new MetricsImpl());
+    }
+
+    public OffHeapDAGShortestPath(OffHeapGraph graph, Metrics metrics) {
+        this.graph = graph;
+        this.metrics = metrics;
+    }
+
+    /** @param dist, pred native int arrays of at least {@code n} entries */
+    public void shortestPaths(int source, NativeArray dist, NativeArray pred) {
+        computePaths(source, false, dist, pred);
+    }
+
+    public void longestPaths(int source, NativeArray dist, NativeArray pred) {
+        computePaths(source, true, dist, pred);
+    }
+
+    private NativeArray order() {
+        if (order == null) {
+            NativeArray sorted = NativeArray.ints(graph.getN());
+            try (OffHeapKahnTopologicalSort sort = new OffHeapKahnTopologicalSort(graph, metrics)) {
+                if (!sort.sortInto(sorted)) {
+                    sorted.close();
+                    throw new IllegalArgumentException("Graph contains a cycle not a DAG");
+                }
+            }
+            order = sorted;
+            metrics.incrementCounter("topo_sorts");
+        }
+        return order;
+    }
+
+    private void computePaths(int source, boolean longest, NativeArray dist, NativeArray pred) {
+        int n = graph.getN();
+        if (dist.length() < n || pred.length() < n) {
+            throw new IllegalArgumentException("Result arrays need " + n + " entries");
+        }
+        NativeArray order = order();
+        int unreachable = longest ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        dist.fill(unreachable);
+        pred.fill(-1);
+        dist.setInt(source, 0);
+        long relaxations = 0;
+        long distanceUpdates = 0;
+
+        metrics.startTimer();
+        // Nothing before the source in the order is reachable from it
+        int start = 0;
+        while (order.getInt(start) != source) {
+            start++;
+        }
+        for (int i = start; i < n; i++) {
+            int u = order.getInt(i);
+            int du = dist.getInt(u);
+            if (du == unreachable) {
+                continue;
+            }
+            long end = graph.edgeEnd(u);
+            relaxations += end - graph.edgeStart(u);
+            for (long e = graph.edgeStart(u); e < end; e++) {
+                int v = graph.edgeTarget(e);
+                int newDist = du + graph.edgeWeight(e);
+                int dv = dist.getInt(v);
+                if (longest ? newDist > dv : newDist < dv) {
+                    dist.setInt(v, newDist);
+                    pred.setInt(v, u);
+                    distanceUpdates++;
+                }
+            }
+        }
+        metrics.stopTimer();
+
+        metrics.addCounter("Relaxations", relaxations);
+        metrics.addCounter("distance_updates", distanceUpdates);
+    }
+
+    /**
+     * The chain ending at the farthest reachable vertex of a longest-path result, as
+     * {@link DAGShortestPath.PathResult#findCriticalPath()} gives it; null if none.
+     */
+    public DAGShortestPath.CriticalPath findCriticalPath(NativeArray dist, NativeArray pred) {
+        int maxDist = Integer.MIN_VALUE;
+        int endVertex = -1;
+        for (int v = 0; v < graph.getN(); v++) {
+            int d = dist.getInt(v);
+            if (d != Integer.MIN_VALUE && d > maxDist) {
+                maxDist = d;
+                endVertex = v;
+            }
+        }
+        if (endVertex == -1) {
+            return null;
+        }
+        List<Integer> path = new ArrayList<>();
+        for (int v = endVertex; v != -1; v = pred.getInt(v)) {
+            path.add(v);
+        }
+        Collections.reverse(path);
+        return new DAGShortestPath.CriticalPath(path, maxDist);
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /** Frees the cached order; the graph and the caller's arrays are not touched. */
+    @Override
+    public void close() {
+        if (order != null) {
+            order.close();
+            order = null;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package path.testing;
+
+import com.smartcity.common.Metrics;
+import java.util.Arrays;
+
+/**
+ * What-if evaluation of many edge-weight scenarios over one DAG in a single walk.
+ *
+ * Every scenario shares the graph and therefore the cached topological order and adjacency of
+ * the {@link DAGShortestPath} it is built from; only the weights differ. Scenarios are processed
+ * {@code blockSize} at a time with weights and distances stored scenario-minor, so entry
+ * {@code x * blockSize + s} belongs to scenario {@code s} of the block. Each edge is then loaded
+ * once per block and relaxed for all its scenarios by a branch-free loop over contiguous ints,
+ * which the JIT compiles to SIMD max/min instructions. Reachability does not depend on weights,
+ * so the unreachable check is made once per vertex rather than once per scenario.
+ */
+public final class ScenarioBatch {
+    public static final int DEFAULT_BLOCK_SIZE = 16;
+
+    private final DAGShortestPath paths;
+    private final int blockSize;
+
+    public ScenarioBatch(DAGShortestPath paths) {
+        this(paths, DEFAULT_BLOCK_SIZE);
+    }
+
+    /** @param blockSize scenarios relaxed together; a multiple of the SIMD width works best */
+    public ScenarioBatch(DAGShortestPath paths, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be >= 1");
+        }
+        this.paths = paths;
+        this.blockSize = blockSize;
+    }
+
+    /** {@code count} scenarios, each starting with the graph's own weights. */
+    public Scenarios scenarios(int count) {
+        return new Scenarios(paths.plan(), count, blockSize);
+    }
+
+    /**
+     * Scenarios from per-edge weight arrays, one per scenario, with edges numbered in adjacency
+     * order: all edges of vertex 0, then of vertex 1, and so on.
+     */
+    public Scenarios scenarios(int[][] edgeWeights) {
+        Scenarios scenarios = scenarios(edgeWeights.length);
+        for (int s = 0; s < edgeWeights.length; s++) {
+            scenarios.setWeights(s, edgeWeights[s]);
+        }
+        return scenarios;
+    }
+
+    /** @param source start vertex, or -1 to start every vertex at distance 0 */
+    public Result longestPaths(int source, Scenarios scenarios) {
+        return evaluate(source, scenarios, true, true);
+    }
+
+    public Result shortestPaths(int source, Scenarios scenarios) {
+        return evaluate(source, scenarios, false, true);
+    }
+
+    /** Critical path length of each scenario over all sources, without keeping distance rows. */
+    public int[] criticalPathLengths(Scenarios scenarios) {
+        return evaluate(-1, scenarios, true, false).criticalLengths();
+    }
+
+    private Result evaluate(int source, Scenarios scenarios, boolean longest, boolean keepDistances) {
+        DAGShortestPath.Plan plan = paths.plan();
+        if (scenarios.plan != plan || scenarios.blockSize != blockSize) {
+            throw new IllegalArgumentException("Scenarios were created for a different batch");
+        }
+        Metrics metrics = paths.metrics();
+        int n = plan.order.length;
+        int count = scenarios.count;
+        int unreachable = longest ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int[][] distances = keepDistances ? new int[count][n] : null;
+        int[] critical = new int[count];
+        Arrays.fill(critical, Integer.MIN_VALUE);
+        boolean[] reached = new boolean[n];
+        int[] dist = new int[n * blockSize];
+        long relaxed = 0;
+
+        metrics.startTimer();
+        for (int b = 0; b < scenarios.blocks.length; b++) {
+            int first = b * blockSize;
+            int width = Math.min(blockSize, count - first);
+            int start;
+            if (source >= 0) {
+                Arrays.fill(reached, false);
+                Arrays.fill(dist, unreachable);
+                reached[source] = true;
+                Arrays.fill(dist, source * blockSize, (source + 1) * blockSize, 0);
+                start = plan.position[source];
+            } else {
+                Arrays.fill(reached, true);
+                Arrays.fill(dist, 0);
+                start = 0;
+            }
+            long edges = longest
+                    ? relaxLongest(plan, start, scenarios.blocks[b], dist, reached)
+                    : relaxShortest(plan, start, scenarios.blocks[b], dist, reached);
+            relaxed += edges * width;
+
+            for (int v = 0; v < n; v++) {
+                if (!reached[v]) {
+                    continue;
+                }
+                int base = v * blockSize;
+                for (int s = 0; s < width; s++) {
+                    critical[first + s] = Math.max(critical[first + s], dist[base + s]);
+                }
+            }
+            if (distances != null) {
+                for (int s = 0; s < width; s++) {
+                    int[] row = distances[first + s];
+                    for (int v = 0; v < n; v++) {
+                        row[v] = reached[v] ? dist[v * blockSize + s] : unreachable;
+                    }
+                }
+            }
+        }
+        metrics.stopTimer();
+
+        metrics.addCounter("scenario_relaxations", relaxed);
+        metrics.addCounter("scenarios", count);
+        return new Result(source, distances, critical, longest);
+    }
+
+    /** Relaxes one block in topological order; returns the number of edges loaded. */
+    private long relaxLongest(DAGShortestPath.Plan plan, int start, int[] weights, int[] dist, boolean[] reached) {
+        int width = blockSize;
+        int[] from = new int[width];
+        long relaxed = 0;
+        for (int i = start; i < plan.order.length; i++) {
+            int u = plan.order[i];
+            if (!reached[u]) {
+                continue;
+            }
+            // A private copy of u's row keeps the inner loop free of aliasing, so it vectorizes
+            System.arraycopy(dist, u * width, from, 0, width);
+            int end = plan.offsets[i + 1];
+            relaxed += end - plan.offsets[i];
+            for (int e = plan.offsets[i]; e < end; e++) {
+                int v = plan.targets[e];
+                reached[v] = true;
+                int vb = v * width;
+                int wb = e * width;
+                for (int s = 0; s < width; s++) {
+                    dist[vb + s] = Math.max(dist[vb + s], from[s] + weights[wb + s]);
+                }
+            }
+        }
+        return relaxed;
+    }
+
+    private long relaxShortest(DAGShortestPath.Plan plan, int start, int[] weights, int[] dist, boolean[] reached) {
+        int width = blockSize;
+        int[] from = new int[width];
+        long relaxed = 0;
+        for (int i = start; i < plan.order.length; i++) {
+            int u = plan.order[i];
+            if (!reached[u]) {
+                continue;
+            }
+            System.arraycopy(dist, u * width, from, 0, width);
+            int end = plan.offsets[i + 1];
+            relaxed += end - plan.offsets[i];
+            for (int e = plan.offsets[i]; e < end; e++) {
+                int v = plan.targets[e];
+                reached[v] = true;
+                int vb = v * width;
+                int wb = e * width;
+                for (int s = 0; s < width; s++) {
+                    dist[vb + s] = Math.min(dist[vb + s], from[s] + weights[wb + s]);
+                }
+            }
+        }
+        return relaxed;
+    }
+
+    /**
+     * Edge weights of a set of scenarios in blocks: block {@code s / blockSize} holds the weight of
+     * plan edge {@code e} for scenario {@code s} at {@code e * blockSize + s % blockSize}.
+     */
+    public static final class Scenarios {
+        private final DAGShortestPath.Plan plan;
+        private final int count;
+        private final int blockSize;
+        private final int[][] blocks;
+
+        private Scenarios(DAGShortestPath.Plan plan, int count, int blockSize) {
+            if (count < 0) {
+                throw new IllegalArgumentException("count must be >= 0");
+            }
+            this.plan = plan;
+            this.count = count;
+            this.blockSize = blockSize;
+            int m = plan.targets.length;
+            blocks = new int[(count + blockSize - 1) / blockSize][Math.multiplyExact(m, blockSize)];
+            for (int[] block : blocks) {
+                for (int e = 0; e < m; e++) {
+                    Arrays.fill(block, e * blockSize, (e + 1) * blockSize, plan.weights[e]);
+                }
+            }
+        }
+
+        public int size() {
+            return count;
+        }
+
+        /** Weight of the {@code k}-th out-edge of {@code u} in {@code scenario}. */
+        public int getWeight(int scenario, int u, int k) {
+            return blocks[scenario / blockSize][slot(scenario, u, k)];
+        }
+
+        public void setWeight(int scenario, int u, int k, int weight) {
+            blocks[scenario / blockSize][slot(scenario, u, k)] = weight;
+        }
+
+        /** Replaces every weight of {@code scenario}; edges are numbered in adjacency order. */
+        public void setWeights(int scenario, int[] edgeWeights) {
+            if (edgeWeights.length != plan.targets.length) {
+                throw new IllegalArgumentException("Expected " + plan.targets.length + " edge weights");
+            }
+            checkScenario(scenario);
+            int[] block = blocks[scenario / blockSize];
+            int lane = scenario % blockSize;
+            int index = 0;
+            for (int u = 0; u < plan.order.length; u++) {
+                int i = plan.position[u];
+                for (int e = plan.offsets[i]; e < plan.offsets[i + 1]; e++) {
+                    block[e * blockSize + lane] = edgeWeights[index++];
+                }
+            }
+        }
+
+        private int slot(int scenario, int u, int k) {
+            checkScenario(scenario);
+            int i = plan.position[u];
+            if (k < 0 || k >= plan.offsets[i + 1] - plan.offsets[i]) {
+                throw new IndexOutOfBoundsException("Vertex " + u + " has no out-edge " + k);
+            }
+            return (plan.offsets[i] + k) * blockSize + scenario % blockSize;
+        }
+
+        private void checkScenario(int scenario) {
+            if (scenario < 0 || scenario >= count) {
+                throw new IndexOutOfBoundsException("Scenario " + scenario + " of " + count);
+            }
+        }
+    }
+
+    /**
+     * Row {@code s} of {@code distances} holds scenario {@code s}, with the PathResult sentinels
+     * for unreachable vertices; it is null when only lengths were requested. Entry {@code s} of
+     * {@code criticalLengths} is the largest finite distance of that scenario, which for longest
+     * paths is its critical path length.
+     */
+    public record Result(int source, int[][] distances, int[] criticalLengths, boolean longest) {
+
+        public int getDistance(int scenario, int dest) {
+            return distances[scenario][dest];
+        }
+
+        public int criticalPathLength(int scenario) {
+            return criticalLengths[scenario];
+        }
+
+        public int size() {
+            return criticalLengths.length;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package path.testing;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.fixture.RandomGraphs;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScenarioBatchTest {
+
+    /** The same graph with its edges, in adjacency order, reweighted. */
+    private static Graph reweighted(Graph graph, int[] weights) {
+        Graph copy = new Graph(graph.getN(), true, "edge");
+        int index = 0;
+        for (int u = 0; u < graph.getN(); u++) {
+            for (int k = 0; k < graph.outDegree(u); k++) {
+                copy.addEdge(u, graph.target(u, k), weights[index++]);
+            }
+        }
+        return copy;
+    }
+
+    @Test
+    public void testMatchesSingleScenarioRuns() {
+        Random random = new Random(7);
+        for (long seed = 0; seed < 5; seed++) {
+            Graph graph = RandomGraphs.builder(60, 150).acyclic().weights(1, 9).build(seed);
+            int m = (int) graph.getEdgeCount();
+            int[][] weights = new int[37][m];
+            for (int[] row : weights) {
+                for (int e = 0; e < m; e++) {
+                    row[e] = random.nextInt(20) - 5;
+                }
+            }
+            ScenarioBatch batch = new ScenarioBatch(new DAGShortestPath(graph), 8);
+            ScenarioBatch.Scenarios scenarios = batch.scenarios(weights);
+            ScenarioBatch.Result longest = batch.longestPaths(3, scenarios);
+            ScenarioBatch.Result shortest = batch.shortestPaths(3, scenarios);
+            int[] critical = batch.criticalPathLengths(scenarios);
+
+            for (int s = 0; s < weights.length; s++) {
+                DAGShortestPath single = new DAGShortestPath(reweighted(graph, weights[s]));
+                DAGShortestPath.PathResult expectedLongest = single.longestPaths(3);
+                assertArrayEquals(expectedLongest.distances(), longest.distances()[s]);
+                assertEquals(expectedLongest.findCriticalPath().length(), longest.criticalPathLength(s));
+                assertArrayEquals(single.shortestPaths(3).distances(), shortest.distances()[s]);
+
+                // Every vertex starts at 0, so the critical length is the best chain from any vertex
+                int best = 0;
+                for (int source = 0; source < graph.getN(); source++) {
+                    best = Math.max(best, single.longestPaths(source).findCriticalPath().length());
+                }
+                assertEquals(best, critical[s], "scenario " + s);
+            }
+        }
+    }
+
+    @Test
+    public void testScenariosStartFromGraphWeights() {
+        Graph graph = new Graph(4, true, "edge");
+        graph.addEdge(0, 1, 3);
+        graph.addEdge(0, 2, 1);
+        graph.addEdge(1, 3, 2);
+        graph.addEdge(2, 3, 2);
+
+        Metrics metrics = new MetricsImpl();
+        ScenarioBatch batch = new ScenarioBatch(new DAGShortestPath(graph, metrics));
+        ScenarioBatch.Scenarios scenarios = batch.scenarios(3);
+        scenarios.setWeight(1, 0, 1, 10);
+        scenarios.setWeight(2, 1, 0, 0);
+
+        assertEquals(3, scenarios.getWeight(0, 0, 0));
+        assertEquals(10, scenarios.getWeight(1, 0, 1));
+        assertArrayEquals(new int[]{5, 12, 3}, batch.criticalPathLengths(scenarios));
+
+        ScenarioBatch.Result shortest = batch.shortestPaths(1, scenarios);
+        assertEquals(Integer.MAX_VALUE, shortest.getDistance(0, 0));
+        assertEquals(0, shortest.getDistance(2, 3));
+        assertEquals(6, metrics.getCounter("scenarios"));
+        assertThrows(IndexOutOfBoundsException.class, () -> scenarios.setWeight(3, 0, 0, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> scenarios.getWeight(0, 3, 0));
+    }
+}
@@ -110,4 +110,35 @@ public class TarjanSCCTest {
 
         assertEquals(4, sacs.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLongChainDoesNotOverflow() {
+        int n = 500_000;
+        Graph graph = new Graph(n, true, "edge");
+        for (int i = 0; i + 1 < n; i++) {
+            graph.addEdge(i, i + 1, 1);
+        }
+        graph.addEdge(n - 1, 0, 1);
+
+        TarjanSCC tarjan = new TarjanSCC(graph);
+        List<List<Integer>> sacs = tarjan.findSCCs();
+
+        assertEquals(1, sacs.size());
+        assertEquals(n, sacs.getFirst().size());
+    }
+
+    @Test
+    public void testComponentEmissionOrder() {
+        Graph graph = new Graph(5, true, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 1, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 4, 1);
+        graph.addEdge(4, 3, 1);
+
+        List<List<Integer>> sacs = new TarjanSCC(graph).findSCCs();
+
+        assertEquals(List.of(List.of(4, 3), List.of(2, 1), List.of(0)), sacs);
+    }
+}